@@ -7,10 +7,18 @@
  */
 package org.opendaylight.netide.impl;
 
+import java.util.concurrent.TimeUnit;
 import org.opendaylight.controller.md.sal.binding.api.NotificationPublishService;
 import org.opendaylight.controller.sal.binding.api.BindingAwareBroker.ProviderContext;
 import org.opendaylight.controller.sal.binding.api.BindingAwareBroker.RpcRegistration;
 import org.opendaylight.controller.sal.binding.api.BindingAwareProvider;
+import org.opendaylight.netide.netiplib.OpenFlowCodecs;
+import org.opendaylight.netide.shim.CoreConnectionConfiguration;
+import org.opendaylight.netide.shim.CoreConnectorType;
+import org.opendaylight.netide.shim.ICoreConnector;
+import org.opendaylight.netide.shim.NettyCoreConnector;
+import org.opendaylight.netide.shim.OrderedCoreListener;
+import org.opendaylight.netide.shim.ShardedCoreConnector;
 import org.opendaylight.netide.shim.ShimSwitchConnectionHandlerImpl;
 import org.opendaylight.netide.shim.ZeroMQBaseConnector;
 import org.opendaylight.openflowjava.protocol.api.connection.ConnectionConfiguration;
@@ -23,18 +31,20 @@ import org.slf4j.LoggerFactory;
 public class NetideProvider implements BindingAwareProvider, AutoCloseable {
 
     private static final Logger LOG = LoggerFactory.getLogger(NetideProvider.class);
+    private static final long DISPATCH_SHUTDOWN_SECONDS = 5;
     private RpcRegistration<NetideService> netideService;
     private SwitchConnectionProvider connectionProvider;
-    private ZeroMQBaseConnector coreConnector;
-    private int corePort;
-    private String coreAddress;
+    private ICoreConnector coreConnector;
+    private ShimSwitchConnectionHandlerImpl handler;
+    private OrderedCoreListener dispatcher;
+    private CoreConnectionConfiguration coreConf;
     ConnectionConfiguration conf;
     NotificationPublishService notificationProviderService;
 
-    public NetideProvider(String _coreAddress, int _corePort, ConnectionConfiguration connectionConfiguration,
+    public NetideProvider(CoreConnectionConfiguration coreConnectionConfiguration,
+            ConnectionConfiguration connectionConfiguration,
             NotificationPublishService _notificationProviderService) {
-        coreAddress = _coreAddress;
-        corePort = _corePort;
+        coreConf = coreConnectionConfiguration;
         conf = connectionConfiguration;
         notificationProviderService = _notificationProviderService;
     }
@@ -43,15 +53,19 @@ public class NetideProvider implements BindingAwareProvider, AutoCloseable {
     public void onSessionInitiated(ProviderContext session) {
         LOG.info("NetideProvider Session Initiated");
         connectionProvider = new SwitchConnectionProviderImpl();
-        coreConnector = new ZeroMQBaseConnector();
+        coreConnector = createCoreConnector(coreConf);
 
-        ShimSwitchConnectionHandlerImpl handler = new ShimSwitchConnectionHandlerImpl(coreConnector,
-                notificationProviderService);
+        // the codecs are created once for the bundle and shared by all relays
+        handler = new ShimSwitchConnectionHandlerImpl(coreConnector,
+                notificationProviderService, new OpenFlowCodecs());
         handler.init();
+        handler.setRawForwardingEnabled(coreConf.isRawForwarding());
+        handler.setRawCaptureEnabled(coreConf.isRawCapture(), coreConf.isPacketInNotifications());
 
-        coreConnector.RegisterCoreListener(handler);
-        coreConnector.setAddress(coreAddress);
-        coreConnector.setPort(corePort);
+        // the connector thread only reads frames, the switch side work runs
+        // on one partition per datapath
+        dispatcher = new OrderedCoreListener(handler, coreConf.getDispatchThreads());
+        coreConnector.RegisterCoreListener(dispatcher);
 
         connectionProvider.setSwitchConnectionHandler(handler);
 
@@ -59,7 +73,21 @@ public class NetideProvider implements BindingAwareProvider, AutoCloseable {
         coreConnector.Start();
         connectionProvider.startup();
 
-        netideService = session.addRpcImplementation(NetideService.class, new StatusImpl(handler));
+        netideService = session.addRpcImplementation(NetideService.class, new StatusImpl(handler, dispatcher));
+    }
+
+    private static ICoreConnector createCoreConnector(CoreConnectionConfiguration configuration) {
+        if (configuration.getConnectorType() == CoreConnectorType.NETTY) {
+            NettyCoreConnector connector = new NettyCoreConnector();
+            connector.configure(configuration);
+            return connector;
+        }
+        if (configuration.getConnections() > 1) {
+            return new ShardedCoreConnector(configuration, configuration.getConnections());
+        }
+        ZeroMQBaseConnector connector = new ZeroMQBaseConnector();
+        connector.configure(configuration);
+        return connector;
     }
 
     @Override
@@ -70,6 +98,8 @@ public class NetideProvider implements BindingAwareProvider, AutoCloseable {
         }
         connectionProvider.shutdown();
         coreConnector.Stop();
+        dispatcher.shutdown(DISPATCH_SHUTDOWN_SECONDS, TimeUnit.SECONDS);
+        handler.close();
     }
 
 }
\ No newline at end of file
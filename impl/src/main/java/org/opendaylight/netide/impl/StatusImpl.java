@@ -7,12 +7,18 @@
  */
 package org.opendaylight.netide.impl;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Future;
 import org.opendaylight.netide.netiplib.NetIDEProtocolVersion;
+import org.opendaylight.netide.shim.ICoreConnector;
+import org.opendaylight.netide.shim.OrderedCoreListener;
 import org.opendaylight.netide.shim.ShimSwitchConnectionHandlerImpl;
 import org.opendaylight.yang.gen.v1.urn.opendaylight.params.xml.ns.yang.netide.rev151001.NetideService;
 import org.opendaylight.yang.gen.v1.urn.opendaylight.params.xml.ns.yang.netide.rev151001.StatusOutput;
 import org.opendaylight.yang.gen.v1.urn.opendaylight.params.xml.ns.yang.netide.rev151001.StatusOutputBuilder;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.params.xml.ns.yang.netide.rev151001.status.output.CoreDispatchPartitions;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.params.xml.ns.yang.netide.rev151001.status.output.CoreDispatchPartitionsBuilder;
 import org.opendaylight.yangtools.yang.common.RpcResult;
 import org.opendaylight.yangtools.yang.common.RpcResultBuilder;
 
@@ -23,9 +29,11 @@ import org.opendaylight.yangtools.yang.common.RpcResultBuilder;
 public class StatusImpl implements NetideService {
 
     private ShimSwitchConnectionHandlerImpl connectionHandler;
+    private OrderedCoreListener dispatcher;
 
-    public StatusImpl(ShimSwitchConnectionHandlerImpl handler) {
+    public StatusImpl(ShimSwitchConnectionHandlerImpl handler, OrderedCoreListener coreDispatcher) {
         connectionHandler = handler;
+        dispatcher = coreDispatcher;
     }
 
     @Override
@@ -34,6 +42,30 @@ public class StatusImpl implements NetideService {
         builder.setNetipVersion(NetIDEProtocolVersion.VERSION_1_4.getValue());
         builder.setOfVersions(connectionHandler.getSupportedOFProtocols());
         builder.setConnectedSwitches(connectionHandler.getNumberOfSwitches());
+        builder.setSwitchRequestsOutstanding(connectionHandler.getOutstandingSwitchRequests());
+        ICoreConnector coreConnector = connectionHandler.getCoreConnector();
+        if (coreConnector != null) {
+            builder.setCoreQueueDepth(coreConnector.getOutboundQueueDepth());
+            builder.setCoreQueueDrops(coreConnector.getOutboundDrops());
+            builder.setCoreQueueEvictions(coreConnector.getOutboundEvictions());
+            builder.setCoreQueueLowPriorityDrops(coreConnector.getOutboundLowPriorityDrops());
+            builder.setCoreQueueBlockedSends(coreConnector.getOutboundBlockedSends());
+            builder.setCoreAlive(coreConnector.isCoreAlive());
+            builder.setCoreRtt(coreConnector.getCoreRttMicros());
+            builder.setCoreReconnects(coreConnector.getReconnects());
+        }
+        if (dispatcher != null) {
+            List<CoreDispatchPartitions> partitions = new ArrayList<>();
+            for (int i = 0; i < dispatcher.getPartitions(); i++) {
+                CoreDispatchPartitionsBuilder partition = new CoreDispatchPartitionsBuilder();
+                partition.setPartition(i);
+                partition.setQueueDepth(dispatcher.getQueueDepth(i));
+                partition.setProcessed(dispatcher.getProcessed(i));
+                partition.setServiceTime(dispatcher.getServiceTimeNanos(i));
+                partitions.add(partition.build());
+            }
+            builder.setCoreDispatchPartitions(partitions);
+        }
         return RpcResultBuilder.success(builder.build()).buildFuture();
     }
 }
\ No newline at end of file
@@ -5,8 +5,14 @@ import java.util.List;
 import com.google.common.base.MoreObjects;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import org.opendaylight.controller.config.api.JmxAttributeValidationException;
 import org.opendaylight.netide.impl.NetideProvider;
+import org.opendaylight.netide.shim.CoreConnectionConfiguration;
+import org.opendaylight.netide.shim.CoreConnectorType;
+import org.opendaylight.netide.shim.CoreTransport;
 import org.opendaylight.netide.shim.ShimConnectionConfiguration;
+import org.opendaylight.netide.shim.OverloadPolicy;
+import org.opendaylight.netide.shim.WaitStrategy;
 import org.opendaylight.openflowjava.protocol.api.connection.ConnectionConfiguration;
 import org.opendaylight.openflowjava.protocol.api.connection.ThreadConfiguration;
 import org.opendaylight.openflowjava.protocol.api.connection.TlsConfiguration;
@@ -16,6 +22,11 @@ import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.config.rev140630.T
 
 public class NetideMainModule extends
         org.opendaylight.yang.gen.v1.urn.opendaylight.params.xml.ns.yang.netide.netide.impl.rev151001.AbstractNetideMainModule {
+    /**
+     * Largest capacity of the outbound queue of the ZeroMQ connector.
+     */
+    private static final long MAX_HIGH_WATER_MARK = 1 << 30;
+
     public NetideMainModule(org.opendaylight.controller.config.api.ModuleIdentifier identifier,
             org.opendaylight.controller.config.api.DependencyResolver dependencyResolver) {
         super(identifier, dependencyResolver);
@@ -30,18 +41,55 @@ public class NetideMainModule extends
 
     @Override
     public void customValidation() {
-        // add custom validation form module attributes here.
+        // the inproc transport only reaches a core sharing the ZeroMQ context,
+        // which cannot be passed in through the config subsystem
+        JmxAttributeValidationException.checkCondition(
+                !CoreTransport.INPROC.getValue().equalsIgnoreCase(getCoreTransport()),
+                "inproc is only available to a core embedded in the same JVM", coreTransportJmxAttribute);
+        // the enumerations are plain strings in the model, reject unknown
+        // values at commit time rather than in createInstance()
+        try {
+            if (getCoreConnector() != null) {
+                CoreConnectorType.parse(getCoreConnector());
+            }
+        } catch (IllegalArgumentException e) {
+            throw new JmxAttributeValidationException(e.getMessage(), e, coreConnectorJmxAttribute);
+        }
+        try {
+            if (getCoreTransport() != null) {
+                CoreTransport.parse(getCoreTransport());
+            }
+        } catch (IllegalArgumentException e) {
+            throw new JmxAttributeValidationException(e.getMessage(), e, coreTransportJmxAttribute);
+        }
+        try {
+            if (getCoreWaitStrategy() != null) {
+                WaitStrategy.parse(getCoreWaitStrategy());
+            }
+        } catch (IllegalArgumentException e) {
+            throw new JmxAttributeValidationException(e.getMessage(), e, coreWaitStrategyJmxAttribute);
+        }
+        try {
+            if (getCoreOverloadPolicy() != null) {
+                OverloadPolicy.parse(getCoreOverloadPolicy());
+            }
+        } catch (IllegalArgumentException e) {
+            throw new JmxAttributeValidationException(e.getMessage(), e, coreOverloadPolicyJmxAttribute);
+        }
+        if (getCoreHighWaterMark() != null) {
+            JmxAttributeValidationException.checkCondition(
+                    getCoreHighWaterMark() >= 1 && getCoreHighWaterMark() <= MAX_HIGH_WATER_MARK,
+                    "has to be between 1 and " + MAX_HIGH_WATER_MARK, coreHighWaterMarkJmxAttribute);
+        }
     }
 
     @Override
     public java.lang.AutoCloseable createInstance() {
         NetideProvider provider = null;
         try {
-            InetAddress coreAddress = extractIpAddressBin(getCoreAddress());
-            int corePort = getCorePort();
+            CoreConnectionConfiguration coreConf = createCoreConnectionConfiguration();
             ConnectionConfiguration conf = createConnectionConfiguration();
-            provider = new NetideProvider(coreAddress.getHostAddress(), corePort, conf,
-                    getNotificationPublishAdapterDependency());
+            provider = new NetideProvider(coreConf, conf, getNotificationPublishAdapterDependency());
             getBrokerDependency().registerProvider(provider);
         } catch (UnknownHostException e) {
             e.printStackTrace();
@@ -49,6 +97,61 @@ public class NetideMainModule extends
         return provider;
     }
 
+    private CoreConnectionConfiguration createCoreConnectionConfiguration() throws UnknownHostException {
+        CoreConnectionConfiguration coreConf = new CoreConnectionConfiguration();
+        coreConf.setAddress(extractIpAddressBin(getCoreAddress()).getHostAddress());
+        coreConf.setPort(getCorePort());
+        if (getCoreConnector() != null) {
+            coreConf.setConnectorType(CoreConnectorType.parse(getCoreConnector()));
+        }
+        if (getCoreTransport() != null) {
+            coreConf.setTransport(CoreTransport.parse(getCoreTransport()));
+        }
+        if (getCoreEndpoint() != null) {
+            coreConf.setEndpoint(getCoreEndpoint());
+        }
+        if (getCoreWaitStrategy() != null) {
+            coreConf.setWaitStrategy(WaitStrategy.parse(getCoreWaitStrategy()));
+        }
+        if (getCoreSpinIterations() != null) {
+            coreConf.setSpinIterations(getCoreSpinIterations().intValue());
+        }
+        if (getCoreBatchMaxBytes() != null) {
+            coreConf.setBatchMaxBytes(getCoreBatchMaxBytes().intValue());
+        }
+        if (getCoreBatchLingerMicros() != null) {
+            coreConf.setBatchLingerMicros(getCoreBatchLingerMicros().intValue());
+        }
+        if (getCoreHighWaterMark() != null) {
+            coreConf.setHighWaterMark(getCoreHighWaterMark().intValue());
+        }
+        if (getCoreOverloadPolicy() != null) {
+            coreConf.setOverloadPolicy(OverloadPolicy.parse(getCoreOverloadPolicy()));
+        }
+        if (getCoreConnections() != null) {
+            coreConf.setConnections(getCoreConnections());
+        }
+        if (getCoreDispatchThreads() != null) {
+            coreConf.setDispatchThreads(getCoreDispatchThreads());
+        }
+        if (getCoreHeartbeatInterval() != null) {
+            coreConf.setHeartbeatIntervalMillis(getCoreHeartbeatInterval().intValue());
+        }
+        if (getCoreHeartbeatMisses() != null) {
+            coreConf.setHeartbeatMisses(getCoreHeartbeatMisses().intValue());
+        }
+        if (getCoreRawForwarding() != null) {
+            coreConf.setRawForwarding(getCoreRawForwarding());
+        }
+        if (getCoreRawCapture() != null) {
+            coreConf.setRawCapture(getCoreRawCapture());
+        }
+        if (getPacketInNotifications() != null) {
+            coreConf.setPacketInNotifications(getPacketInNotifications());
+        }
+        return coreConf;
+    }
+
     private ConnectionConfiguration createConnectionConfiguration() throws UnknownHostException {
         final InetAddress address = extractIpAddressBin(getAddress());
         final Integer port = getPort();
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.netiplib;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.util.ArrayList;
+import java.util.List;
+import org.javatuples.Pair;
+
+/**
+ * Class representing a message of type BATCH. The payload is a sequence of
+ * complete NetIP messages, each with its own header, so one frame can carry a
+ * burst of messages for different datapaths and modules.
+ *
+ * Each carried message is laid out as on the wire: its
+ * {@link MessageHeader#HEADER_BYTES} byte header, whose payload length covers
+ * only its own payload, directly followed by that payload. The next message
+ * starts right behind it, with no padding. The payload length of the BATCH
+ * header covers all carried messages, at most {@link #MAX_PAYLOAD_BYTES}.
+ *
+ * A peer may only send BATCH messages after both sides announced
+ * {@link #CAPABILITY} in their HELLO messages. Nested BATCH messages are not
+ * allowed.
+ */
+public class BatchMessage extends Message {
+    /**
+     * The HELLO pair announcing support for BATCH messages.
+     */
+    public static final Pair<Protocol, ProtocolVersions> CAPABILITY = new Pair<>(Protocol.NETIP,
+            ProtocolVersions.NETIP_BATCH);
+    /**
+     * The largest payload a BATCH message can carry.
+     */
+    public static final int MAX_PAYLOAD_BYTES = MessageHeader.MAX_PAYLOAD_BYTES;
+
+    /**
+     * The carried messages.
+     */
+    private List<Message> messages;
+
+    /**
+     * Creates a new instance of the BatchMessage class.
+     */
+    public BatchMessage() {
+        super(new MessageHeader(), new byte[0]);
+        header.setMessageType(MessageType.BATCH);
+        messages = new ArrayList<>();
+    }
+
+    /**
+     * Returns the carried messages.
+     *
+     * @return The carried messages.
+     */
+    public List<Message> getMessages() {
+        return messages;
+    }
+
+    /**
+     * Sets the carried messages.
+     *
+     * @param messages The new carried messages.
+     */
+    public void setMessages(List<Message> messages) {
+        this.messages = messages;
+    }
+
+    /**
+     * Encodes the carried messages. The payload lengths of their headers and
+     * of this message's header are set to the encoded sizes.
+     *
+     * @return the payload
+     */
+    @Override
+    public byte[] getPayload() {
+        int length = 0;
+        for (Message message : messages) {
+            if (message.getHeader().getMessageType() == MessageType.BATCH) {
+                throw new IllegalArgumentException("BATCH messages cannot be nested");
+            }
+            int payloadLength = message.getPayload().length;
+            message.getHeader().setPayloadLength((short) payloadLength);
+            length += MessageHeader.HEADER_BYTES + payloadLength;
+        }
+        if (length > MAX_PAYLOAD_BYTES) {
+            throw new IllegalArgumentException("BATCH payload too long: " + length);
+        }
+        byte[] bytes = new byte[length];
+        ByteBuf buffer = Unpooled.wrappedBuffer(bytes);
+        buffer.writerIndex(0);
+        for (Message message : messages) {
+            message.writeTo(buffer);
+        }
+        header.setPayloadLength((short) length);
+        this.payload = bytes;
+        return this.payload;
+    }
+}
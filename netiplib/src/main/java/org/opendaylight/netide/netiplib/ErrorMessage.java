@@ -7,7 +7,6 @@
  */
 package org.opendaylight.netide.netiplib;
 
-import java.util.ArrayList;
 import java.util.List;
 import org.javatuples.Pair;
 
@@ -27,7 +26,7 @@ public class ErrorMessage extends Message {
     public ErrorMessage() {
         super(new MessageHeader(), new byte[0]);
         header.setMessageType(MessageType.ERROR);
-        supportedProtocols = new ArrayList<>();
+        supportedProtocols = new ProtocolList();
     }
 
     /**
@@ -50,14 +49,8 @@ public class ErrorMessage extends Message {
 
     @Override
     public byte[] getPayload() {
-        byte[] payload = new byte[supportedProtocols.size() * 2];
-        int i = 0;
-        for (Pair<Protocol, ProtocolVersions> entry : supportedProtocols) {
-            payload[i] = entry.getValue0().getValue();
-            payload[i + 1] = entry.getValue1().getValue();
-            i += 2;
-        }
-        this.payload = payload;
+        // re-encoded only after the list of this message has been modified
+        this.payload = ProtocolList.encode(supportedProtocols);
         return this.payload;
     }
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.netiplib;
+
+import org.javatuples.Pair;
+
+/**
+ * Class representing a message of type FRAGMENT. A message longer than
+ * {@link MessageHeader#MAX_PAYLOAD_BYTES} is sent as a sequence of fragments
+ * sharing its transaction id, module id and datapath id. The payload of each
+ * fragment is laid out as follows:
+ *
+ * <pre>
+ * byte 0     flags, {@link #LAST_FRAGMENT} on the last fragment
+ * byte 1     the type of the fragmented message
+ * bytes 2-3  the fragment index, counting from 0, big endian
+ * bytes 4-   the data, at most {@link #MAX_DATA_BYTES}
+ * </pre>
+ *
+ * Concatenating the data of all fragments in index order gives the payload of
+ * the fragmented message.
+ *
+ * A peer may only send FRAGMENT messages after both sides announced
+ * {@link #CAPABILITY} in their HELLO messages. See
+ * {@link FragmentReassembler} for the receiving side.
+ */
+public class FragmentMessage extends Message {
+    /**
+     * The HELLO pair announcing support for FRAGMENT messages.
+     */
+    public static final Pair<Protocol, ProtocolVersions> CAPABILITY = new Pair<>(Protocol.NETIP,
+            ProtocolVersions.NETIP_FRAGMENT);
+    /**
+     * The length of the fragment fields in front of the data.
+     */
+    public static final int FRAGMENT_HEADER_BYTES = 4;
+    /**
+     * The largest amount of data one fragment can carry.
+     */
+    public static final int MAX_DATA_BYTES = MessageHeader.MAX_PAYLOAD_BYTES - FRAGMENT_HEADER_BYTES;
+    /**
+     * The largest fragment index.
+     */
+    public static final int MAX_INDEX = 0xFFFF;
+    /**
+     * Flag marking the last fragment of a message.
+     */
+    public static final byte LAST_FRAGMENT = 0x01;
+
+    private boolean last;
+    private MessageType fragmentedType;
+    private int index;
+    private byte[] data;
+    private byte[] encoded;
+
+    /**
+     * Creates a new instance of the FragmentMessage class.
+     */
+    public FragmentMessage() {
+        super(new MessageHeader(), new byte[0]);
+        header.setMessageType(MessageType.FRAGMENT);
+        data = new byte[0];
+    }
+
+    public boolean isLast() {
+        return last;
+    }
+
+    public void setLast(boolean last) {
+        this.last = last;
+        this.encoded = null;
+    }
+
+    /**
+     * Gets the type of the fragmented message.
+     *
+     * @return the type
+     */
+    public MessageType getFragmentedType() {
+        return fragmentedType;
+    }
+
+    public void setFragmentedType(MessageType fragmentedType) {
+        this.fragmentedType = fragmentedType;
+        this.encoded = null;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public void setIndex(int index) {
+        this.index = index;
+        this.encoded = null;
+    }
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public void setData(byte[] data) {
+        this.data = data;
+        this.encoded = null;
+    }
+
+    @Override
+    public byte[] getPayload() {
+        // re-encoded only after a field of this message has been set
+        if (encoded == null) {
+            byte[] bytes = new byte[FRAGMENT_HEADER_BYTES + data.length];
+            bytes[0] = last ? LAST_FRAGMENT : 0;
+            bytes[1] = fragmentedType.getValue();
+            bytes[2] = (byte) (index >>> 8);
+            bytes[3] = (byte) index;
+            System.arraycopy(data, 0, bytes, FRAGMENT_HEADER_BYTES, data.length);
+            encoded = bytes;
+        }
+        this.payload = encoded;
+        return this.payload;
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.netiplib;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.javatuples.Triplet;
+
+/**
+ * Reassembles messages sent as FRAGMENT frames, see {@link FragmentMessage}.
+ * Fragments are matched by module id, datapath id and transaction id and have
+ * to arrive in order.
+ *
+ * Memory is bounded twice: a message growing beyond the per message limit is
+ * discarded, and when all incomplete messages together exceed the total limit
+ * the oldest ones are discarded. Later fragments of a discarded message are
+ * ignored. The frames are kept, not copied, until their message is complete,
+ * so callers must not reuse them.
+ *
+ * Instances are not thread safe, use one per receiving thread.
+ */
+public final class FragmentReassembler {
+
+    public static final int DEFAULT_MAX_MESSAGE_BYTES = 16 * 1024 * 1024;
+    public static final long DEFAULT_MAX_BUFFERED_BYTES = 64L * 1024 * 1024;
+
+    private static final int DATA_OFFSET = MessageHeader.HEADER_BYTES + FragmentMessage.FRAGMENT_HEADER_BYTES;
+
+    private final int maxMessageBytes;
+    private final long maxBufferedBytes;
+    private final Map<Triplet<Integer, Long, Integer>, Pending> pending = new LinkedHashMap<>();
+    private long bufferedBytes;
+    private long discarded;
+
+    public FragmentReassembler() {
+        this(DEFAULT_MAX_MESSAGE_BYTES, DEFAULT_MAX_BUFFERED_BYTES);
+    }
+
+    /**
+     * Creates a reassembler with the given limits.
+     *
+     * @param maxMessageBytes the largest payload of a reassembled message
+     * @param maxBufferedBytes the largest amount of data held for incomplete
+     *            messages
+     */
+    public FragmentReassembler(int maxMessageBytes, long maxBufferedBytes) {
+        if (maxMessageBytes <= 0 || maxBufferedBytes < maxMessageBytes)
+            throw new IllegalArgumentException("Unexpected limits " + maxMessageBytes + "/" + maxBufferedBytes);
+        this.maxMessageBytes = maxMessageBytes;
+        this.maxBufferedBytes = maxBufferedBytes;
+    }
+
+    /**
+     * Adds a fragment.
+     *
+     * @param frame the FRAGMENT frame
+     * @return the reassembled message once its last fragment was added, null
+     *         otherwise. Its header carries the type of the fragmented message;
+     *         the payload length of the header only holds the low 16 bits of
+     *         the length, use the length of the payload instead.
+     * @throws IllegalArgumentException if the frame is no valid FRAGMENT
+     */
+    public Message add(byte[] frame) {
+        if (!NetIPRouting.isValid(frame) || !NetIPRouting.isType(frame, MessageType.FRAGMENT)
+                || frame.length < DATA_OFFSET
+                || NetIPRouting.payloadLength(frame) != frame.length - MessageHeader.HEADER_BYTES)
+            throw new IllegalArgumentException("Malformed FRAGMENT frame");
+        boolean last = (frame[MessageHeader.HEADER_BYTES] & FragmentMessage.LAST_FRAGMENT) != 0;
+        MessageType type = MessageType.parse(frame[MessageHeader.HEADER_BYTES + 1]);
+        int index = (frame[MessageHeader.HEADER_BYTES + 2] & 0xFF) << 8 | frame[MessageHeader.HEADER_BYTES + 3] & 0xFF;
+        int dataLength = frame.length - DATA_OFFSET;
+        Triplet<Integer, Long, Integer> key = Triplet.with(NetIPRouting.moduleId(frame),
+                NetIPRouting.datapathId(frame), NetIPRouting.transactionId(frame));
+
+        Pending message = pending.get(key);
+        if (index == 0) {
+            if (message != null) {
+                // the sender started over, the incomplete message is lost
+                discard(key);
+            }
+            if (dataLength > maxMessageBytes) {
+                discarded++;
+                return null;
+            }
+            if (last) {
+                return toMessage(frame, type, new Pending(frame));
+            }
+            message = new Pending(frame);
+        } else if (message == null) {
+            return null;
+        } else if (index != message.frames.size() || message.dataLength + dataLength > maxMessageBytes) {
+            discard(key);
+            return null;
+        } else {
+            message.add(frame);
+        }
+        if (message.frames.size() == 1) {
+            pending.put(key, message);
+        }
+        bufferedBytes += dataLength;
+        evictOthers(key);
+        if (!last) {
+            return null;
+        }
+        pending.remove(key);
+        bufferedBytes -= message.dataLength;
+        return toMessage(frame, type, message);
+    }
+
+    /**
+     * Discards the oldest incomplete messages until the total limit is kept.
+     * The message just added always fits on its own, as it is within the per
+     * message limit.
+     */
+    private void evictOthers(Triplet<Integer, Long, Integer> current) {
+        Iterator<Map.Entry<Triplet<Integer, Long, Integer>, Pending>> it = pending.entrySet().iterator();
+        while (bufferedBytes > maxBufferedBytes && it.hasNext()) {
+            Map.Entry<Triplet<Integer, Long, Integer>, Pending> eldest = it.next();
+            if (eldest.getKey().equals(current)) {
+                continue;
+            }
+            it.remove();
+            bufferedBytes -= eldest.getValue().dataLength;
+            discarded++;
+        }
+    }
+
+    private void discard(Triplet<Integer, Long, Integer> key) {
+        Pending message = pending.remove(key);
+        if (message != null) {
+            bufferedBytes -= message.dataLength;
+        }
+        discarded++;
+    }
+
+    private static Message toMessage(byte[] lastFrame, MessageType type, Pending message) {
+        byte[] payload = new byte[message.dataLength];
+        int offset = 0;
+        for (byte[] frame : message.frames) {
+            int length = frame.length - DATA_OFFSET;
+            System.arraycopy(frame, DATA_OFFSET, payload, offset, length);
+            offset += length;
+        }
+        MessageHeader header = new MessageHeader();
+        header.setNetIDEProtocolVersion(NetIDEProtocolVersion.parse(lastFrame[MessageHeaderFlyweight.VERSION_OFFSET]));
+        header.setMessageType(type);
+        header.setPayloadLength((short) payload.length);
+        header.setTransactionId(NetIPRouting.transactionId(lastFrame));
+        header.setModuleId(NetIPRouting.moduleId(lastFrame));
+        header.setDatapathId(NetIPRouting.datapathId(lastFrame));
+        return new Message(header, payload);
+    }
+
+    /**
+     * Gets the number of incomplete messages.
+     *
+     * @return the number of incomplete messages
+     */
+    public int getPendingMessages() {
+        return pending.size();
+    }
+
+    /**
+     * Gets the amount of data held for incomplete messages.
+     *
+     * @return the buffered bytes
+     */
+    public long getBufferedBytes() {
+        return bufferedBytes;
+    }
+
+    /**
+     * Gets the number of messages discarded because they exceeded a limit,
+     * were evicted or lost a fragment.
+     *
+     * @return the discarded messages
+     */
+    public long getDiscardedMessages() {
+        return discarded;
+    }
+
+    private static final class Pending {
+        private final List<byte[]> frames = new ArrayList<>();
+        private int dataLength;
+
+        Pending(byte[] first) {
+            add(first);
+        }
+
+        void add(byte[] frame) {
+            frames.add(frame);
+            dataLength += frame.length - DATA_OFFSET;
+        }
+    }
+}
@@ -14,6 +14,7 @@ package org.opendaylight.netide.netiplib;
 public class ManagementMessage extends Message {
 
     private String payloadString;
+    private byte[] encoded;
 
     public ManagementMessage() {
         super(new MessageHeader(), new byte[0]);
@@ -26,10 +27,14 @@ public class ManagementMessage extends Message {
 
     public void setPayloadString(String payloadString) {
         this.payloadString = payloadString;
+        this.encoded = null;
     }
 
     @Override
     public byte[] getPayload() {
-        return payloadString.getBytes();
+        if (encoded == null) {
+            encoded = payloadString.getBytes();
+        }
+        return encoded;
     }
 }
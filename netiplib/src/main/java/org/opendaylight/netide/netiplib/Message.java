@@ -7,6 +7,8 @@
  */
 package org.opendaylight.netide.netiplib;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import java.util.Arrays;
 
 /**
@@ -60,6 +62,8 @@ public class Message {
      *
      * @return the payload ImplNote: This method has to ensure that the returned
      *         payload reflects the current state of any convenience fields!
+     *         Convenience classes may return the same cached array until
+     *         they are modified, so callers must not change it.
      */
     public byte[] getPayload() {
         return payload;
@@ -74,11 +78,25 @@ public class Message {
         byte[] payload = getPayload();
 
         byte[] bytes = new byte[MessageHeader.HEADER_BYTES + payload.length];
-        System.arraycopy(header.toByteRepresentation(), 0, bytes, 0, MessageHeader.HEADER_BYTES);
+        header.writeTo(Unpooled.wrappedBuffer(bytes), 0);
         System.arraycopy(payload, 0, bytes, MessageHeader.HEADER_BYTES, payload.length);
         return bytes;
     }
 
+    /**
+     * Appends the message, including the header, at the writer index of the
+     * buffer.
+     *
+     * @param buffer
+     *            the buffer
+     */
+    public void writeTo(ByteBuf buffer) {
+        byte[] payload = getPayload();
+        buffer.ensureWritable(MessageHeader.HEADER_BYTES + payload.length);
+        header.writeTo(buffer);
+        buffer.writeBytes(payload);
+    }
+
     public void setPayload(byte[] data) {
         this.payload = data;
     }
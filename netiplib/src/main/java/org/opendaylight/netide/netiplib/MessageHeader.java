@@ -7,7 +7,7 @@
  */
 package org.opendaylight.netide.netiplib;
 
-import java.nio.ByteBuffer;
+import io.netty.buffer.ByteBuf;
 
 /**
  * Class representing a NetIP header.
@@ -18,6 +18,12 @@ public class MessageHeader {
      * The length of a header in bytes.
      */
     public static final int HEADER_BYTES = 20;
+    /**
+     * The largest payload the 16 bit length field can describe. Longer
+     * messages have to be sent as FRAGMENT messages, see
+     * {@link NetIPConverter#toFragmentFrames(MessageHeader, ByteBuf, int)}.
+     */
+    public static final int MAX_PAYLOAD_BYTES = 0xFFFF;
 
     private NetIDEProtocolVersion netIDEProtocolVersion;
     private MessageType messageType;
@@ -67,7 +73,8 @@ public class MessageHeader {
     }
 
     /**
-     * Gets payload length.
+     * Gets payload length as stored in the header. Lengths above 0x7FFF are
+     * negative, use {@link #getUnsignedPayloadLength()} to compute with them.
      *
      * @return the payload length
      */
@@ -75,6 +82,15 @@ public class MessageHeader {
         return payloadLength;
     }
 
+    /**
+     * Gets payload length, read as an unsigned value.
+     *
+     * @return the payload length
+     */
+    public int getUnsignedPayloadLength() {
+        return payloadLength & 0xFFFF;
+    }
+
     /**
      * Sets payload length.
      *
@@ -139,20 +155,58 @@ public class MessageHeader {
     }
 
     /**
-     * Returns the header's byte representation.
+     * Returns the header's byte representation. Callers that have a buffer
+     * already should use {@link #writeTo(ByteBuf, int)} instead.
      *
      * @return The byte representation.
      */
     public byte[] toByteRepresentation() {
         byte[] bytes = new byte[HEADER_BYTES];
-        bytes[0] = netIDEProtocolVersion.getValue();
-        bytes[1] = messageType.getValue();
-        System.arraycopy(ByteBuffer.allocate(2).putShort(payloadLength).array(), 0, bytes, 2, 2);
-        System.arraycopy(ByteBuffer.allocate(4).putInt(transactionId).array(), 0, bytes, 4, 4);
-        System.arraycopy(ByteBuffer.allocate(4).putInt(moduleId).array(), 0, bytes, 8, 4);
-        System.arraycopy(ByteBuffer.allocate(8).putLong(datapathId).array(), 0, bytes, 12, 8);
+        bytes[MessageHeaderFlyweight.VERSION_OFFSET] = netIDEProtocolVersion.getValue();
+        bytes[MessageHeaderFlyweight.TYPE_OFFSET] = messageType.getValue();
+        putBigEndian(bytes, MessageHeaderFlyweight.LENGTH_OFFSET, payloadLength, 2);
+        putBigEndian(bytes, MessageHeaderFlyweight.TRANSACTION_ID_OFFSET, transactionId, 4);
+        putBigEndian(bytes, MessageHeaderFlyweight.MODULE_ID_OFFSET, moduleId, 4);
+        putBigEndian(bytes, MessageHeaderFlyweight.DATAPATH_ID_OFFSET, datapathId, 8);
         return bytes;
     }
+
+    private static void putBigEndian(byte[] bytes, int index, long value, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            bytes[index + i] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    /**
+     * Writes the header in place at the given index without touching the
+     * reader or writer index of the buffer.
+     *
+     * @param buffer
+     *            the buffer, at least HEADER_BYTES long from index
+     * @param index
+     *            the absolute index of the first header byte
+     */
+    public void writeTo(ByteBuf buffer, int index) {
+        buffer.setByte(index + MessageHeaderFlyweight.VERSION_OFFSET, netIDEProtocolVersion.getValue());
+        buffer.setByte(index + MessageHeaderFlyweight.TYPE_OFFSET, messageType.getValue());
+        buffer.setShort(index + MessageHeaderFlyweight.LENGTH_OFFSET, payloadLength);
+        buffer.setInt(index + MessageHeaderFlyweight.TRANSACTION_ID_OFFSET, transactionId);
+        buffer.setInt(index + MessageHeaderFlyweight.MODULE_ID_OFFSET, moduleId);
+        buffer.setLong(index + MessageHeaderFlyweight.DATAPATH_ID_OFFSET, datapathId);
+    }
+
+    /**
+     * Appends the header at the writer index of the buffer.
+     *
+     * @param buffer
+     *            the buffer
+     */
+    public void writeTo(ByteBuf buffer) {
+        buffer.ensureWritable(HEADER_BYTES);
+        writeTo(buffer, buffer.writerIndex());
+        buffer.writerIndex(buffer.writerIndex() + HEADER_BYTES);
+    }
     
     @Override
     public String toString() {
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.netiplib;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * Reusable accessor reading and writing the fields of a NetIP header in place
+ * on a buffer. Nothing is copied or allocated: one instance can be wrapped
+ * around every frame a thread handles. Instances are not thread-safe.
+ *
+ * Reader and writer index of the wrapped buffer are never modified.
+ * {@link MessageHeader} remains available as a detached view through
+ * {@link #toMessageHeader()}.
+ */
+public final class MessageHeaderFlyweight {
+
+    public static final int VERSION_OFFSET = 0;
+    public static final int TYPE_OFFSET = 1;
+    public static final int LENGTH_OFFSET = 2;
+    public static final int TRANSACTION_ID_OFFSET = 4;
+    public static final int MODULE_ID_OFFSET = 8;
+    public static final int DATAPATH_ID_OFFSET = 12;
+
+    private ByteBuf buffer;
+    private int offset;
+
+    /**
+     * Points the flyweight to the header at the reader index of a buffer.
+     *
+     * @param buffer the buffer holding at least a complete header
+     * @return this flyweight
+     */
+    public MessageHeaderFlyweight wrap(ByteBuf buffer) {
+        if (buffer.readableBytes() < MessageHeader.HEADER_BYTES)
+            throw new IllegalArgumentException("Header byte size has to be " + MessageHeader.HEADER_BYTES);
+        return wrap(buffer, buffer.readerIndex());
+    }
+
+    /**
+     * Points the flyweight to the header at an absolute index of a buffer.
+     *
+     * @param buffer the buffer
+     * @param offset the absolute index of the first header byte
+     * @return this flyweight
+     */
+    public MessageHeaderFlyweight wrap(ByteBuf buffer, int offset) {
+        if (offset < 0 || offset + MessageHeader.HEADER_BYTES > buffer.capacity())
+            throw new IllegalArgumentException("Header byte size has to be " + MessageHeader.HEADER_BYTES);
+        this.buffer = buffer;
+        this.offset = offset;
+        return this;
+    }
+
+    public ByteBuf buffer() {
+        return buffer;
+    }
+
+    public int offset() {
+        return offset;
+    }
+
+    public byte getVersion() {
+        return buffer.getByte(offset + VERSION_OFFSET);
+    }
+
+    public MessageHeaderFlyweight setVersion(byte version) {
+        buffer.setByte(offset + VERSION_OFFSET, version);
+        return this;
+    }
+
+    public byte getType() {
+        return buffer.getByte(offset + TYPE_OFFSET);
+    }
+
+    public MessageHeaderFlyweight setType(byte type) {
+        buffer.setByte(offset + TYPE_OFFSET, type);
+        return this;
+    }
+
+    /**
+     * Gets the payload length, read as an unsigned value.
+     *
+     * @return the payload length
+     */
+    public int getPayloadLength() {
+        return buffer.getUnsignedShort(offset + LENGTH_OFFSET);
+    }
+
+    public MessageHeaderFlyweight setPayloadLength(int payloadLength) {
+        buffer.setShort(offset + LENGTH_OFFSET, payloadLength);
+        return this;
+    }
+
+    public int getTransactionId() {
+        return buffer.getInt(offset + TRANSACTION_ID_OFFSET);
+    }
+
+    public MessageHeaderFlyweight setTransactionId(int transactionId) {
+        buffer.setInt(offset + TRANSACTION_ID_OFFSET, transactionId);
+        return this;
+    }
+
+    public int getModuleId() {
+        return buffer.getInt(offset + MODULE_ID_OFFSET);
+    }
+
+    public MessageHeaderFlyweight setModuleId(int moduleId) {
+        buffer.setInt(offset + MODULE_ID_OFFSET, moduleId);
+        return this;
+    }
+
+    public long getDatapathId() {
+        return buffer.getLong(offset + DATAPATH_ID_OFFSET);
+    }
+
+    public MessageHeaderFlyweight setDatapathId(long datapathId) {
+        buffer.setLong(offset + DATAPATH_ID_OFFSET, datapathId);
+        return this;
+    }
+
+    /**
+     * Gets the offset of the payload following the header.
+     *
+     * @return the absolute index of the first payload byte
+     */
+    public int payloadOffset() {
+        return offset + MessageHeader.HEADER_BYTES;
+    }
+
+    /**
+     * Copies the header into a new {@link MessageHeader}.
+     *
+     * @return the header
+     */
+    public MessageHeader toMessageHeader() {
+        MessageHeader header = new MessageHeader();
+        header.setNetIDEProtocolVersion(NetIDEProtocolVersion.parse(getVersion()));
+        header.setMessageType(MessageType.parse(getType()));
+        header.setPayloadLength((short) getPayloadLength());
+        header.setTransactionId(getTransactionId());
+        header.setModuleId(getModuleId());
+        header.setDatapathId(getDatapathId());
+        return header;
+    }
+
+    /**
+     * Writes all fields of a {@link MessageHeader} into the wrapped header.
+     *
+     * @param header the header
+     * @return this flyweight
+     */
+    public MessageHeaderFlyweight set(MessageHeader header) {
+        header.writeTo(buffer, offset);
+        return this;
+    }
+}
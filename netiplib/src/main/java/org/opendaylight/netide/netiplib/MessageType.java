@@ -55,11 +55,27 @@ public enum MessageType {
      * FENCE message
      */
     FENCE((byte)0x08),
+    /**
+     * BATCH message, carrying several complete NetIP messages
+     */
+    BATCH((byte) 0x09),
+    /**
+     * FRAGMENT message, carrying a piece of a message too long for one frame
+     */
+    FRAGMENT((byte) 0x0A),
     /**
      * The UNSUPPORTED type.
      */
     UNSUPPORTED((byte) 0x00);
 
+    private static final MessageType[] BY_VALUE = new MessageType[256];
+
+    static {
+        for (MessageType c : values()) {
+            BY_VALUE[c.value & 0xFF] = c;
+        }
+    }
+
     private byte value;
 
     /**
@@ -80,6 +96,16 @@ public enum MessageType {
         return this.value;
     }
 
+    /**
+     * Looks up the message type of a byte value.
+     *
+     * @param value the value
+     * @return the message type, null if the value is unknown
+     */
+    public static MessageType lookup(final byte value) {
+        return BY_VALUE[value & 0xFF];
+    }
+
     /**
      * Parse message type.
      *
@@ -87,11 +113,10 @@ public enum MessageType {
      * @return the message type
      */
     public static MessageType parse(final byte value) {
-        for (MessageType c : MessageType.values()) {
-            if (c.value == value) {
-                return c;
-            }
+        MessageType c = BY_VALUE[value & 0xFF];
+        if (c == null) {
+            throw new IllegalArgumentException("Unexpected value " + value);
         }
-        throw new IllegalArgumentException("Unexpected value " + value);
+        return c;
     }
 }
@@ -14,6 +14,7 @@ package org.opendaylight.netide.netiplib;
  */
 public class ModuleAcknowledgeMessage extends Message {
     private String moduleName;
+    private byte[] encoded;
 
     /**
      * Creates a new instance of the ModuleAcknowledgeMessage class.
@@ -39,11 +40,15 @@ public class ModuleAcknowledgeMessage extends Message {
      */
     public void setModuleName(String moduleName) {
         this.moduleName = moduleName;
+        this.encoded = null;
     }
 
     @Override
     public byte[] getPayload() {
-        return this.moduleName.getBytes();
+        if (encoded == null) {
+            encoded = this.moduleName.getBytes();
+        }
+        return encoded;
     }
     
     @Override
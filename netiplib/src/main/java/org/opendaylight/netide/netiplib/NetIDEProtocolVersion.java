@@ -32,6 +32,14 @@ public enum NetIDEProtocolVersion {
      */
     VERSION_1_4((byte) 0x05);
 
+    private static final NetIDEProtocolVersion[] BY_VALUE = new NetIDEProtocolVersion[256];
+
+    static {
+        for (NetIDEProtocolVersion c : values()) {
+            BY_VALUE[c.value & 0xFF] = c;
+        }
+    }
+
     private byte value;
 
     /**
@@ -52,6 +60,16 @@ public enum NetIDEProtocolVersion {
         return this.value;
     }
 
+    /**
+     * Looks up the NetIDE protocol version of a byte value.
+     *
+     * @param value the value
+     * @return the NetIDE protocol version, null if the value is unknown
+     */
+    public static NetIDEProtocolVersion lookup(final byte value) {
+        return BY_VALUE[value & 0xFF];
+    }
+
     /**
      * Parse NetIDE protocol version.
      *
@@ -59,11 +77,10 @@ public enum NetIDEProtocolVersion {
      * @return the NetIDE protocol version
      */
     public static NetIDEProtocolVersion parse(final byte value) {
-        for (NetIDEProtocolVersion c : NetIDEProtocolVersion.values()) {
-            if (c.value == value) {
-                return c;
-            }
+        NetIDEProtocolVersion c = BY_VALUE[value & 0xFF];
+        if (c == null) {
+            throw new IllegalArgumentException("Unexpected value " + value);
         }
-        throw new IllegalArgumentException("Unexpected value " + value);
+        return c;
     }
 }
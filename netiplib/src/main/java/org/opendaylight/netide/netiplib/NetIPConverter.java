@@ -7,8 +7,11 @@
  */
 package org.opendaylight.netide.netiplib;
 
-import java.nio.ByteBuffer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * Created by timvi on 06.08.2015.
@@ -33,7 +36,8 @@ public abstract class NetIPConverter {
      * @return the message
      */
     public static Message parseRawMessage(byte[] data) {
-        return new Message(parseHeader(Arrays.copyOfRange(data, 0, MessageHeader.HEADER_BYTES)), Arrays.copyOfRange(data, MessageHeader.HEADER_BYTES, data.length));
+        MessageHeader header = parseHeader(Unpooled.wrappedBuffer(data));
+        return new Message(header, Arrays.copyOfRange(data, MessageHeader.HEADER_BYTES, data.length));
     }
 
     /**
@@ -45,13 +49,130 @@ public abstract class NetIPConverter {
     public static MessageHeader parseHeader(byte[] data) {
         if (data.length != MessageHeader.HEADER_BYTES)
             throw new IllegalArgumentException("Header byte size has to be " + MessageHeader.HEADER_BYTES);
+        return parseHeader(Unpooled.wrappedBuffer(data));
+    }
+
+    /**
+     * Parses the header in place at the reader index of the buffer. Neither
+     * the reader index nor the content of the buffer is modified, so the
+     * payload can be sliced off afterwards without copying.
+     *
+     * @param buffer the buffer holding at least a complete header
+     * @return the message header
+     */
+    public static MessageHeader parseHeader(ByteBuf buffer) {
+        if (buffer.readableBytes() < MessageHeader.HEADER_BYTES)
+            throw new IllegalArgumentException("Header byte size has to be " + MessageHeader.HEADER_BYTES);
+        return new MessageHeaderFlyweight().wrap(buffer).toMessageHeader();
+    }
+
+    /**
+     * Builds a complete frame from a header and a payload held in a buffer.
+     * The readable bytes of the payload are copied exactly once, into the
+     * returned array; the payload buffer is left untouched.
+     *
+     * @param header the header, its payload length has to be set already
+     * @param payload the payload, at most {@link MessageHeader#MAX_PAYLOAD_BYTES} long
+     * @return the frame
+     */
+    public static byte[] toFrame(MessageHeader header, ByteBuf payload) {
+        int length = payload.readableBytes();
+        if (length > MessageHeader.MAX_PAYLOAD_BYTES)
+            throw new IllegalArgumentException("Payload too long for one message: " + length);
+        byte[] frame = new byte[MessageHeader.HEADER_BYTES + length];
+        header.writeTo(Unpooled.wrappedBuffer(frame), 0);
+        payload.getBytes(payload.readerIndex(), frame, MessageHeader.HEADER_BYTES, length);
+        return frame;
+    }
+
+    /**
+     * Packs complete frames into as few BATCH frames as possible, keeping
+     * their order. Each frame is copied once; a frame that cannot share a
+     * BATCH with its neighbours is passed on unchanged. Only use this towards
+     * a peer that announced {@link BatchMessage#CAPABILITY}.
+     *
+     * @param frames the frames, none of them a BATCH frame
+     * @return the frames to send
+     */
+    public static List<byte[]> toBatchFrames(List<byte[]> frames) {
+        List<byte[]> result = new ArrayList<>();
+        int first = 0;
+        int length = 0;
+        for (int i = 0; i < frames.size(); i++) {
+            int frameLength = frames.get(i).length;
+            if (length > 0 && length + frameLength > BatchMessage.MAX_PAYLOAD_BYTES) {
+                result.add(toBatchFrame(frames, first, i, length));
+                first = i;
+                length = 0;
+            }
+            length += frameLength;
+        }
+        if (first < frames.size()) {
+            result.add(toBatchFrame(frames, first, frames.size(), length));
+        }
+        return result;
+    }
+
+    private static byte[] toBatchFrame(List<byte[]> frames, int from, int to, int length) {
+        if (to - from == 1) {
+            return frames.get(from);
+        }
         MessageHeader header = new MessageHeader();
-        header.setNetIDEProtocolVersion(NetIDEProtocolVersion.parse(data[0]));
-        header.setMessageType(MessageType.parse(data[1]));
-        header.setPayloadLength(ByteBuffer.wrap(data, 2, 2).getShort());
-        header.setTransactionId(ByteBuffer.wrap(data, 4, 4).getInt());
-        header.setModuleId(ByteBuffer.wrap(data, 8, 4).getInt());
-        header.setDatapathId(ByteBuffer.wrap(data, 12, 8).getLong());
-        return header;
+        header.setMessageType(MessageType.BATCH);
+        header.setPayloadLength((short) length);
+        byte[] batch = new byte[MessageHeader.HEADER_BYTES + length];
+        header.writeTo(Unpooled.wrappedBuffer(batch), 0);
+        int offset = MessageHeader.HEADER_BYTES;
+        for (int i = from; i < to; i++) {
+            byte[] frame = frames.get(i);
+            System.arraycopy(frame, 0, batch, offset, frame.length);
+            offset += frame.length;
+        }
+        return batch;
+    }
+
+    /**
+     * Splits a message into FRAGMENT frames, see {@link FragmentMessage}.
+     * The frames carry the routing fields of the header and can be sent one
+     * by one, in order. The readable bytes of the payload are copied once;
+     * the payload buffer is left untouched. Only use this towards a peer that
+     * announced {@link FragmentMessage#CAPABILITY}.
+     *
+     * @param header the header of the message to split
+     * @param payload the payload of the message
+     * @param maxDataBytes the largest amount of data per fragment, at most
+     *            {@link FragmentMessage#MAX_DATA_BYTES}
+     * @return the fragment frames
+     */
+    public static List<byte[]> toFragmentFrames(MessageHeader header, ByteBuf payload, int maxDataBytes) {
+        if (maxDataBytes <= 0 || maxDataBytes > FragmentMessage.MAX_DATA_BYTES)
+            throw new IllegalArgumentException("Unexpected fragment size " + maxDataBytes);
+        int length = payload.readableBytes();
+        int count = Math.max(1, (int) (((long) length + maxDataBytes - 1) / maxDataBytes));
+        if (count - 1 > FragmentMessage.MAX_INDEX)
+            throw new IllegalArgumentException("Payload too long to fragment: " + length);
+        MessageHeader fragmentHeader = new MessageHeader();
+        fragmentHeader.setNetIDEProtocolVersion(header.getNetIDEProtocolVersion());
+        fragmentHeader.setMessageType(MessageType.FRAGMENT);
+        fragmentHeader.setTransactionId(header.getTransactionId());
+        fragmentHeader.setModuleId(header.getModuleId());
+        fragmentHeader.setDatapathId(header.getDatapathId());
+        List<byte[]> frames = new ArrayList<>(count);
+        int start = payload.readerIndex();
+        for (int index = 0; index < count; index++) {
+            int dataLength = Math.min(maxDataBytes, length - index * maxDataBytes);
+            fragmentHeader.setPayloadLength((short) (FragmentMessage.FRAGMENT_HEADER_BYTES + dataLength));
+            byte[] frame = new byte[MessageHeader.HEADER_BYTES + FragmentMessage.FRAGMENT_HEADER_BYTES + dataLength];
+            fragmentHeader.writeTo(Unpooled.wrappedBuffer(frame), 0);
+            int offset = MessageHeader.HEADER_BYTES;
+            frame[offset] = index == count - 1 ? FragmentMessage.LAST_FRAGMENT : 0;
+            frame[offset + 1] = header.getMessageType().getValue();
+            frame[offset + 2] = (byte) (index >>> 8);
+            frame[offset + 3] = (byte) index;
+            payload.getBytes(start + index * maxDataBytes, frame, offset + FragmentMessage.FRAGMENT_HEADER_BYTES,
+                    dataLength);
+            frames.add(frame);
+        }
+        return frames;
     }
 }
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.netiplib;
+
+/**
+ * Interfaces for flows of NetIP messages with backpressure. They follow the
+ * reactive streams rules and mirror java.util.concurrent.Flow method by
+ * method, so implementations can move to the JDK types once the project no
+ * longer targets Java 7.
+ *
+ * A subscriber receives at most as many items as it requested through its
+ * subscription; publishers only decode or buffer what the demand allows.
+ */
+public final class NetIPFlow {
+
+    private NetIPFlow() {
+    }
+
+    /**
+     * A producer of items for one or more subscribers.
+     *
+     * @param <T> the item type
+     */
+    public interface Publisher<T> {
+        /**
+         * Adds a subscriber. It receives {@link Subscriber#onSubscribe} first,
+         * or an error if it cannot be added.
+         *
+         * @param subscriber the subscriber
+         */
+        void subscribe(Subscriber<? super T> subscriber);
+    }
+
+    /**
+     * A receiver of items.
+     *
+     * @param <T> the item type
+     */
+    public interface Subscriber<T> {
+        void onSubscribe(Subscription subscription);
+
+        void onNext(T item);
+
+        void onError(Throwable throwable);
+
+        void onComplete();
+    }
+
+    /**
+     * The link between a publisher and one subscriber.
+     */
+    public interface Subscription {
+        /**
+         * Adds demand for the given number of items.
+         *
+         * @param n the number of items, positive
+         */
+        void request(long n);
+
+        void cancel();
+    }
+
+    /**
+     * A stage that is both subscriber and publisher.
+     *
+     * @param <T> the received item type
+     * @param <R> the published item type
+     */
+    public interface Processor<T, R> extends Subscriber<T>, Publisher<R> {
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.netiplib;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pipeline stages for {@link NetIPFlow} publishers. Every stage passes the
+ * demand of its subscriber upstream and holds at most one group of items, so
+ * a pipeline never queues more than was requested at its end.
+ */
+public abstract class NetIPFlows {
+
+    /**
+     * Decides whether an item passes a filter.
+     *
+     * @param <T> the item type
+     */
+    public interface Predicate<T> {
+        boolean test(T item);
+    }
+
+    /**
+     * Passes on the items matching a predicate. Every dropped item is
+     * requested again from upstream, so the demand of the subscriber is kept.
+     *
+     * @param source the upstream publisher
+     * @param predicate the filter
+     * @return the filtered publisher
+     */
+    public static <T> NetIPFlow.Publisher<T> filter(final NetIPFlow.Publisher<T> source,
+            final Predicate<? super T> predicate) {
+        return new NetIPFlow.Publisher<T>() {
+            @Override
+            public void subscribe(final NetIPFlow.Subscriber<? super T> subscriber) {
+                source.subscribe(new Stage<T, T>(subscriber) {
+                    @Override
+                    public void onNext(T item) {
+                        if (predicate.test(item)) {
+                            downstream.onNext(item);
+                        } else {
+                            upstream.request(1);
+                        }
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Groups consecutive items into lists of up to the given size, e.g. to
+     * pack them with {@link NetIPConverter#toBatchFrames(List)}. Each list
+     * requested downstream requests that many items upstream; a partial
+     * group is passed on when upstream completes, but not before it is
+     * requested.
+     *
+     * @param source the upstream publisher
+     * @param size the largest group
+     * @return the grouping publisher
+     */
+    public static <T> NetIPFlow.Publisher<List<T>> batch(final NetIPFlow.Publisher<T> source, final int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("Unexpected batch size " + size);
+        }
+        return new NetIPFlow.Publisher<List<T>>() {
+            @Override
+            public void subscribe(final NetIPFlow.Subscriber<? super List<T>> subscriber) {
+                source.subscribe(new Stage<T, List<T>>(subscriber) {
+                    private final AtomicLong requested = new AtomicLong();
+                    private final AtomicBoolean flushed = new AtomicBoolean();
+                    private volatile boolean completed;
+                    private List<T> group = new ArrayList<>(size);
+
+                    @Override
+                    public void request(long n) {
+                        long current;
+                        long next;
+                        do {
+                            current = requested.get();
+                            next = current + n < 0 ? Long.MAX_VALUE : current + n;
+                        } while (!requested.compareAndSet(current, next));
+                        if (completed) {
+                            flush();
+                        } else {
+                            super.request(n > Long.MAX_VALUE / size ? Long.MAX_VALUE : n * size);
+                        }
+                    }
+
+                    @Override
+                    public void onNext(T item) {
+                        group.add(item);
+                        if (group.size() == size) {
+                            List<T> full = group;
+                            group = new ArrayList<>(size);
+                            requested.decrementAndGet();
+                            downstream.onNext(full);
+                        }
+                    }
+
+                    @Override
+                    public void onComplete() {
+                        completed = true;
+                        flush();
+                    }
+
+                    /**
+                     * Passes on the partial group and completes, once
+                     * upstream completed and a group is requested.
+                     */
+                    private void flush() {
+                        boolean pending = !group.isEmpty();
+                        if ((pending && requested.get() <= 0) || !flushed.compareAndSet(false, true)) {
+                            return;
+                        }
+                        if (pending) {
+                            List<T> partial = group;
+                            group = new ArrayList<>(0);
+                            requested.decrementAndGet();
+                            downstream.onNext(partial);
+                        }
+                        downstream.onComplete();
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * A stage subscribed upstream on behalf of one downstream subscriber. It
+     * acts as the subscription of the downstream subscriber.
+     *
+     * @param <T> the received item type
+     * @param <R> the published item type
+     */
+    private abstract static class Stage<T, R> implements NetIPFlow.Subscriber<T>, NetIPFlow.Subscription {
+        protected final NetIPFlow.Subscriber<? super R> downstream;
+        protected NetIPFlow.Subscription upstream;
+
+        Stage(NetIPFlow.Subscriber<? super R> downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void onSubscribe(NetIPFlow.Subscription subscription) {
+            upstream = subscription;
+            downstream.onSubscribe(this);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            downstream.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            downstream.onComplete();
+        }
+
+        @Override
+        public void request(long n) {
+            upstream.request(n);
+        }
+
+        @Override
+        public void cancel() {
+            upstream.cancel();
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.netiplib;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decodes a stream of NetIP frames into messages for one subscriber. Bytes
+ * are fed in chunks of any size, e.g. as read from a socket; a message is
+ * only decoded, with {@link NetIPConverter#parseConcreteMessage(byte[])},
+ * once the subscriber has requested it.
+ *
+ * Undecoded bytes are buffered up to a bound. {@link #offer(ByteBuf)} returns
+ * false once the bound is reached, and the source is expected to stop reading
+ * until the resume callback runs. The bound is exceeded by at most one chunk.
+ *
+ * The source side, {@link #offer(ByteBuf)}, {@link #complete()} and
+ * {@link #fail(Throwable)}, has to be called by one thread at a time; demand
+ * may be signalled from any thread.
+ */
+public final class NetIPMessagePublisher implements NetIPFlow.Publisher<Message> {
+
+    private final int maxBufferedBytes;
+    private final Runnable resume;
+    private final ByteBuf buffer = Unpooled.buffer();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+
+    private NetIPFlow.Subscriber<? super Message> subscriber;
+    /**
+     * Set once the subscriber got its subscription, which makes it safe to
+     * signal.
+     */
+    private volatile boolean subscribed;
+    private volatile boolean cancelled;
+    private volatile boolean done;
+    private volatile Throwable error;
+    private boolean paused;
+    private boolean terminated;
+
+    /**
+     * Creates a publisher.
+     *
+     * @param maxBufferedBytes the number of undecoded bytes after which the
+     *            source has to pause
+     * @param resume called when a paused source may continue, may be null
+     */
+    public NetIPMessagePublisher(int maxBufferedBytes, Runnable resume) {
+        if (maxBufferedBytes < MessageHeader.HEADER_BYTES + MessageHeader.MAX_PAYLOAD_BYTES)
+            throw new IllegalArgumentException("Buffer cannot hold a complete frame: " + maxBufferedBytes);
+        this.maxBufferedBytes = maxBufferedBytes;
+        this.resume = resume;
+    }
+
+    @Override
+    public void subscribe(NetIPFlow.Subscriber<? super Message> subscriber) {
+        boolean first;
+        synchronized (this) {
+            first = this.subscriber == null;
+            if (first) {
+                this.subscriber = subscriber;
+            }
+        }
+        if (first) {
+            subscriber.onSubscribe(new MessageSubscription());
+            subscribed = true;
+            drain();
+            return;
+        }
+        subscriber.onSubscribe(new NetIPFlow.Subscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+            }
+        });
+        subscriber.onError(new IllegalStateException("Only one subscriber is supported"));
+    }
+
+    /**
+     * Appends received bytes. The readable bytes of the chunk are copied; the
+     * chunk itself is left untouched.
+     *
+     * @param chunk the bytes
+     * @return true if the source may go on, false if it has to pause
+     */
+    public boolean offer(ByteBuf chunk) {
+        boolean accepting;
+        synchronized (buffer) {
+            buffer.writeBytes(chunk, chunk.readerIndex(), chunk.readableBytes());
+            accepting = buffer.readableBytes() < maxBufferedBytes;
+            paused = !accepting;
+        }
+        drain();
+        return accepting;
+    }
+
+    /**
+     * Signals the end of the stream. The subscriber completes once all
+     * buffered messages are delivered.
+     */
+    public void complete() {
+        done = true;
+        drain();
+    }
+
+    /**
+     * Signals a failure of the source. Buffered messages are dropped.
+     *
+     * @param throwable the failure
+     */
+    public void fail(Throwable throwable) {
+        error = throwable;
+        done = true;
+        drain();
+    }
+
+    /**
+     * Gets the number of bytes not decoded yet.
+     *
+     * @return the buffered bytes
+     */
+    public int getBufferedBytes() {
+        synchronized (buffer) {
+            return buffer.readableBytes();
+        }
+    }
+
+    /**
+     * Delivers messages while there is demand. Only one thread drains at a
+     * time; signals arriving meanwhile make it loop once more.
+     */
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            if (subscribed && !terminated) {
+                emit(subscriber);
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void emit(NetIPFlow.Subscriber<? super Message> target) {
+        while (!cancelled) {
+            if (error != null) {
+                terminate(target, error);
+                return;
+            }
+            byte[] frame = null;
+            boolean resumed = false;
+            boolean exhausted;
+            synchronized (buffer) {
+                if (requested.get() > 0) {
+                    frame = nextFrame();
+                }
+                if (paused && buffer.readableBytes() < maxBufferedBytes) {
+                    paused = false;
+                    resumed = true;
+                }
+                exhausted = buffer.readableBytes() == 0;
+            }
+            if (resumed && resume != null) {
+                resume.run();
+            }
+            if (frame == null) {
+                if (done && exhausted) {
+                    terminated = true;
+                    target.onComplete();
+                } else if (done && requested.get() > 0) {
+                    terminate(target, new IllegalArgumentException("Truncated NetIP frame at end of stream"));
+                }
+                return;
+            }
+            Message message;
+            try {
+                message = NetIPConverter.parseConcreteMessage(frame);
+            } catch (IllegalArgumentException e) {
+                terminate(target, e);
+                return;
+            }
+            requested.decrementAndGet();
+            target.onNext(message);
+        }
+    }
+
+    /**
+     * Takes the next complete frame out of the buffer.
+     *
+     * @return the frame, null if none is complete yet
+     */
+    private byte[] nextFrame() {
+        int readable = buffer.readableBytes();
+        if (readable < MessageHeader.HEADER_BYTES) {
+            return null;
+        }
+        int index = buffer.readerIndex();
+        int length = MessageHeader.HEADER_BYTES
+                + buffer.getUnsignedShort(index + MessageHeaderFlyweight.LENGTH_OFFSET);
+        if (readable < length) {
+            return null;
+        }
+        byte[] frame = new byte[length];
+        buffer.readBytes(frame);
+        buffer.discardSomeReadBytes();
+        return frame;
+    }
+
+    private void terminate(NetIPFlow.Subscriber<? super Message> target, Throwable throwable) {
+        terminated = true;
+        cancelled = true;
+        synchronized (buffer) {
+            buffer.clear();
+        }
+        target.onError(throwable);
+    }
+
+    private class MessageSubscription implements NetIPFlow.Subscription {
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("Unexpected demand " + n);
+                drain();
+                return;
+            }
+            long current;
+            long next;
+            do {
+                current = requested.get();
+                next = current + n < 0 ? Long.MAX_VALUE : current + n;
+            } while (!requested.compareAndSet(current, next));
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+}
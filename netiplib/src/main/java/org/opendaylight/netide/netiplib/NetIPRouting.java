@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.netiplib;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+
+/**
+ * Peeks the routing fields of a serialized NetIP frame without building
+ * {@link Message} or {@link MessageHeader} objects and without looking at the
+ * payload. Callers check {@link #isValid(byte[])} first; the accessors assume
+ * a complete header. For frames held in a {@link ByteBuf} use
+ * {@link MessageHeaderFlyweight}.
+ */
+public abstract class NetIPRouting {
+
+    /**
+     * Checks whether a frame holds a complete header of a known version and
+     * type.
+     *
+     * @param frame the frame
+     * @return true if the routing fields can be read
+     */
+    public static boolean isValid(byte[] frame) {
+        return frame.length >= MessageHeader.HEADER_BYTES
+                && NetIDEProtocolVersion.lookup(frame[MessageHeaderFlyweight.VERSION_OFFSET]) != null
+                && MessageType.lookup(frame[MessageHeaderFlyweight.TYPE_OFFSET]) != null;
+    }
+
+    /**
+     * Gets the message type.
+     *
+     * @param frame the frame
+     * @return the message type, null if unknown
+     */
+    public static MessageType messageType(byte[] frame) {
+        return MessageType.lookup(frame[MessageHeaderFlyweight.TYPE_OFFSET]);
+    }
+
+    /**
+     * Checks the message type without decoding it.
+     *
+     * @param frame the frame
+     * @param type the expected type
+     * @return true if the frame has a header of the given type
+     */
+    public static boolean isType(byte[] frame, MessageType type) {
+        return frame.length >= MessageHeader.HEADER_BYTES
+                && frame[MessageHeaderFlyweight.TYPE_OFFSET] == type.getValue();
+    }
+
+    /**
+     * Gets the payload length, read as an unsigned value.
+     *
+     * @param frame the frame
+     * @return the payload length
+     */
+    public static int payloadLength(byte[] frame) {
+        int index = MessageHeaderFlyweight.LENGTH_OFFSET;
+        return (frame[index] & 0xFF) << 8 | frame[index + 1] & 0xFF;
+    }
+
+    public static int transactionId(byte[] frame) {
+        return getInt(frame, MessageHeaderFlyweight.TRANSACTION_ID_OFFSET);
+    }
+
+    public static int moduleId(byte[] frame) {
+        return getInt(frame, MessageHeaderFlyweight.MODULE_ID_OFFSET);
+    }
+
+    public static long datapathId(byte[] frame) {
+        int index = MessageHeaderFlyweight.DATAPATH_ID_OFFSET;
+        return (long) getInt(frame, index) << 32 | getInt(frame, index + 4) & 0xFFFFFFFFL;
+    }
+
+    /**
+     * Wraps the payload of a frame without copying it.
+     *
+     * @param frame the frame
+     * @return a buffer over the bytes behind the header
+     */
+    public static ByteBuf payload(byte[] frame) {
+        return Unpooled.wrappedBuffer(frame, MessageHeader.HEADER_BYTES, frame.length - MessageHeader.HEADER_BYTES);
+    }
+
+    private static int getInt(byte[] frame, int index) {
+        return (frame[index] & 0xFF) << 24 | (frame[index + 1] & 0xFF) << 16 | (frame[index + 2] & 0xFF) << 8
+                | frame[index + 3] & 0xFF;
+    }
+}
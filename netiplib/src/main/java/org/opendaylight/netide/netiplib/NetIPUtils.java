@@ -9,11 +9,8 @@ package org.opendaylight.netide.netiplib;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import java.util.Arrays;
 import org.javatuples.Pair;
-import org.opendaylight.openflowjava.protocol.api.extensibility.DeserializerRegistry;
-import org.opendaylight.openflowjava.protocol.impl.deserialization.DeserializationFactory;
-import org.opendaylight.openflowjava.protocol.impl.deserialization.DeserializerRegistryImpl;
-import org.opendaylight.yangtools.yang.binding.DataObject;
 
 /**
  * Utility methods for handling NetIP messages.
@@ -29,6 +26,8 @@ public abstract class NetIPUtils {
      */
 
     public static MessageHeader StubHeaderFromPayload(byte[] payload) {
+        if (payload.length > MessageHeader.MAX_PAYLOAD_BYTES)
+            throw new IllegalArgumentException("Payload too long for one message: " + payload.length);
         MessageHeader h = new MessageHeader();
         h.setPayloadLength((short) payload.length);
         h.setNetIDEProtocolVersion(NetIDEProtocolVersion.VERSION_1_4);
@@ -68,6 +67,10 @@ public abstract class NetIPUtils {
                 return toFenceMessage(message);
             case HEARTBEAT:
             	return toHeartbeatMessage(message);
+            case BATCH:
+                return toBatchMessage(message);
+            case FRAGMENT:
+                return toFragmentMessage(message);
             default:
                 throw new IllegalArgumentException("Unknown message type.");
             }
@@ -88,10 +91,14 @@ public abstract class NetIPUtils {
             throw new IllegalArgumentException("Can only convert HELLO messages");
         HelloMessage hm = new HelloMessage();
         hm.setHeader(message.header);
-        for (int i = 0; i < message.getPayload().length; i += 2) {
-            Protocol protocol = Protocol.parse(message.getPayload()[i]);
-            hm.getSupportedProtocols()
-                    .add(new Pair<>(protocol, ProtocolVersions.parse(protocol, message.getPayload()[i + 1])));
+        byte[] payload = message.getPayload();
+        for (int i = 0; i + 1 < payload.length; i += 2) {
+            // pairs this side does not know cannot be negotiated and are skipped
+            Protocol protocol = Protocol.lookup(payload[i]);
+            ProtocolVersions version = ProtocolVersions.lookup(protocol, payload[i + 1]);
+            if (version != null) {
+                hm.getSupportedProtocols().add(new Pair<>(protocol, version));
+            }
         }
         return hm;
     }
@@ -108,10 +115,14 @@ public abstract class NetIPUtils {
             throw new IllegalArgumentException("Can only convert ERROR messages");
         ErrorMessage em = new ErrorMessage();
         em.setHeader(message.header);
-        for (int i = 0; i < message.getPayload().length; i += 2) {
-            Protocol protocol = Protocol.parse(message.getPayload()[i]);
-            em.getSupportedProtocols()
-                    .add(new Pair<>(protocol, ProtocolVersions.parse(protocol, message.getPayload()[i + 1])));
+        byte[] payload = message.getPayload();
+        for (int i = 0; i + 1 < payload.length; i += 2) {
+            // pairs this side does not know cannot be negotiated and are skipped
+            Protocol protocol = Protocol.lookup(payload[i]);
+            ProtocolVersions version = ProtocolVersions.lookup(protocol, payload[i + 1]);
+            if (version != null) {
+                em.getSupportedProtocols().add(new Pair<>(protocol, version));
+            }
         }
         return em;
     }
@@ -126,20 +137,11 @@ public abstract class NetIPUtils {
     private static OpenFlowMessage toOpenFlowMessage(Message message) {
         if (message.getHeader().getMessageType() != MessageType.OPENFLOW)
             throw new IllegalArgumentException("Can only convert OPENFLOW messages");
-        ByteBuf buffer = Unpooled.wrappedBuffer(message.getPayload());
-        short ofVersion = buffer.readUnsignedByte();
+        // the OpenFlow message is decoded on first access only
+        short ofVersion = (short) (message.getPayload()[0] & 0xFF);
         OpenFlowMessage ofm = new OpenFlowMessage(ofVersion);
         ofm.setPayload(message.getPayload());
         ofm.setHeader(message.header);
-
-        // DESERIALIZATION
-        DeserializerRegistry registry = new DeserializerRegistryImpl();
-        registry.init();
-        DeserializationFactory factory = new DeserializationFactory();
-        factory.setRegistry(registry);
-
-        DataObject dObj = factory.deserialize(buffer, ofVersion);
-        ofm.setOfMessage(dObj);
         return ofm;
     }
 
@@ -273,4 +275,54 @@ public abstract class NetIPUtils {
         hbm.setHeader(message.header);
         return hbm;
     }
+
+    /**
+     * To batch message. The carried messages are concretized as well.
+     *
+     * @param message
+     *            the message
+     * @return the batch message
+     */
+    private static BatchMessage toBatchMessage(Message message) {
+        if (message.getHeader().getMessageType() != MessageType.BATCH)
+            throw new IllegalArgumentException("Can only convert BATCH messages");
+        BatchMessage bm = new BatchMessage();
+        bm.setHeader(message.header);
+        byte[] payload = message.getPayload();
+        MessageHeaderFlyweight inner = new MessageHeaderFlyweight();
+        ByteBuf buffer = Unpooled.wrappedBuffer(payload);
+        int offset = 0;
+        while (offset < payload.length) {
+            int end = inner.wrap(buffer, offset).payloadOffset() + inner.getPayloadLength();
+            if (end > payload.length)
+                throw new IllegalArgumentException("Truncated message in BATCH");
+            if (inner.getType() == MessageType.BATCH.getValue())
+                throw new IllegalArgumentException("BATCH messages cannot be nested");
+            bm.getMessages().add(NetIPConverter.parseConcreteMessage(Arrays.copyOfRange(payload, offset, end)));
+            offset = end;
+        }
+        return bm;
+    }
+
+    /**
+     * To fragment message.
+     *
+     * @param message
+     *            the message
+     * @return the fragment message
+     */
+    private static FragmentMessage toFragmentMessage(Message message) {
+        if (message.getHeader().getMessageType() != MessageType.FRAGMENT)
+            throw new IllegalArgumentException("Can only convert FRAGMENT messages");
+        byte[] payload = message.getPayload();
+        if (payload.length < FragmentMessage.FRAGMENT_HEADER_BYTES)
+            throw new IllegalArgumentException("Truncated FRAGMENT message");
+        FragmentMessage fm = new FragmentMessage();
+        fm.setHeader(message.header);
+        fm.setLast((payload[0] & FragmentMessage.LAST_FRAGMENT) != 0);
+        fm.setFragmentedType(MessageType.parse(payload[1]));
+        fm.setIndex((payload[2] & 0xFF) << 8 | payload[3] & 0xFF);
+        fm.setData(Arrays.copyOfRange(payload, FragmentMessage.FRAGMENT_HEADER_BYTES, payload.length));
+        return fm;
+    }
 }
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.netiplib;
+
+import io.netty.buffer.ByteBuf;
+import org.opendaylight.openflowjava.protocol.api.extensibility.DeserializerRegistry;
+import org.opendaylight.openflowjava.protocol.api.extensibility.SerializerRegistry;
+import org.opendaylight.openflowjava.protocol.impl.deserialization.DeserializationFactory;
+import org.opendaylight.openflowjava.protocol.impl.deserialization.DeserializerRegistryImpl;
+import org.opendaylight.openflowjava.protocol.impl.serialization.SerializationFactory;
+import org.opendaylight.openflowjava.protocol.impl.serialization.SerializerRegistryImpl;
+import org.opendaylight.yangtools.yang.binding.DataObject;
+
+/**
+ * OpenFlow serialization and deserialization factories backed by registries
+ * that are initialized once. The registries are only read after construction,
+ * so one instance can be shared by all threads, just as openflowjava shares
+ * its registries between all switch connections.
+ */
+public final class OpenFlowCodecs {
+
+    private static final class DefaultHolder {
+        private static final OpenFlowCodecs INSTANCE = new OpenFlowCodecs();
+    }
+
+    private final SerializationFactory serializationFactory;
+    private final DeserializationFactory deserializationFactory;
+
+    /**
+     * Creates codecs backed by the default openflowjava registries.
+     */
+    public OpenFlowCodecs() {
+        this(new SerializerRegistryImpl(), new DeserializerRegistryImpl());
+    }
+
+    /**
+     * Creates codecs backed by the given registries, e.g. registries that also
+     * know the messages a controller sends.
+     *
+     * @param serializerRegistry
+     *            the serializer registry, initialized here
+     * @param deserializerRegistry
+     *            the deserializer registry, initialized here
+     */
+    public OpenFlowCodecs(SerializerRegistry serializerRegistry, DeserializerRegistry deserializerRegistry) {
+        serializerRegistry.init();
+        deserializerRegistry.init();
+        serializationFactory = new SerializationFactory();
+        serializationFactory.setSerializerTable(serializerRegistry);
+        deserializationFactory = new DeserializationFactory();
+        deserializationFactory.setRegistry(deserializerRegistry);
+    }
+
+    /**
+     * Gets the codecs used by callers that are not handed an instance, e.g.
+     * messages parsed by {@link NetIPConverter}. Created on first use.
+     * Applications create their codecs once and pass them on instead.
+     *
+     * @return the shared codecs
+     */
+    public static OpenFlowCodecs getDefault() {
+        return DefaultHolder.INSTANCE;
+    }
+
+    public SerializationFactory getSerializationFactory() {
+        return serializationFactory;
+    }
+
+    public DeserializationFactory getDeserializationFactory() {
+        return deserializationFactory;
+    }
+
+    /**
+     * Serializes an OpenFlow message.
+     *
+     * @param ofVersion
+     *            the OpenFlow version
+     * @param output
+     *            the buffer the message is appended to
+     * @param message
+     *            the message
+     */
+    public void serialize(short ofVersion, ByteBuf output, DataObject message) {
+        serializationFactory.messageToBuffer(ofVersion, output, message);
+    }
+
+    /**
+     * Deserializes an OpenFlow message.
+     *
+     * @param input
+     *            the buffer holding the message
+     * @param ofVersion
+     *            the OpenFlow version
+     * @return the message, null if no deserializer is registered for it
+     */
+    public DataObject deserialize(ByteBuf input, short ofVersion) {
+        return deserializationFactory.deserialize(input, ofVersion);
+    }
+}
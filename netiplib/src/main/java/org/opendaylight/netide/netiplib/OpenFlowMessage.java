@@ -8,28 +8,46 @@
 package org.opendaylight.netide.netiplib;
 
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.UnpooledByteBufAllocator;
-import org.opendaylight.openflowjava.protocol.api.extensibility.SerializerRegistry;
-import org.opendaylight.openflowjava.protocol.impl.serialization.SerializationFactory;
-import org.opendaylight.openflowjava.protocol.impl.serialization.SerializerRegistryImpl;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
 import org.opendaylight.yangtools.yang.binding.DataObject;
 
 /**
  * Class representing a message of type OPENFLOW. Note that this only serves as
  * a convenience class - if the MessageType is manipulated, the class will not
  * recognize that.
+ *
+ * A parsed message keeps the raw OpenFlow bytes as its source of truth and
+ * only deserializes them on the first call to {@link #getOfMessage()}, so
+ * consumers that merely route the payload pay nothing for OpenFlow decoding.
+ * Setting an OF message makes it the source of truth instead. Instances are
+ * not thread-safe.
  */
 public class OpenFlowMessage extends Message {
     private DataObject ofMessage;
     private final short ofVersion;
+    private final OpenFlowCodecs codecs;
 
     /**
-     * Instantiates a new Open flow message.
+     * Instantiates a new Open flow message using the default codecs.
      */
     public OpenFlowMessage(short version) {
-        super(new MessageHeader(), new byte[0]);
+        this(version, OpenFlowCodecs.getDefault());
+    }
+
+    /**
+     * Instantiates a new Open flow message.
+     *
+     * @param version
+     *            the OpenFlow version
+     * @param codecs
+     *            the codecs encoding and decoding the OF message
+     */
+    public OpenFlowMessage(short version, OpenFlowCodecs codecs) {
+        super(new MessageHeader(), null);
         header.setMessageType(MessageType.OPENFLOW);
         ofVersion = version;
+        this.codecs = codecs;
     }
 
     public short getOfVersion() {
@@ -37,39 +55,101 @@ public class OpenFlowMessage extends Message {
     }
 
     /**
-     * Gets of message.
+     * Gets of message, deserializing the raw payload on the first call.
      *
      * @return the OF message
      */
     public DataObject getOfMessage() {
+        if (ofMessage == null && payload != null) {
+            ByteBuf input = Unpooled.wrappedBuffer(payload);
+            // the deserializer expects the buffer positioned behind the version
+            input.skipBytes(1);
+            ofMessage = codecs.deserialize(input, ofVersion);
+        }
         return ofMessage;
     }
 
     /**
-     * Sets of message.
+     * Sets of message. The payload is serialized from it from now on.
      *
      * @param ofMessage
      *            the OF message
      */
     public void setOfMessage(DataObject ofMessage) {
         this.ofMessage = ofMessage;
+        this.payload = null;
+    }
+
+    /**
+     * Checks whether the OF message has been deserialized or set.
+     *
+     * @return true if the OF message is available without decoding
+     */
+    public boolean isDecoded() {
+        return ofMessage != null;
+    }
+
+    /**
+     * Sets the raw OpenFlow payload. A previously decoded or set OF message is
+     * discarded.
+     *
+     * @param data
+     *            the payload
+     */
+    @Override
+    public void setPayload(byte[] data) {
+        this.payload = data;
+        this.ofMessage = null;
     }
 
+    /**
+     * Gets the raw payload, serializing the OF message once if it was set.
+     *
+     * @return the payload
+     */
     @Override
     public byte[] getPayload() {
-        SerializerRegistry registry = new SerializerRegistryImpl();
-        registry.init();
-        SerializationFactory factory = new SerializationFactory();
-        factory.setSerializerTable(registry);
-        ByteBuf output = UnpooledByteBufAllocator.DEFAULT.buffer();
-        factory.messageToBuffer(getOfVersion(), output, getOfMessage());
-        byte[] rawPayload = new byte[output.readableBytes()];
-        output.getBytes(0, rawPayload);
-        return rawPayload;
+        if (payload == null) {
+            ByteBuf output = PooledByteBufAllocator.DEFAULT.buffer();
+            byte[] rawPayload;
+            try {
+                codecs.serialize(getOfVersion(), output, getOfMessage());
+                rawPayload = new byte[output.readableBytes()];
+                output.getBytes(0, rawPayload);
+            } finally {
+                output.release();
+            }
+            // the OF message is immutable, its encoding stays valid until
+            // another message or payload is set
+            payload = rawPayload;
+        }
+        return payload;
+    }
+
+    /**
+     * Appends the message at the writer index of the buffer. An OF message
+     * that has not been encoded yet is serialized straight behind the header,
+     * whose payload length is updated accordingly.
+     *
+     * @param buffer
+     *            the buffer
+     */
+    @Override
+    public void writeTo(ByteBuf buffer) {
+        if (payload != null) {
+            super.writeTo(buffer);
+            return;
+        }
+        int start = buffer.writerIndex();
+        buffer.ensureWritable(MessageHeader.HEADER_BYTES);
+        buffer.writerIndex(start + MessageHeader.HEADER_BYTES);
+        codecs.serialize(getOfVersion(), buffer, getOfMessage());
+        header.setPayloadLength((short) (buffer.writerIndex() - start - MessageHeader.HEADER_BYTES));
+        header.writeTo(buffer, start);
     }
     
     @Override
     public String toString() {
-        return "OpenFlowMessage [Header=" + header.toString() + ",OFMessage=" + ofMessage.toString() + "]";
+        return "OpenFlowMessage [Header=" + header.toString() + ",OFMessage=" + getOfMessage() + "]";
     }
 }
@@ -22,7 +22,19 @@ public enum Protocol {
     /**
      * The OPFLEX protocol.
      */
-    OPFLEX((byte) 0x13);
+    OPFLEX((byte) 0x13),
+    /**
+     * Optional NetIP features, negotiated in HELLO like a protocol.
+     */
+    NETIP((byte) 0x10);
+
+    private static final Protocol[] BY_VALUE = new Protocol[256];
+
+    static {
+        for (Protocol c : values()) {
+            BY_VALUE[c.value & 0xFF] = c;
+        }
+    }
 
     private byte value;
 
@@ -44,6 +56,16 @@ public enum Protocol {
         return this.value;
     }
 
+    /**
+     * Looks up the protocol of a byte value.
+     *
+     * @param value the value
+     * @return the protocol, null if the value is unknown
+     */
+    public static Protocol lookup(final byte value) {
+        return BY_VALUE[value & 0xFF];
+    }
+
     /**
      * Parse protocol.
      *
@@ -51,11 +73,10 @@ public enum Protocol {
      * @return the protocol
      */
     public static Protocol parse(final byte value) {
-        for (Protocol c : Protocol.values()) {
-            if (c.value == value) {
-                return c;
-            }
+        Protocol c = BY_VALUE[value & 0xFF];
+        if (c == null) {
+            throw new IllegalArgumentException("Unexpected value " + value);
         }
-        throw new IllegalArgumentException("Unexpected value " + value);
+        return c;
     }
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.netiplib;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.javatuples.Pair;
+
+/**
+ * List of protocol and version pairs remembering its wire encoding until it is
+ * modified. Every modification, including {@link #set(int, Pair)}, advances
+ * the modification count the encoding is checked against.
+ */
+class ProtocolList extends ArrayList<Pair<Protocol, ProtocolVersions>> {
+    private static final long serialVersionUID = 1L;
+
+    private transient byte[] encoded;
+    private transient int encodedModCount;
+
+    @Override
+    public Pair<Protocol, ProtocolVersions> set(int index, Pair<Protocol, ProtocolVersions> element) {
+        modCount++;
+        return super.set(index, element);
+    }
+
+    /**
+     * Gets the wire encoding, re-encoding only after a modification.
+     *
+     * @return the encoding, shared between calls
+     */
+    byte[] encoded() {
+        if (encoded == null || encodedModCount != modCount) {
+            encoded = encodeAll(this);
+            encodedModCount = modCount;
+        }
+        return encoded;
+    }
+
+    /**
+     * Encodes a list of pairs.
+     *
+     * @param protocols the pairs
+     * @return the encoding
+     */
+    static byte[] encode(List<Pair<Protocol, ProtocolVersions>> protocols) {
+        if (protocols instanceof ProtocolList) {
+            return ((ProtocolList) protocols).encoded();
+        }
+        return encodeAll(protocols);
+    }
+
+    private static byte[] encodeAll(List<Pair<Protocol, ProtocolVersions>> protocols) {
+        byte[] payload = new byte[protocols.size() * 2];
+        int i = 0;
+        for (Pair<Protocol, ProtocolVersions> entry : protocols) {
+            payload[i] = entry.getValue0().getValue();
+            payload[i + 1] = entry.getValue1().getValue();
+            i += 2;
+        }
+        return payload;
+    }
+}
@@ -38,7 +38,26 @@ public enum ProtocolVersions {
     /**
      * The OPFLEX_0_0.
      */
-    OPFLEX_0_0(Protocol.OPFLEX, (byte) 0x00);
+    OPFLEX_0_0(Protocol.OPFLEX, (byte) 0x00),
+    /**
+     * The NETIP_BATCH feature, see {@link BatchMessage}.
+     */
+    NETIP_BATCH(Protocol.NETIP, (byte) 0x01),
+    /**
+     * The NETIP_FRAGMENT feature, see {@link FragmentMessage}.
+     */
+    NETIP_FRAGMENT(Protocol.NETIP, (byte) 0x02);
+
+    /**
+     * Versions indexed by protocol ordinal and version value.
+     */
+    private static final ProtocolVersions[][] BY_PROTOCOL_AND_VALUE = new ProtocolVersions[Protocol.values().length][256];
+
+    static {
+        for (ProtocolVersions c : values()) {
+            BY_PROTOCOL_AND_VALUE[c.protocol.ordinal()][c.value & 0xFF] = c;
+        }
+    }
 
     private Protocol protocol;
     private byte value;
@@ -71,18 +90,32 @@ public enum ProtocolVersions {
         return this.value;
     }
 
+    /**
+     * Looks up the version of a protocol.
+     *
+     * @param protocol the protocol
+     * @param value the version value
+     * @return the protocol version, null if the protocol or the value is unknown
+     */
+    public static ProtocolVersions lookup(final Protocol protocol, final byte value) {
+        if (protocol == null) {
+            return null;
+        }
+        return BY_PROTOCOL_AND_VALUE[protocol.ordinal()][value & 0xFF];
+    }
+
     /**
      * Parse protocol versions.
      *
+     * @param protocol the protocol
      * @param value the value
      * @return the protocol versions
      */
     public static ProtocolVersions parse(final Protocol protocol, final byte value) {
-        for (ProtocolVersions c : ProtocolVersions.values()) {
-            if (c.value == value && c.protocol == protocol) {
-                return c;
-            }
+        ProtocolVersions c = lookup(protocol, value);
+        if (c == null) {
+            throw new IllegalArgumentException("Unexpected value " + value);
         }
-        throw new IllegalArgumentException("Unexpected value " + value);
+        return c;
     }
 }
@@ -13,6 +13,7 @@ package org.opendaylight.netide.netiplib;
 public class TopologyUpdateMessage extends Message {
 
     private String topology;
+    private byte[] encoded;
 
     /**
      * Instantiates a new Topology update message.
@@ -38,10 +39,14 @@ public class TopologyUpdateMessage extends Message {
      */
     public void setTopology(String topology) {
         this.topology = topology;
+        this.encoded = null;
     }
 
     @Override
     public byte[] getPayload() {
-        return topology.getBytes();
+        if (encoded == null) {
+            encoded = topology.getBytes();
+        }
+        return encoded;
     }
 }
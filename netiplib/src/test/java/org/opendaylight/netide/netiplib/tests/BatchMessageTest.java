@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.netiplib.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.netide.netiplib.BatchMessage;
+import org.opendaylight.netide.netiplib.HelloMessage;
+import org.opendaylight.netide.netiplib.Message;
+import org.opendaylight.netide.netiplib.MessageHeader;
+import org.opendaylight.netide.netiplib.MessageType;
+import org.opendaylight.netide.netiplib.NetIPConverter;
+import org.opendaylight.netide.netiplib.OpenFlowMessage;
+
+public class BatchMessageTest {
+    BatchMessage batch;
+    byte[] ofPayload = new byte[] { 0x04, 0x0e, 0x00, 0x08, 0x00, 0x00, 0x00, 0x01 };
+
+    @Before
+    public void setUp() {
+        batch = new BatchMessage();
+        batch.getMessages().add(openFlow(1L, ofPayload));
+        batch.getMessages().add(new HelloMessage());
+        batch.getMessages().add(openFlow(2L, ofPayload));
+    }
+
+    @Test
+    public void testEncode() {
+        byte[] payload = batch.getPayload();
+        Assert.assertEquals(3 * MessageHeader.HEADER_BYTES + 2 * ofPayload.length, payload.length);
+        Assert.assertEquals(payload.length, batch.getHeader().getPayloadLength());
+        Assert.assertEquals(MessageType.OPENFLOW.getValue(), payload[1]);
+        Assert.assertEquals(ofPayload.length, payload[3]);
+    }
+
+    @Test
+    public void testRoundTrip() {
+        Message parsed = NetIPConverter.parseConcreteMessage(batch.toByteRepresentation());
+        Assert.assertTrue(parsed instanceof BatchMessage);
+        List<Message> messages = ((BatchMessage) parsed).getMessages();
+        Assert.assertEquals(3, messages.size());
+        Assert.assertTrue(messages.get(0) instanceof OpenFlowMessage);
+        Assert.assertEquals(1L, messages.get(0).getHeader().getDatapathId());
+        Assert.assertArrayEquals(ofPayload, messages.get(0).getPayload());
+        Assert.assertTrue(messages.get(1) instanceof HelloMessage);
+        Assert.assertEquals(2L, messages.get(2).getHeader().getDatapathId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNestedBatchIsRejected() {
+        batch.getMessages().add(new BatchMessage());
+        batch.getPayload();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTruncatedBatchIsRejected() {
+        byte[] frame = batch.toByteRepresentation();
+        byte[] truncated = Arrays.copyOf(frame, frame.length - 1);
+        truncated[3]--;
+        NetIPConverter.parseConcreteMessage(truncated);
+    }
+
+    @Test
+    public void testToBatchFrames() {
+        List<byte[]> frames = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            frames.add(openFlow(i, ofPayload).toByteRepresentation());
+        }
+        List<byte[]> batches = NetIPConverter.toBatchFrames(frames);
+        Assert.assertEquals(1, batches.size());
+        BatchMessage parsed = (BatchMessage) NetIPConverter.parseConcreteMessage(batches.get(0));
+        Assert.assertEquals(10, parsed.getMessages().size());
+        Assert.assertEquals(9L, parsed.getMessages().get(9).getHeader().getDatapathId());
+    }
+
+    @Test
+    public void testToBatchFramesSplitsAtMaximumLength() {
+        byte[] large = openFlow(1L, new byte[40000]).toByteRepresentation();
+        byte[] small = openFlow(2L, ofPayload).toByteRepresentation();
+        List<byte[]> batches = NetIPConverter.toBatchFrames(Arrays.asList(large, large, small));
+        Assert.assertEquals(2, batches.size());
+        // a frame that fits no BATCH with its neighbours is passed on as it is
+        Assert.assertSame(large, batches.get(0));
+        Assert.assertEquals(MessageType.BATCH.getValue(), batches.get(1)[1]);
+        Assert.assertEquals(large.length + small.length + MessageHeader.HEADER_BYTES, batches.get(1).length);
+    }
+
+    private static Message openFlow(long datapathId, byte[] payload) {
+        MessageHeader header = new MessageHeader();
+        header.setMessageType(MessageType.OPENFLOW);
+        header.setDatapathId(datapathId);
+        header.setPayloadLength((short) payload.length);
+        return new Message(header, payload);
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.netiplib.tests;
+
+import io.netty.buffer.Unpooled;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.netide.netiplib.FragmentMessage;
+import org.opendaylight.netide.netiplib.FragmentReassembler;
+import org.opendaylight.netide.netiplib.Message;
+import org.opendaylight.netide.netiplib.MessageHeader;
+import org.opendaylight.netide.netiplib.MessageType;
+import org.opendaylight.netide.netiplib.NetIPConverter;
+import org.opendaylight.netide.netiplib.NetIPUtils;
+
+public class FragmentMessageTest {
+    MessageHeader header;
+    byte[] payload;
+
+    @Before
+    public void setUp() {
+        header = new MessageHeader();
+        header.setMessageType(MessageType.OPENFLOW);
+        header.setTransactionId(17);
+        header.setModuleId(2);
+        header.setDatapathId(42L);
+        payload = new byte[200000];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) i;
+        }
+    }
+
+    @Test
+    public void testFragmentFrames() {
+        List<byte[]> frames = NetIPConverter.toFragmentFrames(header, Unpooled.wrappedBuffer(payload),
+                FragmentMessage.MAX_DATA_BYTES);
+        Assert.assertEquals(4, frames.size());
+        for (int i = 0; i < frames.size(); i++) {
+            FragmentMessage fragment = (FragmentMessage) NetIPConverter.parseConcreteMessage(frames.get(i));
+            Assert.assertEquals(i, fragment.getIndex());
+            Assert.assertEquals(i == frames.size() - 1, fragment.isLast());
+            Assert.assertEquals(MessageType.OPENFLOW, fragment.getFragmentedType());
+            Assert.assertEquals(42L, fragment.getHeader().getDatapathId());
+            Assert.assertEquals(17, fragment.getHeader().getTransactionId());
+            Assert.assertEquals(fragment.getPayload().length, fragment.getHeader().getUnsignedPayloadLength());
+        }
+    }
+
+    @Test
+    public void testReassembly() {
+        FragmentReassembler reassembler = new FragmentReassembler();
+        List<byte[]> frames = NetIPConverter.toFragmentFrames(header, Unpooled.wrappedBuffer(payload), 1000);
+        Message message = null;
+        for (byte[] frame : frames) {
+            Assert.assertNull(message);
+            message = reassembler.add(frame);
+        }
+        Assert.assertNotNull(message);
+        Assert.assertEquals(MessageType.OPENFLOW, message.getHeader().getMessageType());
+        Assert.assertEquals(2, message.getHeader().getModuleId());
+        Assert.assertEquals(42L, message.getHeader().getDatapathId());
+        Assert.assertArrayEquals(payload, message.getPayload());
+        Assert.assertEquals(0, reassembler.getPendingMessages());
+        Assert.assertEquals(0, reassembler.getBufferedBytes());
+    }
+
+    @Test
+    public void testInterleavedMessages() {
+        MessageHeader other = new MessageHeader();
+        other.setMessageType(MessageType.OPENFLOW);
+        other.setDatapathId(43L);
+        FragmentReassembler reassembler = new FragmentReassembler();
+        List<byte[]> first = NetIPConverter.toFragmentFrames(header, Unpooled.wrappedBuffer(payload, 0, 3000), 1000);
+        List<byte[]> second = NetIPConverter.toFragmentFrames(other, Unpooled.wrappedBuffer(payload, 0, 2000), 1000);
+        Assert.assertNull(reassembler.add(first.get(0)));
+        Assert.assertNull(reassembler.add(second.get(0)));
+        Assert.assertNull(reassembler.add(first.get(1)));
+        Assert.assertEquals(43L, reassembler.add(second.get(1)).getHeader().getDatapathId());
+        Assert.assertEquals(3000, reassembler.add(first.get(2)).getPayload().length);
+    }
+
+    @Test
+    public void testMissingFragmentDiscardsMessage() {
+        FragmentReassembler reassembler = new FragmentReassembler();
+        List<byte[]> frames = NetIPConverter.toFragmentFrames(header, Unpooled.wrappedBuffer(payload, 0, 3000), 1000);
+        reassembler.add(frames.get(0));
+        Assert.assertNull(reassembler.add(frames.get(2)));
+        Assert.assertEquals(1, reassembler.getDiscardedMessages());
+        Assert.assertEquals(0, reassembler.getPendingMessages());
+        Assert.assertEquals(0, reassembler.getBufferedBytes());
+    }
+
+    @Test
+    public void testMessageLimit() {
+        FragmentReassembler reassembler = new FragmentReassembler(2500, 10000);
+        List<byte[]> frames = NetIPConverter.toFragmentFrames(header, Unpooled.wrappedBuffer(payload, 0, 3000), 1000);
+        for (byte[] frame : frames) {
+            Assert.assertNull(reassembler.add(frame));
+        }
+        Assert.assertEquals(1, reassembler.getDiscardedMessages());
+        Assert.assertEquals(0, reassembler.getBufferedBytes());
+    }
+
+    @Test
+    public void testBufferedLimitEvictsOldest() {
+        FragmentReassembler reassembler = new FragmentReassembler(2000, 2000);
+        for (int xid = 1; xid <= 3; xid++) {
+            header.setTransactionId(xid);
+            byte[] first = NetIPConverter.toFragmentFrames(header, Unpooled.wrappedBuffer(payload, 0, 2000), 1000)
+                    .get(0);
+            reassembler.add(first);
+        }
+        Assert.assertEquals(2, reassembler.getPendingMessages());
+        Assert.assertEquals(2000, reassembler.getBufferedBytes());
+        Assert.assertEquals(1, reassembler.getDiscardedMessages());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testReassemblerRejectsOtherFrames() {
+        new FragmentReassembler().add(new Message(header, new byte[0]).toByteRepresentation());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testStubHeaderRejectsLongPayload() {
+        NetIPUtils.StubHeaderFromPayload(new byte[MessageHeader.MAX_PAYLOAD_BYTES + 1]);
+    }
+
+    @Test
+    public void testPayloadFollowsFields() {
+        FragmentMessage fragment = new FragmentMessage();
+        fragment.setFragmentedType(MessageType.OPENFLOW);
+        fragment.setIndex(1);
+        fragment.setData(new byte[] { 7 });
+        Assert.assertSame(fragment.getPayload(), fragment.getPayload());
+        fragment.setLast(true);
+        Assert.assertArrayEquals(new byte[] { FragmentMessage.LAST_FRAGMENT, MessageType.OPENFLOW.getValue(), 0, 1, 7 },
+                fragment.getPayload());
+    }
+}
@@ -95,4 +95,42 @@ public class HelloMessageTest {
         Assert.assertEquals(hm.getSupportedProtocols().get(1).getValue0(), Protocol.NETCONF);
         Assert.assertEquals(hm.getSupportedProtocols().get(1).getValue1(), ProtocolVersions.NETCONF_1_0);
     }
+
+    /**
+     * Test that protocol pairs unknown to this side are skipped instead of
+     * failing the whole HELLO.
+     */
+    @Test
+    public void TestMessageParsingSkipsUnknownProtocols() {
+        byte[] message = new byte[] { 0x05, 0x01, 0x00, 0x06, 0x00, 0x00, 0x00, 0x11, 0x00, 0x00, 0x00, 0x02, 0x00,
+            0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x2A, 0x11, 0x04, 0x7F, 0x01, 0x11, 0x7F };
+        HelloMessage hm = (HelloMessage) NetIPConverter.parseConcreteMessage(message);
+        Assert.assertEquals(1, hm.getSupportedProtocols().size());
+        Assert.assertEquals(ProtocolVersions.OPENFLOW_1_3, hm.getSupportedProtocols().get(0).getValue1());
+    }
+
+    @Test
+    public void TestLookupOfUnknownValues() {
+        Assert.assertNull(MessageType.lookup((byte) 0x7F));
+        Assert.assertNull(Protocol.lookup((byte) 0x7F));
+        Assert.assertNull(ProtocolVersions.lookup(Protocol.NETCONF, (byte) 0x04));
+        Assert.assertNull(ProtocolVersions.lookup(null, (byte) 0x04));
+        Assert.assertEquals(ProtocolVersions.OPENFLOW_1_3, ProtocolVersions.lookup(Protocol.OPENFLOW, (byte) 0x04));
+    }
+
+    /**
+     * Test that the payload is encoded once and re-encoded after the list of
+     * supported protocols changes.
+     */
+    @Test
+    public void TestPayloadIsCachedUntilModified() {
+        HelloMessage testMessage = new HelloMessage();
+        testMessage.getSupportedProtocols().add(new Pair<>(Protocol.OPENFLOW, ProtocolVersions.OPENFLOW_1_0));
+        byte[] first = testMessage.getPayload();
+        Assert.assertSame(first, testMessage.getPayload());
+        testMessage.getSupportedProtocols().set(0, new Pair<>(Protocol.OPENFLOW, ProtocolVersions.OPENFLOW_1_3));
+        Assert.assertArrayEquals(new byte[] { 0x11, 0x04 }, testMessage.getPayload());
+        testMessage.getSupportedProtocols().add(new Pair<>(Protocol.NETCONF, ProtocolVersions.NETCONF_1_0));
+        Assert.assertArrayEquals(new byte[] { 0x11, 0x04, 0x12, 0x01 }, testMessage.getPayload());
+    }
 }
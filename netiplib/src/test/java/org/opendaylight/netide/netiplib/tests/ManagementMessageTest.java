@@ -92,4 +92,16 @@ public class ManagementMessageTest {
         Assert.assertArrayEquals(mm.getPayload(), new byte[] { 0x62, 0x6c, 0x61 });
         Assert.assertEquals(mm.getPayloadString(), "bla");
     }
+
+    /**
+     * Test that the encoded payload follows a changed payload string.
+     */
+    @Test
+    public void TestPayloadFollowsPayloadString() {
+        ManagementMessage testMessage = new ManagementMessage();
+        testMessage.setPayloadString("bla");
+        Assert.assertSame(testMessage.getPayload(), testMessage.getPayload());
+        testMessage.setPayloadString("blub");
+        Assert.assertArrayEquals("blub".getBytes(), testMessage.getPayload());
+    }
 }
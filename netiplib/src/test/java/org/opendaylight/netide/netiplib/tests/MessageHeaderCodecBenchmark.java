@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.netiplib.tests;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.util.concurrent.TimeUnit;
+import org.opendaylight.netide.netiplib.MessageHeader;
+import org.opendaylight.netide.netiplib.MessageHeaderFlyweight;
+import org.opendaylight.netide.netiplib.MessageType;
+import org.opendaylight.netide.netiplib.NetIPConverter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of encoding and decoding a NetIP header through the MessageHeader
+ * POJO and through the flyweight. The flyweight variants are expected to
+ * report a gc.alloc.rate.norm of zero bytes per operation.
+ *
+ * Run with: java -cp target/test-classes:&lt;test classpath&gt;
+ * org.openjdk.jmh.Main MessageHeaderCodecBenchmark -prof gc
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class MessageHeaderCodecBenchmark {
+
+    private final ByteBuf frame = Unpooled.directBuffer(MessageHeader.HEADER_BYTES + 64);
+    private final MessageHeaderFlyweight flyweight = new MessageHeaderFlyweight();
+    private final MessageHeader header = new MessageHeader();
+    private int transactionId;
+
+    public MessageHeaderCodecBenchmark() {
+        header.setMessageType(MessageType.OPENFLOW);
+        header.setPayloadLength((short) 64);
+        header.setModuleId(2);
+        header.setDatapathId(42L);
+        frame.writerIndex(frame.capacity());
+        header.writeTo(frame, 0);
+    }
+
+    @Benchmark
+    public void decodePojo(Blackhole blackhole) {
+        MessageHeader parsed = NetIPConverter.parseHeader(frame);
+        blackhole.consume(parsed.getMessageType());
+        blackhole.consume(parsed.getDatapathId());
+        blackhole.consume(parsed.getModuleId());
+    }
+
+    @Benchmark
+    public void decodeFlyweight(Blackhole blackhole) {
+        flyweight.wrap(frame);
+        blackhole.consume(flyweight.getType());
+        blackhole.consume(flyweight.getDatapathId());
+        blackhole.consume(flyweight.getModuleId());
+    }
+
+    @Benchmark
+    public byte[] encodePojo() {
+        header.setTransactionId(++transactionId);
+        return header.toByteRepresentation();
+    }
+
+    @Benchmark
+    public ByteBuf encodeFlyweight() {
+        flyweight.wrap(frame, 0).setTransactionId(++transactionId);
+        return frame;
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.netiplib.tests;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+import org.opendaylight.netide.netiplib.MessageHeader;
+import org.opendaylight.netide.netiplib.MessageHeaderFlyweight;
+import org.opendaylight.netide.netiplib.MessageType;
+import org.opendaylight.netide.netiplib.NetIDEProtocolVersion;
+import org.opendaylight.openflowjava.util.ByteBufUtils;
+
+public class MessageHeaderFlyweightTest {
+    byte[] expectedHeader = ByteBufUtils
+            .hexStringToBytes("05 11 00 10 00 00 00 11 00 00 00 02 00 00 00 00 00 00 00 2A");
+
+    @Test
+    public void testRead() {
+        ByteBuf buffer = Unpooled.buffer();
+        buffer.writeByte(0x7F);
+        buffer.writeBytes(expectedHeader);
+        buffer.skipBytes(1);
+        MessageHeaderFlyweight flyweight = new MessageHeaderFlyweight().wrap(buffer);
+        Assert.assertEquals(NetIDEProtocolVersion.VERSION_1_4.getValue(), flyweight.getVersion());
+        Assert.assertEquals(MessageType.OPENFLOW.getValue(), flyweight.getType());
+        Assert.assertEquals(16, flyweight.getPayloadLength());
+        Assert.assertEquals(17, flyweight.getTransactionId());
+        Assert.assertEquals(2, flyweight.getModuleId());
+        Assert.assertEquals(42L, flyweight.getDatapathId());
+        Assert.assertEquals(21, flyweight.payloadOffset());
+        Assert.assertEquals(1, buffer.readerIndex());
+    }
+
+    @Test
+    public void testWrite() {
+        ByteBuf buffer = Unpooled.buffer(MessageHeader.HEADER_BYTES + 2);
+        new MessageHeaderFlyweight().wrap(buffer, 2).setVersion(NetIDEProtocolVersion.VERSION_1_4.getValue())
+                .setType(MessageType.OPENFLOW.getValue()).setPayloadLength(16).setTransactionId(17).setModuleId(2)
+                .setDatapathId(42L);
+        byte[] written = new byte[MessageHeader.HEADER_BYTES];
+        buffer.getBytes(2, written);
+        Assert.assertArrayEquals(expectedHeader, written);
+        Assert.assertEquals(0, buffer.writerIndex());
+    }
+
+    @Test
+    public void testUnsignedPayloadLength() {
+        MessageHeaderFlyweight flyweight = new MessageHeaderFlyweight()
+                .wrap(Unpooled.buffer(MessageHeader.HEADER_BYTES), 0);
+        flyweight.setPayloadLength(0xFFFF);
+        Assert.assertEquals(0xFFFF, flyweight.getPayloadLength());
+    }
+
+    @Test
+    public void testMessageHeaderView() {
+        MessageHeaderFlyweight flyweight = new MessageHeaderFlyweight().wrap(Unpooled.wrappedBuffer(expectedHeader));
+        MessageHeader header = flyweight.toMessageHeader();
+        Assert.assertEquals(MessageType.OPENFLOW, header.getMessageType());
+        Assert.assertEquals(42L, header.getDatapathId());
+
+        ByteBuf copy = Unpooled.buffer(MessageHeader.HEADER_BYTES);
+        new MessageHeaderFlyweight().wrap(copy, 0).set(header);
+        byte[] written = new byte[MessageHeader.HEADER_BYTES];
+        copy.getBytes(0, written);
+        Assert.assertArrayEquals(expectedHeader, written);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrapTruncatedHeader() {
+        new MessageHeaderFlyweight().wrap(Unpooled.wrappedBuffer(new byte[] { 5, 0x11 }));
+    }
+}
@@ -7,6 +7,8 @@
  */
 package org.opendaylight.netide.netiplib.tests;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -52,4 +54,45 @@ public class MessageHeaderTest {
         Assert.assertEquals(header.getDatapathId(), output.getDatapathId());
     }
 
+    @Test
+    public void testParsingInPlace() {
+        ByteBuf buffer = Unpooled.buffer();
+        buffer.writeByte(0x7F);
+        buffer.writeBytes(expectedHeader);
+        buffer.skipBytes(1);
+        MessageHeader output = NetIPConverter.parseHeader(buffer);
+        Assert.assertEquals(1, buffer.readerIndex());
+        Assert.assertEquals(header.getMessageType(), output.getMessageType());
+        Assert.assertEquals(header.getPayloadLength(), output.getPayloadLength());
+        Assert.assertEquals(header.getTransactionId(), output.getTransactionId());
+        Assert.assertEquals(header.getModuleId(), output.getModuleId());
+        Assert.assertEquals(header.getDatapathId(), output.getDatapathId());
+    }
+
+    @Test
+    public void testWriteInPlace() {
+        ByteBuf buffer = Unpooled.buffer(MessageHeader.HEADER_BYTES + 2);
+        buffer.writerIndex(buffer.capacity());
+        header.writeTo(buffer, 2);
+        byte[] written = new byte[MessageHeader.HEADER_BYTES];
+        buffer.getBytes(2, written);
+        Assert.assertArrayEquals(expectedHeader, written);
+    }
+
+    @Test
+    public void testSerializationOfHighValues() {
+        header.setPayloadLength((short) 0xFFFF);
+        header.setTransactionId(-2);
+        header.setModuleId(Integer.MIN_VALUE);
+        header.setDatapathId(0x8000000000000001L);
+        ByteBuf buffer = Unpooled.buffer(MessageHeader.HEADER_BYTES);
+        buffer.writerIndex(buffer.capacity());
+        header.writeTo(buffer, 0);
+        Assert.assertArrayEquals(buffer.array(), header.toByteRepresentation());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParsingTruncatedHeader() {
+        NetIPConverter.parseHeader(Unpooled.wrappedBuffer(new byte[] { 5, 0x11 }));
+    }
 }
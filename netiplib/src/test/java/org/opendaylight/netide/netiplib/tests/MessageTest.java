@@ -7,6 +7,8 @@
  */
 package org.opendaylight.netide.netiplib.tests;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -57,4 +59,22 @@ public class MessageTest {
         Assert.assertArrayEquals(testMessage.getPayload(), payload);
     }
 
+    @Test
+    public void testWriteTo() {
+        ByteBuf buffer = Unpooled.buffer(4);
+        buffer.writeByte(0x7F);
+        message.writeTo(buffer);
+        buffer.skipBytes(1);
+        byte[] written = new byte[buffer.readableBytes()];
+        buffer.readBytes(written);
+        Assert.assertArrayEquals(expectedMessage, written);
+    }
+
+    @Test
+    public void testToFrame() {
+        ByteBuf output = Unpooled.buffer();
+        output.writeBytes(payload);
+        Assert.assertArrayEquals(expectedMessage, NetIPConverter.toFrame(message.getHeader(), output));
+        Assert.assertEquals(payload.length, output.readableBytes());
+    }
 }
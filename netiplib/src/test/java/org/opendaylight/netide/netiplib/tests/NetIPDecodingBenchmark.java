@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.netiplib.tests;
+
+import java.util.concurrent.TimeUnit;
+import org.javatuples.Pair;
+import org.opendaylight.netide.netiplib.HelloMessage;
+import org.opendaylight.netide.netiplib.Message;
+import org.opendaylight.netide.netiplib.MessageType;
+import org.opendaylight.netide.netiplib.NetIPConverter;
+import org.opendaylight.netide.netiplib.Protocol;
+import org.opendaylight.netide.netiplib.ProtocolVersions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Cost of decoding NetIP enum values, comparing the lookup tables with the
+ * former scan over values(), and of the whole parseConcreteMessage path for a
+ * HELLO announcing every known protocol version.
+ *
+ * Run with: java -cp target/test-classes:&lt;test classpath&gt;
+ * org.openjdk.jmh.Main NetIPDecodingBenchmark -prof gc
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class NetIPDecodingBenchmark {
+
+    private final byte[] hello;
+    private final byte[] pairs;
+
+    public NetIPDecodingBenchmark() {
+        HelloMessage message = new HelloMessage();
+        for (ProtocolVersions version : ProtocolVersions.values()) {
+            message.getSupportedProtocols().add(new Pair<>(version.getProtocol(), version));
+        }
+        message.getHeader().setPayloadLength((short) (ProtocolVersions.values().length * 2));
+        hello = message.toByteRepresentation();
+        pairs = message.getPayload();
+    }
+
+    @Benchmark
+    public Message parseConcreteHello() {
+        return NetIPConverter.parseConcreteMessage(hello);
+    }
+
+    @Benchmark
+    public void decodePairsTable(Blackhole blackhole) {
+        blackhole.consume(MessageType.lookup(hello[1]));
+        for (int i = 0; i + 1 < pairs.length; i += 2) {
+            blackhole.consume(ProtocolVersions.lookup(Protocol.lookup(pairs[i]), pairs[i + 1]));
+        }
+    }
+
+    @Benchmark
+    public void decodePairsScan(Blackhole blackhole) {
+        blackhole.consume(scanMessageType(hello[1]));
+        for (int i = 0; i + 1 < pairs.length; i += 2) {
+            Protocol protocol = scanProtocol(pairs[i]);
+            blackhole.consume(scanProtocolVersion(protocol, pairs[i + 1]));
+        }
+    }
+
+    private static MessageType scanMessageType(byte value) {
+        for (MessageType c : MessageType.values()) {
+            if (c.getValue() == value) {
+                return c;
+            }
+        }
+        return null;
+    }
+
+    private static Protocol scanProtocol(byte value) {
+        for (Protocol c : Protocol.values()) {
+            if (c.getValue() == value) {
+                return c;
+            }
+        }
+        return null;
+    }
+
+    private static ProtocolVersions scanProtocolVersion(Protocol protocol, byte value) {
+        for (ProtocolVersions c : ProtocolVersions.values()) {
+            if (c.getValue() == value && c.getProtocol() == protocol) {
+                return c;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.netiplib.tests;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.netide.netiplib.HeartbeatMessage;
+import org.opendaylight.netide.netiplib.HelloMessage;
+import org.opendaylight.netide.netiplib.Message;
+import org.opendaylight.netide.netiplib.MessageHeader;
+import org.opendaylight.netide.netiplib.MessageType;
+import org.opendaylight.netide.netiplib.NetIPFlow;
+import org.opendaylight.netide.netiplib.NetIPFlows;
+import org.opendaylight.netide.netiplib.NetIPMessagePublisher;
+
+public class NetIPFlowTest {
+    static final int MAX_BUFFERED = MessageHeader.HEADER_BYTES + MessageHeader.MAX_PAYLOAD_BYTES;
+
+    AtomicInteger resumed;
+    NetIPMessagePublisher publisher;
+
+    @Before
+    public void setUp() {
+        resumed = new AtomicInteger();
+        publisher = new NetIPMessagePublisher(MAX_BUFFERED, new Runnable() {
+            @Override
+            public void run() {
+                resumed.incrementAndGet();
+            }
+        });
+    }
+
+    @Test
+    public void testDecodesChunksOfAnySize() {
+        ByteBuf stream = Unpooled.buffer();
+        for (int xid = 1; xid <= 5; xid++) {
+            HeartbeatMessage heartbeat = new HeartbeatMessage();
+            heartbeat.getHeader().setTransactionId(xid);
+            stream.writeBytes(heartbeat.toByteRepresentation());
+        }
+        RecordingSubscriber<Message> subscriber = new RecordingSubscriber<>();
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(Long.MAX_VALUE);
+        while (stream.isReadable()) {
+            publisher.offer(stream.readSlice(Math.min(7, stream.readableBytes())));
+        }
+        publisher.complete();
+        Assert.assertEquals(5, subscriber.items.size());
+        Assert.assertEquals(MessageType.HEARTBEAT, subscriber.items.get(4).getHeader().getMessageType());
+        Assert.assertEquals(5, subscriber.items.get(4).getHeader().getTransactionId());
+        Assert.assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void testDeliversOnlyRequestedMessages() {
+        RecordingSubscriber<Message> subscriber = new RecordingSubscriber<>();
+        publisher.subscribe(subscriber);
+        for (int i = 0; i < 3; i++) {
+            publisher.offer(Unpooled.wrappedBuffer(new HelloMessage().toByteRepresentation()));
+        }
+        Assert.assertTrue(subscriber.items.isEmpty());
+        subscriber.subscription.request(2);
+        Assert.assertEquals(2, subscriber.items.size());
+        Assert.assertEquals(MessageHeader.HEADER_BYTES, publisher.getBufferedBytes());
+        publisher.complete();
+        Assert.assertFalse(subscriber.completed);
+        subscriber.subscription.request(1);
+        Assert.assertEquals(3, subscriber.items.size());
+        Assert.assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void testSourcePausesUntilDemand() {
+        RecordingSubscriber<Message> subscriber = new RecordingSubscriber<>();
+        publisher.subscribe(subscriber);
+        byte[] frame = new HelloMessage().toByteRepresentation();
+        boolean accepting = true;
+        int offered = 0;
+        while (accepting) {
+            accepting = publisher.offer(Unpooled.wrappedBuffer(frame));
+            offered++;
+        }
+        Assert.assertEquals(MAX_BUFFERED / frame.length + 1, offered);
+        Assert.assertEquals(0, resumed.get());
+        subscriber.subscription.request(1);
+        Assert.assertEquals(1, resumed.get());
+    }
+
+    @Test
+    public void testTruncatedStreamFails() {
+        RecordingSubscriber<Message> subscriber = new RecordingSubscriber<>();
+        publisher.subscribe(subscriber);
+        subscriber.subscription.request(1);
+        publisher.offer(Unpooled.wrappedBuffer(new byte[] { 0x04, 0x01, 0x00 }));
+        publisher.complete();
+        Assert.assertTrue(subscriber.error instanceof IllegalArgumentException);
+    }
+
+    @Test
+    public void testSecondSubscriberIsRejected() {
+        publisher.subscribe(new RecordingSubscriber<Message>());
+        RecordingSubscriber<Message> second = new RecordingSubscriber<>();
+        publisher.subscribe(second);
+        Assert.assertTrue(second.error instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testFilterKeepsDemand() {
+        RecordingSubscriber<Message> subscriber = new RecordingSubscriber<>();
+        NetIPFlows.filter(publisher, new NetIPFlows.Predicate<Message>() {
+            @Override
+            public boolean test(Message item) {
+                return item.getHeader().getTransactionId() % 2 == 0;
+            }
+        }).subscribe(subscriber);
+        for (int xid = 1; xid <= 6; xid++) {
+            HeartbeatMessage heartbeat = new HeartbeatMessage();
+            heartbeat.getHeader().setTransactionId(xid);
+            publisher.offer(Unpooled.wrappedBuffer(heartbeat.toByteRepresentation()));
+        }
+        subscriber.subscription.request(2);
+        Assert.assertEquals(2, subscriber.items.size());
+        Assert.assertEquals(4, subscriber.items.get(1).getHeader().getTransactionId());
+    }
+
+    @Test
+    public void testBatchGroupsMessages() {
+        RecordingSubscriber<List<Message>> subscriber = new RecordingSubscriber<>();
+        NetIPFlows.batch(publisher, 4).subscribe(subscriber);
+        for (int i = 0; i < 10; i++) {
+            publisher.offer(Unpooled.wrappedBuffer(new HelloMessage().toByteRepresentation()));
+        }
+        subscriber.subscription.request(2);
+        Assert.assertEquals(2, subscriber.items.size());
+        Assert.assertEquals(4, subscriber.items.get(1).size());
+        publisher.complete();
+        subscriber.subscription.request(1);
+        Assert.assertEquals(2, subscriber.items.get(2).size());
+        Assert.assertTrue(subscriber.completed);
+    }
+
+    @Test
+    public void testBatchHoldsPartialGroupUntilRequested() {
+        final List<NetIPFlow.Subscriber<? super Integer>> upstream = new ArrayList<>();
+        RecordingSubscriber<List<Integer>> subscriber = new RecordingSubscriber<>();
+        NetIPFlows.batch(new NetIPFlow.Publisher<Integer>() {
+            @Override
+            public void subscribe(NetIPFlow.Subscriber<? super Integer> stage) {
+                upstream.add(stage);
+                stage.onSubscribe(new NetIPFlow.Subscription() {
+                    @Override
+                    public void request(long n) {
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                });
+            }
+        }, 2).subscribe(subscriber);
+        subscriber.subscription.request(1);
+        for (int i = 0; i < 3; i++) {
+            upstream.get(0).onNext(i);
+        }
+        upstream.get(0).onComplete();
+        Assert.assertEquals(1, subscriber.items.size());
+        Assert.assertFalse(subscriber.completed);
+        subscriber.subscription.request(1);
+        Assert.assertEquals(2, subscriber.items.size());
+        Assert.assertEquals(1, subscriber.items.get(1).size());
+        Assert.assertTrue(subscriber.completed);
+    }
+
+    static class RecordingSubscriber<T> implements NetIPFlow.Subscriber<T> {
+        final List<T> items = new ArrayList<>();
+        NetIPFlow.Subscription subscription;
+        Throwable error;
+        boolean completed;
+
+        @Override
+        public void onSubscribe(NetIPFlow.Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(T item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.netiplib.tests;
+
+import io.netty.buffer.ByteBuf;
+import org.junit.Assert;
+import org.junit.Test;
+import org.opendaylight.netide.netiplib.MessageType;
+import org.opendaylight.netide.netiplib.NetIPRouting;
+import org.opendaylight.openflowjava.util.ByteBufUtils;
+
+public class NetIPRoutingTest {
+    byte[] frame = ByteBufUtils.hexStringToBytes(
+            "05 11 00 04 00 00 00 11 80 00 00 02 81 00 00 00 00 00 00 2A 04 02 00 04");
+
+    @Test
+    public void testRoutingFields() {
+        Assert.assertTrue(NetIPRouting.isValid(frame));
+        Assert.assertEquals(MessageType.OPENFLOW, NetIPRouting.messageType(frame));
+        Assert.assertTrue(NetIPRouting.isType(frame, MessageType.OPENFLOW));
+        Assert.assertFalse(NetIPRouting.isType(frame, MessageType.HELLO));
+        Assert.assertEquals(4, NetIPRouting.payloadLength(frame));
+        Assert.assertEquals(17, NetIPRouting.transactionId(frame));
+        Assert.assertEquals(0x80000002, NetIPRouting.moduleId(frame));
+        Assert.assertEquals(0x810000000000002AL, NetIPRouting.datapathId(frame));
+    }
+
+    @Test
+    public void testPayloadIsNotCopied() {
+        ByteBuf payload = NetIPRouting.payload(frame);
+        Assert.assertEquals(4, payload.readableBytes());
+        Assert.assertEquals(2, payload.getByte(1));
+        frame[21] = 3;
+        Assert.assertEquals(3, payload.getByte(1));
+    }
+
+    @Test
+    public void testInvalidFrames() {
+        Assert.assertFalse(NetIPRouting.isValid(new byte[] { 5, 0x11 }));
+        Assert.assertFalse(NetIPRouting.isType(new byte[] { 5, 0x11 }, MessageType.OPENFLOW));
+        byte[] unknownType = frame.clone();
+        unknownType[1] = 0x7F;
+        Assert.assertFalse(NetIPRouting.isValid(unknownType));
+        Assert.assertNull(NetIPRouting.messageType(unknownType));
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.netiplib.tests;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+import org.opendaylight.netide.netiplib.OpenFlowCodecs;
+import org.opendaylight.openflowjava.protocol.api.util.EncodeConstants;
+import org.opendaylight.openflowjava.util.ByteBufUtils;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.common.types.rev130731.PortNumber;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.GetQueueConfigInputBuilder;
+
+public class OpenFlowCodecsTest {
+    byte[] expectedOfMessage = ByteBufUtils.hexStringToBytes("04 16 00 10 00 00 00 11 00 00 04 d2 00 00 00 00");
+
+    @Test
+    public void testDefaultIsShared() {
+        Assert.assertSame(OpenFlowCodecs.getDefault(), OpenFlowCodecs.getDefault());
+        Assert.assertNotNull(OpenFlowCodecs.getDefault().getSerializationFactory());
+        Assert.assertNotNull(OpenFlowCodecs.getDefault().getDeserializationFactory());
+    }
+
+    @Test
+    public void testSerialize() {
+        GetQueueConfigInputBuilder builder = new GetQueueConfigInputBuilder();
+        builder.setVersion((short) EncodeConstants.OF13_VERSION_ID);
+        builder.setXid(17L);
+        builder.setPort(new PortNumber(1234L));
+        ByteBuf output = Unpooled.buffer();
+        OpenFlowCodecs.getDefault().serialize(EncodeConstants.OF13_VERSION_ID, output, builder.build());
+        byte[] serialized = new byte[output.readableBytes()];
+        output.readBytes(serialized);
+        Assert.assertArrayEquals(expectedOfMessage, serialized);
+    }
+}
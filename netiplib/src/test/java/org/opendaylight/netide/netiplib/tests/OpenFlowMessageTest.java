@@ -7,6 +7,8 @@
  */
 package org.opendaylight.netide.netiplib.tests;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -72,4 +74,44 @@ public class OpenFlowMessageTest {
         Assert.assertArrayEquals(expectedOfMessage, of.getPayload());
         Assert.assertEquals(message, of.getOfMessage());
     }
+
+    @Test
+    public void testParsingDecodesLazily() {
+        OpenFlowMessage of = (OpenFlowMessage) NetIPConverter.parseConcreteMessage(expectedNetipMessage);
+        Assert.assertFalse(of.isDecoded());
+        Assert.assertEquals(EncodeConstants.OF13_VERSION_ID, of.getOfVersion());
+        Assert.assertArrayEquals(expectedOfMessage, of.getPayload());
+        Assert.assertFalse(of.isDecoded());
+        Assert.assertEquals(message, of.getOfMessage());
+        Assert.assertTrue(of.isDecoded());
+        Assert.assertArrayEquals(expectedOfMessage, of.getPayload());
+    }
+
+    @Test
+    public void testSetOfMessageReplacesRawPayload() {
+        OpenFlowMessage of = (OpenFlowMessage) NetIPConverter.parseConcreteMessage(expectedNetipMessage);
+        GetQueueConfigInputBuilder builder = new GetQueueConfigInputBuilder(message);
+        builder.setXid(18L);
+        of.setOfMessage(builder.build());
+        Assert.assertEquals(18, of.getPayload()[7]);
+    }
+
+    @Test
+    public void testSerializedPayloadIsCached() {
+        byte[] first = ofMessage.getPayload();
+        Assert.assertSame(first, ofMessage.getPayload());
+        Assert.assertTrue(ofMessage.isDecoded());
+    }
+
+    @Test
+    public void testWriteToSerializesBehindHeader() {
+        ofMessage.getHeader().setTransactionId(17);
+        ofMessage.getHeader().setModuleId(2);
+        ofMessage.getHeader().setDatapathId(42);
+        ByteBuf buffer = Unpooled.buffer();
+        ofMessage.writeTo(buffer);
+        byte[] written = new byte[buffer.readableBytes()];
+        buffer.readBytes(written);
+        Assert.assertArrayEquals(expectedNetipMessage, written);
+    }
 }
@@ -0,0 +1,283 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+import org.zeromq.ZMQ;
+
+/**
+ * Settings of the connection between the shim and the NetIDE core.
+ */
+public class CoreConnectionConfiguration {
+    public static final int DEFAULT_SPIN_ITERATIONS = 1000;
+    public static final String DEFAULT_ENDPOINT = "netide-core";
+    /**
+     * Batching is off by default, every frame is sent as its own ZeroMQ
+     * message as older cores expect.
+     */
+    public static final int DEFAULT_BATCH_MAX_BYTES = 0;
+    public static final int DEFAULT_BATCH_LINGER_MICROS = 200;
+    public static final int DEFAULT_HEARTBEAT_MISSES = 3;
+    public static final int DEFAULT_HIGH_WATER_MARK = ZeroMQBaseConnector.DEFAULT_OUTBOUND_CAPACITY;
+
+    private String address;
+    private int port;
+    private CoreConnectorType connectorType = CoreConnectorType.ZEROMQ;
+    private CoreTransport transport = CoreTransport.TCP;
+    private String endpoint = DEFAULT_ENDPOINT;
+    private ZMQ.Context context;
+    private WaitStrategy waitStrategy = WaitStrategy.BLOCKING;
+    private int spinIterations = DEFAULT_SPIN_ITERATIONS;
+    private int batchMaxBytes = DEFAULT_BATCH_MAX_BYTES;
+    private int batchLingerMicros = DEFAULT_BATCH_LINGER_MICROS;
+    private int highWaterMark = DEFAULT_HIGH_WATER_MARK;
+    private OverloadPolicy overloadPolicy = OverloadPolicy.DROP_NEWEST;
+    private int connections = 1;
+    private int dispatchThreads = 0;
+    private int heartbeatIntervalMillis = 0;
+    private int heartbeatMisses = DEFAULT_HEARTBEAT_MISSES;
+    private boolean rawForwarding = false;
+    private boolean rawCapture = false;
+    private boolean packetInNotifications = true;
+
+    public String getAddress() {
+        return address;
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Gets the connector implementation. The transport, endpoint, wait
+     * strategy, batching, overload and connection count settings only apply
+     * to {@link CoreConnectorType#ZEROMQ}.
+     *
+     * @return the connector type
+     */
+    public CoreConnectorType getConnectorType() {
+        return connectorType;
+    }
+
+    public void setConnectorType(CoreConnectorType connectorType) {
+        this.connectorType = connectorType;
+    }
+
+    public CoreTransport getTransport() {
+        return transport;
+    }
+
+    public void setTransport(CoreTransport transport) {
+        this.transport = transport;
+    }
+
+    /**
+     * Gets the endpoint name used by the ipc and inproc transports.
+     *
+     * @return the endpoint name, without scheme
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public void setEndpoint(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    /**
+     * Gets the ZeroMQ context of a core embedded in the same JVM. Required
+     * for the {@link CoreTransport#INPROC} transport, which only reaches
+     * endpoints bound in the same context, so it cannot be set from the
+     * config subsystem.
+     *
+     * @return the context, null if the connectors create their own
+     */
+    public ZMQ.Context getContext() {
+        return context;
+    }
+
+    public void setContext(ZMQ.Context context) {
+        this.context = context;
+    }
+
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    public void setWaitStrategy(WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Gets the number of idle iterations the connector spins before parking
+     * when the {@link WaitStrategy#HYBRID} strategy is used.
+     *
+     * @return the spin iterations
+     */
+    public int getSpinIterations() {
+        return spinIterations;
+    }
+
+    public void setSpinIterations(int spinIterations) {
+        this.spinIterations = spinIterations;
+    }
+
+    /**
+     * Gets the maximum size of a multi-frame message sent to the core, 0 if
+     * batching is disabled.
+     *
+     * @return the maximum batch size in bytes
+     */
+    public int getBatchMaxBytes() {
+        return batchMaxBytes;
+    }
+
+    public void setBatchMaxBytes(int batchMaxBytes) {
+        this.batchMaxBytes = batchMaxBytes;
+    }
+
+    /**
+     * Gets how long a batch waits for further frames under bursty load.
+     *
+     * @return the linger time in microseconds
+     */
+    public int getBatchLingerMicros() {
+        return batchLingerMicros;
+    }
+
+    public void setBatchLingerMicros(int batchLingerMicros) {
+        this.batchLingerMicros = batchLingerMicros;
+    }
+
+    /**
+     * Gets how many frames may be queued for the core before the overload
+     * policy applies.
+     *
+     * @return the high-water mark
+     */
+    public int getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    public void setHighWaterMark(int highWaterMark) {
+        this.highWaterMark = highWaterMark;
+    }
+
+    public OverloadPolicy getOverloadPolicy() {
+        return overloadPolicy;
+    }
+
+    public void setOverloadPolicy(OverloadPolicy overloadPolicy) {
+        this.overloadPolicy = overloadPolicy;
+    }
+
+    /**
+     * Gets the number of connections to the core. With more than one,
+     * traffic is sharded by datapath id.
+     *
+     * @return the number of connections
+     */
+    public int getConnections() {
+        return connections;
+    }
+
+    public void setConnections(int connections) {
+        this.connections = connections;
+    }
+
+    /**
+     * Gets the number of threads processing messages from the core, 0 for
+     * one per available processor.
+     *
+     * @return the number of dispatch threads
+     */
+    public int getDispatchThreads() {
+        return dispatchThreads;
+    }
+
+    public void setDispatchThreads(int dispatchThreads) {
+        this.dispatchThreads = dispatchThreads;
+    }
+
+    /**
+     * Gets the interval between heartbeats to the core, 0 if heartbeats are
+     * disabled.
+     *
+     * @return the heartbeat interval in milliseconds
+     */
+    public int getHeartbeatIntervalMillis() {
+        return heartbeatIntervalMillis;
+    }
+
+    public void setHeartbeatIntervalMillis(int heartbeatIntervalMillis) {
+        this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+    }
+
+    /**
+     * Gets the number of heartbeat intervals without any traffic after which
+     * the core is considered gone and the connection is re-established.
+     *
+     * @return the heartbeat misses
+     */
+    public int getHeartbeatMisses() {
+        return heartbeatMisses;
+    }
+
+    public void setHeartbeatMisses(int heartbeatMisses) {
+        this.heartbeatMisses = heartbeatMisses;
+    }
+
+    /**
+     * Gets whether FLOW_MOD, PACKET_OUT and GROUP_MOD messages from the core
+     * are written to switches without being decoded.
+     *
+     * @return true if raw forwarding is used
+     */
+    public boolean isRawForwarding() {
+        return rawForwarding;
+    }
+
+    public void setRawForwarding(boolean rawForwarding) {
+        this.rawForwarding = rawForwarding;
+    }
+
+    /**
+     * Gets whether PACKET_IN messages from switches are sent to the core
+     * without being decoded.
+     *
+     * @return true if raw capture is used
+     */
+    public boolean isRawCapture() {
+        return rawCapture;
+    }
+
+    public void setRawCapture(boolean rawCapture) {
+        this.rawCapture = rawCapture;
+    }
+
+    /**
+     * Gets whether PACKET_IN messages are published as MD-SAL notifications.
+     * With raw capture, they are then still decoded.
+     *
+     * @return true if PACKET_IN notifications are published
+     */
+    public boolean isPacketInNotifications() {
+        return packetInNotifications;
+    }
+
+    public void setPacketInNotifications(boolean packetInNotifications) {
+        this.packetInNotifications = packetInNotifications;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+/**
+ * Enumeration of the core connector implementations.
+ */
+public enum CoreConnectorType {
+    /**
+     * ZeroMQ DEALER sockets, see {@link ZeroMQBaseConnector}.
+     */
+    ZEROMQ("zeromq"),
+    /**
+     * Plain NetIP over TCP, see {@link NettyCoreConnector}.
+     */
+    NETTY("netty");
+
+    private String value;
+
+    /**
+     * Instantiates a new core connector type.
+     *
+     * @param value the configuration value
+     */
+    CoreConnectorType(String value) {
+        this.value = value;
+    }
+
+    /**
+     * Gets the configuration value.
+     *
+     * @return the value
+     */
+    public String getValue() {
+        return this.value;
+    }
+
+    /**
+     * Parse core connector type.
+     *
+     * @param value the configuration value
+     * @return the core connector type
+     */
+    public static CoreConnectorType parse(final String value) {
+        for (CoreConnectorType c : CoreConnectorType.values()) {
+            if (c.value.equalsIgnoreCase(value)) {
+                return c;
+            }
+        }
+        throw new IllegalArgumentException("Unexpected value " + value);
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+import java.util.concurrent.TimeUnit;
+import org.opendaylight.netide.netiplib.HeartbeatMessage;
+
+/**
+ * Heartbeat bookkeeping of one core connection. Decides when to send the next
+ * heartbeat and when the core has to be considered gone, and measures the
+ * round trip time of answered heartbeats.
+ *
+ * Any frame from the core counts as a sign of life. The core is declared dead
+ * when nothing arrived for the configured number of intervals; every further
+ * reconnect attempt is delayed by an exponentially growing backoff, capped at
+ * {@link #MAX_BACKOFF_INTERVALS} intervals.
+ *
+ * Times are System.nanoTime() values passed in by the connector thread, the
+ * only thread updating this object. The gauges may be read from any thread.
+ */
+class CoreHeartbeat {
+
+    static final int MAX_BACKOFF_INTERVALS = 8;
+    /**
+     * Set in the transaction id of every heartbeat the shim initiates. The
+     * core numbers its heartbeats from 1 as well, so the ids themselves
+     * cannot tell who started a heartbeat; a core echoing ours keeps this
+     * bit, its own heartbeats never carry it.
+     */
+    static final int OWN_TRANSACTION_ID = 0x80000000;
+
+    private final long intervalNanos;
+    private final int misses;
+
+    private long lastReceived;
+    private long nextHeartbeat;
+    private long backoffNanos;
+    private int nextTransactionId = 1;
+    private int outstandingTransactionId;
+    private long outstandingSent;
+
+    private volatile boolean alive;
+    private volatile long rttNanos = -1;
+    private volatile long reconnects;
+
+    /**
+     * Creates the bookkeeping.
+     *
+     * @param intervalMillis
+     *            the heartbeat interval in milliseconds, 0 to disable
+     *            heartbeats
+     * @param misses
+     *            the number of intervals without traffic after which the core
+     *            is considered gone
+     * @param now
+     *            the current time
+     */
+    CoreHeartbeat(long intervalMillis, int misses, long now) {
+        this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+        this.misses = Math.max(1, misses);
+        this.lastReceived = now;
+        this.nextHeartbeat = now;
+    }
+
+    boolean isEnabled() {
+        return intervalNanos > 0;
+    }
+
+    /**
+     * Records that a frame arrived from the core.
+     *
+     * @param now
+     *            the current time
+     */
+    void onFrameReceived(long now) {
+        lastReceived = now;
+        backoffNanos = 0;
+        alive = true;
+    }
+
+    /**
+     * Handles a heartbeat from the core.
+     *
+     * @param transactionId
+     *            the transaction id of the heartbeat
+     * @param now
+     *            the current time
+     * @return true if the heartbeat answers one of ours, false if it was
+     *         initiated by the core and has to be echoed
+     */
+    boolean onHeartbeat(int transactionId, long now) {
+        onFrameReceived(now);
+        if (outstandingTransactionId != 0 && transactionId == outstandingTransactionId) {
+            rttNanos = now - outstandingSent;
+            outstandingTransactionId = 0;
+            return true;
+        }
+        // late answers to older heartbeats of ours are not echoed either
+        return (transactionId & OWN_TRANSACTION_ID) != 0;
+    }
+
+    boolean isHeartbeatDue(long now) {
+        return isEnabled() && now - nextHeartbeat >= 0;
+    }
+
+    /**
+     * Creates the next heartbeat frame and schedules the one after it.
+     *
+     * @param now
+     *            the current time
+     * @return the frame
+     */
+    byte[] nextHeartbeat(long now) {
+        HeartbeatMessage heartbeat = new HeartbeatMessage();
+        int transactionId = OWN_TRANSACTION_ID | nextTransactionId++;
+        if (nextTransactionId == Integer.MAX_VALUE) {
+            nextTransactionId = 1;
+        }
+        heartbeat.getHeader().setTransactionId(transactionId);
+        // only the latest heartbeat is timed, a late answer to an older one
+        // would overstate the round trip time
+        outstandingTransactionId = transactionId;
+        outstandingSent = now;
+        nextHeartbeat = now + intervalNanos;
+        return heartbeat.toByteRepresentation();
+    }
+
+    /**
+     * Creates the answer to a heartbeat initiated by the core.
+     *
+     * @param transactionId
+     *            the transaction id of the core's heartbeat
+     * @return the frame
+     */
+    static byte[] echo(int transactionId) {
+        HeartbeatMessage heartbeat = new HeartbeatMessage();
+        heartbeat.getHeader().setTransactionId(transactionId);
+        return heartbeat.toByteRepresentation();
+    }
+
+    boolean isExpired(long now) {
+        return isEnabled() && now - expiry() >= 0;
+    }
+
+    private long expiry() {
+        return lastReceived + misses * intervalNanos + backoffNanos;
+    }
+
+    /**
+     * Records a reconnect attempt after the core was declared gone.
+     *
+     * @param now
+     *            the current time
+     */
+    void onReconnect(long now) {
+        alive = false;
+        reconnects++;
+        lastReceived = now;
+        nextHeartbeat = now;
+        outstandingTransactionId = 0;
+        backoffNanos = backoffNanos == 0 ? intervalNanos
+                : Math.min(backoffNanos * 2, MAX_BACKOFF_INTERVALS * intervalNanos);
+    }
+
+    /**
+     * Gets how long the connector may wait for traffic before the next
+     * heartbeat or the next liveness check is due.
+     *
+     * @param now
+     *            the current time
+     * @return the timeout in milliseconds, -1 if heartbeats are disabled
+     */
+    long timeoutMillis(long now) {
+        if (!isEnabled()) {
+            return -1;
+        }
+        long next = Math.min(nextHeartbeat - now, expiry() - now);
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(next) + 1);
+    }
+
+    boolean isAlive() {
+        return alive;
+    }
+
+    /**
+     * Gets the round trip time of the last answered heartbeat.
+     *
+     * @return the round trip time in microseconds, -1 if none was answered
+     */
+    long getRttMicros() {
+        long rtt = rttNanos;
+        return rtt < 0 ? -1 : TimeUnit.NANOSECONDS.toMicros(rtt);
+    }
+
+    long getReconnects() {
+        return reconnects;
+    }
+}
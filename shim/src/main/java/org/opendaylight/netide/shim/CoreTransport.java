@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+/**
+ * Enumeration of the ZeroMQ transports used to reach the core.
+ */
+public enum CoreTransport {
+    /**
+     * TCP to the core address and port.
+     */
+    TCP("tcp"),
+    /**
+     * IPC endpoint, for a core on the same host.
+     */
+    IPC("ipc"),
+    /**
+     * In-process endpoint, for a core embedded in the same JVM and sharing
+     * the ZeroMQ context of the connector.
+     */
+    INPROC("inproc");
+
+    private String value;
+
+    /**
+     * Instantiates a new core transport.
+     *
+     * @param value the configuration value
+     */
+    CoreTransport(String value) {
+        this.value = value;
+    }
+
+    /**
+     * Gets the configuration value, which is also the ZeroMQ scheme.
+     *
+     * @return the value
+     */
+    public String getValue() {
+        return this.value;
+    }
+
+    /**
+     * Parse core transport.
+     *
+     * @param value the configuration value
+     * @return the core transport
+     */
+    public static CoreTransport parse(final String value) {
+        for (CoreTransport c : CoreTransport.values()) {
+            if (c.value.equalsIgnoreCase(value)) {
+                return c;
+            }
+        }
+        throw new IllegalArgumentException("Unexpected value " + value);
+    }
+}
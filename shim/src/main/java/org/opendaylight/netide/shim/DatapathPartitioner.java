@@ -0,0 +1,32 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+/**
+ * Maps datapath ids to partitions, so everything belonging to one switch is
+ * handled by the same connection or thread.
+ */
+public final class DatapathPartitioner {
+
+    private DatapathPartitioner() {
+    }
+
+    /**
+     * Gets the partition of a datapath.
+     *
+     * @param datapathId
+     *            the datapath id
+     * @param partitions
+     *            the number of partitions
+     * @return the partition index, between 0 and partitions - 1
+     */
+    public static int partitionOf(long datapathId, int partitions) {
+        int hash = (int) (datapathId ^ (datapathId >>> 32));
+        return (hash & Integer.MAX_VALUE) % partitions;
+    }
+}
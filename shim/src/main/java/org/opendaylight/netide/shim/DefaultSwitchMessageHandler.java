@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+import java.util.concurrent.Future;
+import org.opendaylight.openflowjava.protocol.api.connection.ConnectionAdapter;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.BarrierInput;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.BarrierOutput;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.EchoInput;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.EchoInputBuilder;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.EchoOutput;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.EchoReplyInputBuilder;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.EchoRequestMessage;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.ExperimenterInput;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.FlowModInput;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.GetAsyncInput;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.GetAsyncOutput;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.GetConfigInput;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.GetConfigOutput;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.GetFeaturesInput;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.GetFeaturesOutput;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.GetQueueConfigInput;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.GetQueueConfigOutput;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.GroupModInput;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.HelloInput;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.MeterModInput;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.MultipartRequestInput;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.PacketOutInput;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.PortModInput;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.RoleRequestInput;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.RoleRequestOutput;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.SetAsyncInput;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.SetConfigInput;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.TableModInput;
+import org.opendaylight.yangtools.yang.binding.DataObject;
+import org.opendaylight.yangtools.yang.common.RpcResult;
+
+/**
+ * The handlers of the messages the shim sends to switches out of the box, one
+ * per implemented interface. Requests the switch answers have their reply
+ * sent back to the core. Every handler returns the future openflowjava gives
+ * for the message.
+ */
+enum DefaultSwitchMessageHandler implements SwitchMessageHandler {
+    BARRIER(BarrierInput.class) {
+        @Override
+        public Future<?> handle(ShimRelay relay, ConnectionAdapter connectionAdapter, DataObject msg, short ofVersion,
+                ICoreConnector coreConnector, long datapathId, int moduleId) {
+            Future<RpcResult<BarrierOutput>> reply = connectionAdapter.barrier((BarrierInput) msg);
+            relay.sendResponseToCore(reply, coreConnector, ofVersion, ((BarrierInput) msg).getXid(), datapathId,
+                    moduleId);
+            return reply;
+        }
+    },
+    ECHO(EchoInput.class) {
+        @Override
+        public Future<?> handle(ShimRelay relay, ConnectionAdapter connectionAdapter, DataObject msg, short ofVersion,
+                ICoreConnector coreConnector, long datapathId, int moduleId) {
+            Future<RpcResult<EchoOutput>> reply = connectionAdapter.echo((EchoInput) msg);
+            relay.sendResponseToCore(reply, coreConnector, ofVersion, ((EchoInput) msg).getXid(), datapathId,
+                    moduleId);
+            return reply;
+        }
+    },
+    ECHO_REQUEST(EchoRequestMessage.class) {
+        @Override
+        public Future<?> handle(ShimRelay relay, ConnectionAdapter connectionAdapter, DataObject msg, short ofVersion,
+                ICoreConnector coreConnector, long datapathId, int moduleId) {
+            EchoInputBuilder builder = new EchoInputBuilder();
+            EchoRequestMessage echoRequestMessage = (EchoRequestMessage) msg;
+            if (echoRequestMessage.getData() != null)
+                builder.setData(echoRequestMessage.getData());
+            builder.setVersion(echoRequestMessage.getVersion());
+            builder.setXid(echoRequestMessage.getXid());
+            Future<RpcResult<EchoOutput>> reply = connectionAdapter.echo(builder.build());
+            relay.sendResponseToCore(reply, coreConnector, ofVersion, echoRequestMessage.getXid(), datapathId,
+                    moduleId);
+            return reply;
+        }
+    },
+    ECHO_REPLY(EchoOutput.class) {
+        @Override
+        public Future<?> handle(ShimRelay relay, ConnectionAdapter connectionAdapter, DataObject msg, short ofVersion,
+                ICoreConnector coreConnector, long datapathId, int moduleId) {
+            EchoReplyInputBuilder builder = new EchoReplyInputBuilder();
+            builder.setVersion(((EchoOutput) msg).getVersion());
+            builder.setXid(((EchoOutput) msg).getXid());
+            builder.setData(((EchoOutput) msg).getData());
+            return connectionAdapter.echoReply(builder.build());
+        }
+    },
+    EXPERIMENTER(ExperimenterInput.class) {
+        @Override
+        public Future<?> handle(ShimRelay relay, ConnectionAdapter connectionAdapter, DataObject msg, short ofVersion,
+                ICoreConnector coreConnector, long datapathId, int moduleId) {
+            return connectionAdapter.experimenter((ExperimenterInput) msg);
+        }
+    },
+    FLOW_MOD(FlowModInput.class) {
+        @Override
+        public Future<?> handle(ShimRelay relay, ConnectionAdapter connectionAdapter, DataObject msg, short ofVersion,
+                ICoreConnector coreConnector, long datapathId, int moduleId) {
+            return connectionAdapter.flowMod((FlowModInput) msg);
+        }
+    },
+    GET_ASYNC(GetAsyncInput.class) {
+        @Override
+        public Future<?> handle(ShimRelay relay, ConnectionAdapter connectionAdapter, DataObject msg, short ofVersion,
+                ICoreConnector coreConnector, long datapathId, int moduleId) {
+            Future<RpcResult<GetAsyncOutput>> reply = connectionAdapter.getAsync((GetAsyncInput) msg);
+            relay.sendResponseToCore(reply, coreConnector, ofVersion, ((GetAsyncInput) msg).getXid(), datapathId,
+                    moduleId);
+            return reply;
+        }
+    },
+    GET_CONFIG(GetConfigInput.class) {
+        @Override
+        public Future<?> handle(ShimRelay relay, ConnectionAdapter connectionAdapter, DataObject msg, short ofVersion,
+                ICoreConnector coreConnector, long datapathId, int moduleId) {
+            Future<RpcResult<GetConfigOutput>> reply = connectionAdapter.getConfig((GetConfigInput) msg);
+            relay.sendResponseToCore(reply, coreConnector, ofVersion, ((GetConfigInput) msg).getXid(), datapathId,
+                    moduleId);
+            return reply;
+        }
+    },
+    GET_FEATURES(GetFeaturesInput.class) {
+        @Override
+        public Future<?> handle(ShimRelay relay, ConnectionAdapter connectionAdapter, DataObject msg, short ofVersion,
+                ICoreConnector coreConnector, long datapathId, int moduleId) {
+            Future<RpcResult<GetFeaturesOutput>> reply = connectionAdapter.getFeatures((GetFeaturesInput) msg);
+            relay.sendResponseToCore(reply, coreConnector, ofVersion, ((GetFeaturesInput) msg).getXid(), datapathId,
+                    moduleId);
+            return reply;
+        }
+    },
+    GET_QUEUE_CONFIG(GetQueueConfigInput.class) {
+        @Override
+        public Future<?> handle(ShimRelay relay, ConnectionAdapter connectionAdapter, DataObject msg, short ofVersion,
+                ICoreConnector coreConnector, long datapathId, int moduleId) {
+            Future<RpcResult<GetQueueConfigOutput>> reply = connectionAdapter
+                    .getQueueConfig((GetQueueConfigInput) msg);
+            relay.sendResponseToCore(reply, coreConnector, ofVersion, ((GetQueueConfigInput) msg).getXid(),
+                    datapathId, moduleId);
+            return reply;
+        }
+    },
+    GROUP_MOD(GroupModInput.class) {
+        @Override
+        public Future<?> handle(ShimRelay relay, ConnectionAdapter connectionAdapter, DataObject msg, short ofVersion,
+                ICoreConnector coreConnector, long datapathId, int moduleId) {
+            return connectionAdapter.groupMod((GroupModInput) msg);
+        }
+    },
+    HELLO(HelloInput.class) {
+        @Override
+        public Future<?> handle(ShimRelay relay, ConnectionAdapter connectionAdapter, DataObject msg, short ofVersion,
+                ICoreConnector coreConnector, long datapathId, int moduleId) {
+            return connectionAdapter.hello((HelloInput) msg);
+        }
+    },
+    METER_MOD(MeterModInput.class) {
+        @Override
+        public Future<?> handle(ShimRelay relay, ConnectionAdapter connectionAdapter, DataObject msg, short ofVersion,
+                ICoreConnector coreConnector, long datapathId, int moduleId) {
+            return connectionAdapter.meterMod((MeterModInput) msg);
+        }
+    },
+    MULTIPART_REQUEST(MultipartRequestInput.class) {
+        @Override
+        public Future<?> handle(ShimRelay relay, ConnectionAdapter connectionAdapter, DataObject msg, short ofVersion,
+                ICoreConnector coreConnector, long datapathId, int moduleId) {
+            return connectionAdapter.multipartRequest((MultipartRequestInput) msg);
+        }
+    },
+    PACKET_OUT(PacketOutInput.class) {
+        @Override
+        public Future<?> handle(ShimRelay relay, ConnectionAdapter connectionAdapter, DataObject msg, short ofVersion,
+                ICoreConnector coreConnector, long datapathId, int moduleId) {
+            return connectionAdapter.packetOut((PacketOutInput) msg);
+        }
+    },
+    PORT_MOD(PortModInput.class) {
+        @Override
+        public Future<?> handle(ShimRelay relay, ConnectionAdapter connectionAdapter, DataObject msg, short ofVersion,
+                ICoreConnector coreConnector, long datapathId, int moduleId) {
+            return connectionAdapter.portMod((PortModInput) msg);
+        }
+    },
+    SET_ASYNC(SetAsyncInput.class) {
+        @Override
+        public Future<?> handle(ShimRelay relay, ConnectionAdapter connectionAdapter, DataObject msg, short ofVersion,
+                ICoreConnector coreConnector, long datapathId, int moduleId) {
+            return connectionAdapter.setAsync((SetAsyncInput) msg);
+        }
+    },
+    SET_CONFIG(SetConfigInput.class) {
+        @Override
+        public Future<?> handle(ShimRelay relay, ConnectionAdapter connectionAdapter, DataObject msg, short ofVersion,
+                ICoreConnector coreConnector, long datapathId, int moduleId) {
+            return connectionAdapter.setConfig((SetConfigInput) msg);
+        }
+    },
+    TABLE_MOD(TableModInput.class) {
+        @Override
+        public Future<?> handle(ShimRelay relay, ConnectionAdapter connectionAdapter, DataObject msg, short ofVersion,
+                ICoreConnector coreConnector, long datapathId, int moduleId) {
+            return connectionAdapter.tableMod((TableModInput) msg);
+        }
+    },
+    ROLE_REQUEST(RoleRequestInput.class) {
+        @Override
+        public Future<?> handle(ShimRelay relay, ConnectionAdapter connectionAdapter, DataObject msg, short ofVersion,
+                ICoreConnector coreConnector, long datapathId, int moduleId) {
+            Future<RpcResult<RoleRequestOutput>> reply = connectionAdapter.roleRequest((RoleRequestInput) msg);
+            relay.sendResponseToCore(reply, coreConnector, ofVersion, ((RoleRequestInput) msg).getXid(), datapathId,
+                    moduleId);
+            return reply;
+        }
+    };
+
+    private final Class<? extends DataObject> type;
+
+    DefaultSwitchMessageHandler(Class<? extends DataObject> type) {
+        this.type = type;
+    }
+
+    /**
+     * Gets the interface of the messages this handler sends.
+     *
+     * @return the implemented interface
+     */
+    Class<? extends DataObject> getType() {
+        return type;
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+/**
+ * Connection between the shim and the NetIDE core.
+ */
+public interface ICoreConnector {
+
+    void Start();
+
+    void Stop();
+
+    /**
+     * Queues a NetIP frame for the core.
+     *
+     * @param data
+     *            the NetIP frame
+     * @return false if the frame was dropped
+     */
+    boolean SendData(byte[] data);
+
+    void RegisterCoreListener(ICoreListener listener);
+
+    int getOutboundQueueDepth();
+
+    long getOutboundDrops();
+
+    long getOutboundEvictions();
+
+    long getOutboundLowPriorityDrops();
+
+    long getOutboundBlockedSends();
+
+    /**
+     * Checks whether the core answered within the configured number of
+     * heartbeat intervals. Without heartbeats the core counts as alive.
+     *
+     * @return true if the core is alive
+     */
+    boolean isCoreAlive();
+
+    /**
+     * Gets the round trip time of the last answered heartbeat.
+     *
+     * @return the round trip time in microseconds, -1 if unknown
+     */
+    long getCoreRttMicros();
+
+    long getReconnects();
+}
@@ -15,6 +15,18 @@ import org.opendaylight.netide.netiplib.ProtocolVersions;
 
 public interface ICoreListener {
 
+    /**
+     * Handles an OpenFlow message from the core. The listener owns the
+     * buffer: it releases it once done with it, also when the message is
+     * dropped, or passes it on together with that duty.
+     *
+     * @param datapathId
+     *            the switch the message is for
+     * @param msg
+     *            the OpenFlow message
+     * @param moduleId
+     *            the module that sent the message
+     */
     void onOpenFlowCoreMessage(Long datapathId, ByteBuf msg, int moduleId);
 
     void onHelloCoreMessage(List<Pair<Protocol, ProtocolVersions>> requiredVersion, int moduleId);
@@ -0,0 +1,468 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.LengthFieldBasedFrameDecoder;
+import io.netty.util.concurrent.ScheduledFuture;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import org.opendaylight.netide.netiplib.FragmentReassembler;
+import org.opendaylight.netide.netiplib.HelloMessage;
+import org.opendaylight.netide.netiplib.Message;
+import org.opendaylight.netide.netiplib.MessageHeader;
+import org.opendaylight.netide.netiplib.MessageHeaderFlyweight;
+import org.opendaylight.netide.netiplib.MessageType;
+import org.opendaylight.netide.netiplib.NetIPConverter;
+import org.opendaylight.netide.netiplib.NetIPRouting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Core connector speaking NetIP directly over a TCP connection, framed by the
+ * length field of the 20 byte NetIP header. Reads use pooled buffers of the
+ * event loop, epoll is used where the native transport is available.
+ *
+ * By default the connector runs its own single threaded group. An embedder
+ * owning an event loop group can pass it in through
+ * {@link #setEventLoopGroup(EventLoopGroup)}; the switch connection provider
+ * of openflowjava does not expose its worker group, so NetideProvider does
+ * not share it.
+ */
+public class NettyCoreConnector implements ICoreConnector {
+    private static final Logger LOG = LoggerFactory.getLogger(NettyCoreConnector.class);
+
+    /**
+     * Offset and size of the payload length inside a NetIP header.
+     */
+    private static final int LENGTH_FIELD_OFFSET = 2;
+    private static final int LENGTH_FIELD_LENGTH = 2;
+    private static final int MAX_FRAME_BYTES = MessageHeader.HEADER_BYTES + 0xFFFF;
+    private static final int WRITE_HIGH_WATER_BYTES = 16 * 1024 * 1024;
+    private static final int WRITE_LOW_WATER_BYTES = 8 * 1024 * 1024;
+    private static final long MIN_RECONNECT_MILLIS = 100;
+    private static final long MAX_RECONNECT_MILLIS = 30000;
+
+    private String address;
+    private int port;
+    private int heartbeatIntervalMillis = 0;
+    private int heartbeatMisses = CoreConnectionConfiguration.DEFAULT_HEARTBEAT_MISSES;
+
+    private ICoreListener coreListener;
+    private EventLoopGroup group;
+    private boolean ownsGroup;
+    private volatile Channel channel;
+    private volatile boolean running;
+    private long reconnectMillis = MIN_RECONNECT_MILLIS;
+    private volatile CoreHeartbeat heartbeat = new CoreHeartbeat(0, 1, System.nanoTime());
+    private final AtomicLong drops = new AtomicLong();
+    private final AtomicLong reconnects = new AtomicLong();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    /**
+     * Last HELLO sent to the core per module, re-sent after a reconnect.
+     */
+    private final Map<Integer, byte[]> helloFrames = new ConcurrentHashMap<>();
+
+    private final Runnable flushTask = new Runnable() {
+        @Override
+        public void run() {
+            flushScheduled.set(false);
+            Channel current = channel;
+            if (current != null) {
+                current.flush();
+            }
+        }
+    };
+
+    /**
+     * Applies the core connection settings. Has to be called before
+     * {@link #Start()}.
+     *
+     * @param configuration
+     *            the settings
+     */
+    public void configure(CoreConnectionConfiguration configuration) {
+        setAddress(configuration.getAddress());
+        setPort(configuration.getPort());
+        setHeartbeatIntervalMillis(configuration.getHeartbeatIntervalMillis());
+        setHeartbeatMisses(configuration.getHeartbeatMisses());
+    }
+
+    /**
+     * Sets the event loop group to run the connection on instead of creating
+     * one in {@link #Start()}.
+     *
+     * @param eventLoopGroup
+     *            the group, shut down by its owner
+     */
+    public void setEventLoopGroup(EventLoopGroup eventLoopGroup) {
+        group = eventLoopGroup;
+        ownsGroup = false;
+    }
+
+    @Override
+    public void Start() {
+        if (group == null) {
+            group = Epoll.isAvailable() ? new EpollEventLoopGroup(1) : new NioEventLoopGroup(1);
+            ownsGroup = true;
+        }
+        running = true;
+        connect();
+    }
+
+    @Override
+    public void Stop() {
+        running = false;
+        Channel current = channel;
+        if (current != null) {
+            current.close().syncUninterruptibly();
+        }
+        if (ownsGroup && group != null) {
+            group.shutdownGracefully().syncUninterruptibly();
+            group = null;
+        }
+    }
+
+    private void connect() {
+        Bootstrap bootstrap = new Bootstrap();
+        bootstrap.group(group)
+                .channel(group instanceof EpollEventLoopGroup ? EpollSocketChannel.class : NioSocketChannel.class)
+                .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .option(ChannelOption.WRITE_BUFFER_HIGH_WATER_MARK, WRITE_HIGH_WATER_BYTES)
+                .option(ChannelOption.WRITE_BUFFER_LOW_WATER_MARK, WRITE_LOW_WATER_BYTES)
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline().addLast(new LengthFieldBasedFrameDecoder(MAX_FRAME_BYTES,
+                                LENGTH_FIELD_OFFSET, LENGTH_FIELD_LENGTH, MessageHeader.HEADER_BYTES
+                                        - LENGTH_FIELD_OFFSET - LENGTH_FIELD_LENGTH, 0));
+                        ch.pipeline().addLast(new CoreFrameHandler());
+                    }
+                });
+        LOG.info("Trying to connect to core on address tcp://" + getAddress() + ":" + getPort());
+        bootstrap.connect(getAddress(), getPort()).addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                if (!future.isSuccess()) {
+                    LOG.warn("Connection to core failed: {}", future.cause().getMessage());
+                    scheduleReconnect();
+                }
+            }
+        });
+    }
+
+    private void scheduleReconnect() {
+        if (!running) {
+            return;
+        }
+        long delay = reconnectMillis;
+        reconnectMillis = Math.min(reconnectMillis * 2, MAX_RECONNECT_MILLIS);
+        reconnects.incrementAndGet();
+        group.schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (running) {
+                    connect();
+                }
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public boolean SendData(byte[] data) {
+        if (NetIPRouting.isType(data, MessageType.HELLO)) {
+            helloFrames.put(NetIPRouting.moduleId(data), data);
+        }
+        Channel current = channel;
+        if (current == null || !current.isActive() || !current.isWritable()) {
+            drops.incrementAndGet();
+            return false;
+        }
+        current.write(Unpooled.wrappedBuffer(data));
+        // one flush per event loop turn for all frames written meanwhile
+        if (flushScheduled.compareAndSet(false, true)) {
+            current.eventLoop().execute(flushTask);
+        }
+        return true;
+    }
+
+    @Override
+    public void RegisterCoreListener(ICoreListener listener) {
+        this.coreListener = listener;
+    }
+
+    private class CoreFrameHandler extends SimpleChannelInboundHandler<ByteBuf> {
+        private final MessageHeaderFlyweight flyweight = new MessageHeaderFlyweight();
+        private final FragmentReassembler reassembler = new FragmentReassembler();
+        private ScheduledFuture<?> heartbeatTask;
+
+        @Override
+        public void channelActive(final ChannelHandlerContext ctx) {
+            LOG.info("Connected to core on address tcp://" + getAddress() + ":" + getPort());
+            channel = ctx.channel();
+            reconnectMillis = MIN_RECONNECT_MILLIS;
+            heartbeat = new CoreHeartbeat(heartbeatIntervalMillis, heartbeatMisses, System.nanoTime());
+            for (byte[] hello : helloFrames.values()) {
+                ctx.write(Unpooled.wrappedBuffer(hello));
+            }
+            ctx.flush();
+            if (heartbeatIntervalMillis > 0) {
+                heartbeatTask = ctx.executor().scheduleAtFixedRate(new Runnable() {
+                    @Override
+                    public void run() {
+                        checkHeartbeat(ctx);
+                    }
+                }, heartbeatIntervalMillis, heartbeatIntervalMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        private void checkHeartbeat(ChannelHandlerContext ctx) {
+            long now = System.nanoTime();
+            if (heartbeat.isExpired(now)) {
+                LOG.warn("No traffic from core for " + heartbeatMisses + " heartbeat intervals, reconnecting");
+                ctx.close();
+            } else if (heartbeat.isHeartbeatDue(now)) {
+                ctx.writeAndFlush(Unpooled.wrappedBuffer(heartbeat.nextHeartbeat(now)));
+            }
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            LOG.warn("Connection to core lost");
+            if (heartbeatTask != null) {
+                heartbeatTask.cancel(false);
+            }
+            channel = null;
+            scheduleReconnect();
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            LOG.warn("Error on core connection", cause);
+            ctx.close();
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, ByteBuf frame) {
+            heartbeat.onFrameReceived(System.nanoTime());
+            onFrame(ctx, frame);
+        }
+
+        /**
+         * Dispatches one NetIP message, either a frame of the connection or
+         * a message carried by a BATCH frame.
+         *
+         * @param ctx
+         *            the channel context
+         * @param frame
+         *            the message, header and payload being readable
+         */
+        private void onFrame(ChannelHandlerContext ctx, ByteBuf frame) {
+            CoreHeartbeat liveness = heartbeat;
+            // the frame decoder only passes on frames holding a whole header
+            MessageHeaderFlyweight header = flyweight.wrap(frame);
+            MessageType type = MessageType.lookup(header.getType());
+            if (type == null) {
+                LOG.warn("Discarding malformed frame from core");
+                return;
+            }
+            if (type == MessageType.BATCH) {
+                onBatchFrame(ctx, frame);
+                return;
+            }
+            if (type == MessageType.HEARTBEAT) {
+                if (!liveness.onHeartbeat(header.getTransactionId(), System.nanoTime())) {
+                    ctx.writeAndFlush(Unpooled.wrappedBuffer(CoreHeartbeat.echo(header.getTransactionId())));
+                }
+                return;
+            }
+            if (coreListener == null) {
+                return;
+            }
+            if (type == MessageType.OPENFLOW) {
+                // the pooled frame is released when this method returns, the
+                // listener may hand the payload to another thread and
+                // releases it
+                int length = frame.readableBytes() - MessageHeader.HEADER_BYTES;
+                ByteBuf payload = ctx.alloc().buffer(length);
+                payload.writeBytes(frame, header.payloadOffset(), length);
+                coreListener.onOpenFlowCoreMessage(header.getDatapathId(), payload, header.getModuleId());
+            } else if (type == MessageType.FRAGMENT) {
+                byte[] data = new byte[frame.readableBytes()];
+                frame.getBytes(frame.readerIndex(), data);
+                Message msg;
+                try {
+                    msg = reassembler.add(data);
+                } catch (IllegalArgumentException e) {
+                    LOG.warn("Discarding malformed frame from core", e);
+                    return;
+                }
+                // only OpenFlow messages grow beyond one frame
+                if (msg != null && msg.getHeader().getMessageType() == MessageType.OPENFLOW) {
+                    coreListener.onOpenFlowCoreMessage(msg.getHeader().getDatapathId(),
+                            Unpooled.wrappedBuffer(msg.getPayload()), msg.getHeader().getModuleId());
+                }
+            } else if (type == MessageType.HELLO) {
+                byte[] data = new byte[frame.readableBytes()];
+                frame.getBytes(frame.readerIndex(), data);
+                Message msg;
+                try {
+                    msg = NetIPConverter.parseConcreteMessage(data);
+                } catch (IllegalArgumentException e) {
+                    LOG.warn("Discarding malformed frame from core", e);
+                    return;
+                }
+                if (msg instanceof HelloMessage) {
+                    coreListener.onHelloCoreMessage(((HelloMessage) msg).getSupportedProtocols(),
+                            msg.getHeader().getModuleId());
+                }
+            }
+        }
+
+        /**
+         * Dispatches the messages carried by a BATCH frame in order.
+         *
+         * @param ctx
+         *            the channel context
+         * @param frame
+         *            the BATCH frame
+         */
+        private void onBatchFrame(ChannelHandlerContext ctx, ByteBuf frame) {
+            int offset = frame.readerIndex() + MessageHeader.HEADER_BYTES;
+            int limit = frame.writerIndex();
+            while (offset + MessageHeader.HEADER_BYTES <= limit) {
+                MessageHeaderFlyweight entry = flyweight.wrap(frame, offset);
+                int end = entry.payloadOffset() + entry.getPayloadLength();
+                if (end > limit) {
+                    LOG.warn("Discarding truncated message in BATCH frame from core");
+                    return;
+                }
+                if (entry.getType() == MessageType.BATCH.getValue()) {
+                    LOG.warn("Discarding nested BATCH frame from core");
+                } else {
+                    onFrame(ctx, frame.slice(offset, end - offset));
+                }
+                offset = end;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of frames written but not yet flushed to the socket.
+     *
+     * @return the outbound queue depth
+     */
+    @Override
+    public int getOutboundQueueDepth() {
+        Channel current = channel;
+        if (current == null) {
+            return 0;
+        }
+        ChannelOutboundBuffer buffer = current.unsafe().outboundBuffer();
+        return buffer == null ? 0 : buffer.size();
+    }
+
+    /**
+     * Gets the number of frames dropped because the connection was down or
+     * above its write high-water mark.
+     *
+     * @return the drop count
+     */
+    @Override
+    public long getOutboundDrops() {
+        return drops.get();
+    }
+
+    @Override
+    public long getOutboundEvictions() {
+        return 0;
+    }
+
+    @Override
+    public long getOutboundLowPriorityDrops() {
+        return 0;
+    }
+
+    @Override
+    public long getOutboundBlockedSends() {
+        return 0;
+    }
+
+    @Override
+    public boolean isCoreAlive() {
+        Channel current = channel;
+        if (current == null || !current.isActive()) {
+            return false;
+        }
+        return heartbeatIntervalMillis <= 0 || heartbeat.isAlive();
+    }
+
+    @Override
+    public long getCoreRttMicros() {
+        return heartbeat.getRttMicros();
+    }
+
+    @Override
+    public long getReconnects() {
+        return reconnects.get();
+    }
+
+    public void setHeartbeatIntervalMillis(int heartbeatIntervalMillis) {
+        this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+    }
+
+    public int getHeartbeatIntervalMillis() {
+        return heartbeatIntervalMillis;
+    }
+
+    public void setHeartbeatMisses(int heartbeatMisses) {
+        this.heartbeatMisses = heartbeatMisses;
+    }
+
+    public int getHeartbeatMisses() {
+        return heartbeatMisses;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+}
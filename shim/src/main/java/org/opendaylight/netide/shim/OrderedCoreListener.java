@@ -0,0 +1,169 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.netty.buffer.ByteBuf;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import org.javatuples.Pair;
+import org.opendaylight.netide.netiplib.Protocol;
+import org.opendaylight.netide.netiplib.ProtocolVersions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hands messages from the core over to a pool of single threaded partitions,
+ * so the connector thread only reads and routes frames. Messages are
+ * partitioned by datapath id: the messages of one switch are processed in
+ * order, different switches in parallel. HELLO messages use the first
+ * partition.
+ *
+ * The payload buffers passed in by the connector are owned by the message,
+ * so they can be handed to another thread as they are; the delegate releases
+ * them.
+ */
+public class OrderedCoreListener implements ICoreListener {
+    private static final Logger LOG = LoggerFactory.getLogger(OrderedCoreListener.class);
+
+    private final ICoreListener delegate;
+    private final ThreadPoolExecutor[] partitions;
+    private final AtomicLongArray processed;
+    private final AtomicLongArray serviceNanos;
+
+    /**
+     * Creates a new dispatcher.
+     *
+     * @param delegate
+     *            the listener doing the actual work
+     * @param threads
+     *            the number of partitions, 0 for one per available processor
+     */
+    public OrderedCoreListener(ICoreListener delegate, int threads) {
+        if (threads < 0) {
+            throw new IllegalArgumentException("Unexpected number of threads " + threads);
+        }
+        int count = threads == 0 ? Runtime.getRuntime().availableProcessors() : threads;
+        this.delegate = delegate;
+        this.partitions = new ThreadPoolExecutor[count];
+        this.processed = new AtomicLongArray(count);
+        this.serviceNanos = new AtomicLongArray(count);
+        ThreadFactory threadFactory = new ThreadFactoryBuilder().setNameFormat("netide-core-dispatch-%d")
+                .setDaemon(true).build();
+        for (int i = 0; i < count; i++) {
+            partitions[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<Runnable>(), threadFactory);
+        }
+    }
+
+    @Override
+    public void onOpenFlowCoreMessage(final Long datapathId, final ByteBuf msg, final int moduleId) {
+        long id = datapathId == null ? 0 : datapathId;
+        try {
+            submit(DatapathPartitioner.partitionOf(id, partitions.length), new Runnable() {
+                @Override
+                public void run() {
+                    delegate.onOpenFlowCoreMessage(datapathId, msg, moduleId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            msg.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public void onHelloCoreMessage(final List<Pair<Protocol, ProtocolVersions>> requiredVersion,
+            final int moduleId) {
+        submit(0, new Runnable() {
+            @Override
+            public void run() {
+                delegate.onHelloCoreMessage(requiredVersion, moduleId);
+            }
+        });
+    }
+
+    private void submit(final int partition, final Runnable task) {
+        partitions[partition].execute(new Runnable() {
+            @Override
+            public void run() {
+                long start = System.nanoTime();
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    LOG.error("Failed to process core message", e);
+                } finally {
+                    serviceNanos.addAndGet(partition, System.nanoTime() - start);
+                    processed.incrementAndGet(partition);
+                }
+            }
+        });
+    }
+
+    /**
+     * Stops the partitions once the queued messages are processed.
+     *
+     * @param timeout
+     *            the maximum time to wait
+     * @param unit
+     *            the unit of the timeout
+     * @throws InterruptedException
+     *             if interrupted while waiting
+     */
+    public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        for (ThreadPoolExecutor partition : partitions) {
+            partition.shutdown();
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (ThreadPoolExecutor partition : partitions) {
+            partition.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public int getPartitions() {
+        return partitions.length;
+    }
+
+    /**
+     * Gets the number of messages waiting in a partition.
+     *
+     * @param partition
+     *            the partition index
+     * @return the queue depth
+     */
+    public int getQueueDepth(int partition) {
+        return partitions[partition].getQueue().size();
+    }
+
+    /**
+     * Gets the number of messages a partition has processed.
+     *
+     * @param partition
+     *            the partition index
+     * @return the processed count
+     */
+    public long getProcessed(int partition) {
+        return processed.get(partition);
+    }
+
+    /**
+     * Gets the time a partition spent processing messages.
+     *
+     * @param partition
+     *            the partition index
+     * @return the total service time in nanoseconds
+     */
+    public long getServiceTimeNanos(int partition) {
+        return serviceNanos.get(partition);
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free ring buffer carrying NetIP frames from the ODL threads to
+ * the core connector thread.
+ *
+ * Every slot has a sequence number telling whether it is free for the
+ * producer claiming position n (sequence == n) or filled for the consumer
+ * (sequence == n + 1). Producers claim positions with a CAS on the producer
+ * index. The consumer index is advanced with a CAS as well, so a producer can
+ * evict the oldest frame while the connector thread is draining.
+ */
+public class OutboundRingBuffer {
+
+    private final int capacity;
+    private final int mask;
+    private final AtomicReferenceArray<byte[]> slots;
+    private final AtomicLongArray sequences;
+    private final AtomicLong producerIndex = new AtomicLong();
+    private final AtomicLong consumerIndex = new AtomicLong();
+    private final AtomicLong drops = new AtomicLong();
+
+    /**
+     * Creates a new ring buffer.
+     *
+     * @param requestedCapacity
+     *            the minimum capacity, rounded up to the next power of two
+     */
+    public OutboundRingBuffer(int requestedCapacity) {
+        if (requestedCapacity <= 0 || requestedCapacity > (1 << 30)) {
+            throw new IllegalArgumentException("Unexpected capacity " + requestedCapacity);
+        }
+        int rounded = 1;
+        while (rounded < requestedCapacity) {
+            rounded <<= 1;
+        }
+        capacity = rounded;
+        mask = capacity - 1;
+        slots = new AtomicReferenceArray<>(capacity);
+        sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    /**
+     * Appends a frame. Safe to call from any number of threads.
+     *
+     * @param frame
+     *            the frame
+     * @return false if the buffer is full and the frame was dropped
+     */
+    public boolean offer(byte[] frame) {
+        if (tryOffer(frame)) {
+            return true;
+        }
+        drops.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Appends a frame without counting a drop if the buffer is full, for
+     * callers applying their own overload policy.
+     *
+     * @param frame
+     *            the frame
+     * @return false if the buffer is full
+     */
+    public boolean tryOffer(byte[] frame) {
+        long position = producerIndex.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (producerIndex.compareAndSet(position, position + 1)) {
+                    slots.lazySet(index, frame);
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+            } else if (difference < 0) {
+                return false;
+            }
+            position = producerIndex.get();
+        }
+    }
+
+    /**
+     * Removes the oldest frame. Safe to call from any thread.
+     *
+     * @return the frame or null if the buffer is empty
+     */
+    public byte[] poll() {
+        long position = consumerIndex.get();
+        while (true) {
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - (position + 1);
+            if (difference == 0) {
+                if (consumerIndex.compareAndSet(position, position + 1)) {
+                    byte[] frame = slots.get(index);
+                    slots.lazySet(index, null);
+                    sequences.lazySet(index, position + capacity);
+                    return frame;
+                }
+            } else if (difference < 0) {
+                return null;
+            }
+            position = consumerIndex.get();
+        }
+    }
+
+    /**
+     * Checks whether there is nothing to consume.
+     *
+     * @return true if empty
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Gets the number of queued frames. The value is a snapshot and may be
+     * stale as soon as it is returned.
+     *
+     * @return the queue depth
+     */
+    public int size() {
+        long size = producerIndex.get() - consumerIndex.get();
+        if (size < 0) {
+            return 0;
+        }
+        return (int) Math.min(size, capacity);
+    }
+
+    /**
+     * Gets the capacity.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Gets the number of frames dropped because the buffer was full.
+     *
+     * @return the drop count
+     */
+    public long getDrops() {
+        return drops.get();
+    }
+}
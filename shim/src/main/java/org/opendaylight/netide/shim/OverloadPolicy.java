@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+/**
+ * What the core connector does with a frame when its outbound queue has
+ * reached the high-water mark.
+ */
+public enum OverloadPolicy {
+    /**
+     * Rejects the new frame.
+     */
+    DROP_NEWEST("drop-newest"),
+    /**
+     * Evicts the oldest queued frames to make room for the new one.
+     */
+    DROP_OLDEST("drop-oldest"),
+    /**
+     * Rejects statistics traffic once the queue is half full, other frames
+     * only when it is full.
+     */
+    DROP_LOW_PRIORITY("drop-low-priority"),
+    /**
+     * Makes the producer wait until the connector has drained the queue.
+     */
+    BLOCK("block");
+
+    private String value;
+
+    /**
+     * Instantiates a new overload policy.
+     *
+     * @param value the configuration value
+     */
+    OverloadPolicy(String value) {
+        this.value = value;
+    }
+
+    /**
+     * Gets the configuration value.
+     *
+     * @return the value
+     */
+    public String getValue() {
+        return this.value;
+    }
+
+    /**
+     * Parse overload policy.
+     *
+     * @param value the configuration value
+     * @return the overload policy
+     */
+    public static OverloadPolicy parse(final String value) {
+        for (OverloadPolicy c : OverloadPolicy.values()) {
+            if (c.value.equalsIgnoreCase(value)) {
+                return c;
+            }
+        }
+        throw new IllegalArgumentException("Unexpected value " + value);
+    }
+}
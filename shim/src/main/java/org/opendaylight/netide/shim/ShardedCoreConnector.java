@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.opendaylight.netide.netiplib.MessageHeader;
+import org.opendaylight.netide.netiplib.NetIPRouting;
+import org.zeromq.ZMQ;
+
+/**
+ * Group of core connections, each with its own DEALER socket and thread.
+ * Frames are routed by the datapath id in their NetIP header, so all traffic
+ * of one switch uses the same connection and keeps its order while different
+ * switches are spread over the connections.
+ *
+ * The first connection keeps the identity "shim", the others are named
+ * "shim-1" to "shim-(n-1)". Frames without a datapath, like HELLO, use the
+ * first connection. A core that only addresses "shim" keeps working, but its
+ * replies then all arrive on the first connection.
+ */
+public class ShardedCoreConnector implements ICoreConnector {
+
+    private final List<ZeroMQBaseConnector> shards;
+
+    /**
+     * Creates a group of connections sharing the given settings.
+     *
+     * @param configuration
+     *            the core connection settings
+     * @param connections
+     *            the number of connections
+     */
+    public ShardedCoreConnector(CoreConnectionConfiguration configuration, int connections) {
+        if (connections <= 0) {
+            throw new IllegalArgumentException("Unexpected number of connections " + connections);
+        }
+        List<ZeroMQBaseConnector> list = new ArrayList<>(connections);
+        for (int i = 0; i < connections; i++) {
+            ZeroMQBaseConnector shard = new ZeroMQBaseConnector();
+            shard.configure(configuration);
+            if (i > 0) {
+                shard.setIdentity(ZeroMQBaseConnector.DEFAULT_IDENTITY + "-" + i);
+            }
+            list.add(shard);
+        }
+        shards = Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Shares a ZeroMQ context with all connections, see
+     * {@link ZeroMQBaseConnector#setContext(org.zeromq.ZMQ.Context)}.
+     *
+     * @param context
+     *            the context
+     */
+    public void setContext(ZMQ.Context context) {
+        for (ZeroMQBaseConnector shard : shards) {
+            shard.setContext(context);
+        }
+    }
+
+    @Override
+    public void Start() {
+        for (ZeroMQBaseConnector shard : shards) {
+            shard.Start();
+        }
+    }
+
+    @Override
+    public void Stop() {
+        for (ZeroMQBaseConnector shard : shards) {
+            shard.Stop();
+        }
+    }
+
+    @Override
+    public boolean SendData(byte[] data) {
+        return shards.get(shardOf(data)).SendData(data);
+    }
+
+    @Override
+    public void RegisterCoreListener(ICoreListener listener) {
+        for (ZeroMQBaseConnector shard : shards) {
+            shard.RegisterCoreListener(listener);
+        }
+    }
+
+    /**
+     * Gets the index of the connection carrying a frame.
+     *
+     * @param data
+     *            the NetIP frame
+     * @return the connection index
+     */
+    int shardOf(byte[] data) {
+        if (shards.size() == 1 || data.length < MessageHeader.HEADER_BYTES) {
+            return 0;
+        }
+        return DatapathPartitioner.partitionOf(NetIPRouting.datapathId(data), shards.size());
+    }
+
+    public List<ZeroMQBaseConnector> getShards() {
+        return shards;
+    }
+
+    @Override
+    public int getOutboundQueueDepth() {
+        int depth = 0;
+        for (ZeroMQBaseConnector shard : shards) {
+            depth += shard.getOutboundQueueDepth();
+        }
+        return depth;
+    }
+
+    @Override
+    public long getOutboundDrops() {
+        long drops = 0;
+        for (ZeroMQBaseConnector shard : shards) {
+            drops += shard.getOutboundDrops();
+        }
+        return drops;
+    }
+
+    @Override
+    public long getOutboundEvictions() {
+        long evictions = 0;
+        for (ZeroMQBaseConnector shard : shards) {
+            evictions += shard.getOutboundEvictions();
+        }
+        return evictions;
+    }
+
+    @Override
+    public long getOutboundLowPriorityDrops() {
+        long drops = 0;
+        for (ZeroMQBaseConnector shard : shards) {
+            drops += shard.getOutboundLowPriorityDrops();
+        }
+        return drops;
+    }
+
+    @Override
+    public long getOutboundBlockedSends() {
+        long blocked = 0;
+        for (ZeroMQBaseConnector shard : shards) {
+            blocked += shard.getOutboundBlockedSends();
+        }
+        return blocked;
+    }
+
+    /**
+     * Checks whether the core is alive on every connection.
+     *
+     * @return true if all connections are alive
+     */
+    @Override
+    public boolean isCoreAlive() {
+        for (ZeroMQBaseConnector shard : shards) {
+            if (!shard.isCoreAlive()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the highest round trip time of all connections.
+     *
+     * @return the round trip time in microseconds, -1 if unknown
+     */
+    @Override
+    public long getCoreRttMicros() {
+        long rtt = -1;
+        for (ZeroMQBaseConnector shard : shards) {
+            rtt = Math.max(rtt, shard.getCoreRttMicros());
+        }
+        return rtt;
+    }
+
+    @Override
+    public long getReconnects() {
+        long reconnects = 0;
+        for (ZeroMQBaseConnector shard : shards) {
+            reconnects += shard.getReconnects();
+        }
+        return reconnects;
+    }
+}
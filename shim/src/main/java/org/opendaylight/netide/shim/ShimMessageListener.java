@@ -62,7 +62,7 @@ public class ShimMessageListener
     private static final Logger LOG = LoggerFactory.getLogger(ShimMessageListener.class);
     private ConnectionAdaptersRegistry connectionRegistry;
     public static final Long DEFAULT_XID = 0x01020304L;
-    private ZeroMQBaseConnector coreConnector;
+    private ICoreConnector coreConnector;
     private ConnectionAdapter switchConnection;
     private IHandshakeListener handshakeListener;
     private ShimRelay shimRelay;
@@ -73,8 +73,13 @@ public class ShimMessageListener
     SessionContextOFImpl sc;
     private NotificationPublishService notificationProviderService;
     final ConvertorManager convertorManager;
+    /**
+     * The capture sending PACKET_IN messages of the switch to the core, null
+     * if they are only sent once decoded.
+     */
+    private volatile SwitchFrameCapture frameCapture;
 
-    public ShimMessageListener(ZeroMQBaseConnector connector, ConnectionAdapter switchConnection, ShimRelay _shimRelay,
+    public ShimMessageListener(ICoreConnector connector, ConnectionAdapter switchConnection, ShimRelay _shimRelay,
             ShimSwitchConnectionHandlerImpl handler, NotificationPublishService _notificationProviderService) {
         this.coreConnector = connector;
         this.switchConnection = switchConnection;
@@ -137,6 +142,10 @@ public class ShimMessageListener
         this.handshakeListener = listener;
     }
 
+    public void setFrameCapture(SwitchFrameCapture frameCapture) {
+        this.frameCapture = frameCapture;
+    }
+
     private void sendNotification(OfHeader message, String messageClass) {
         TranslatorKey key = new TranslatorKey(message.getVersion(), messageClass);
 
@@ -232,8 +241,11 @@ public class ShimMessageListener
             BigInteger datapathId = this.connectionRegistry.getDatapathID(this.switchConnection);
             initSession(connectionRegistry.getFeaturesOutput(switchConnection));
             sendNotification(arg0, arg0.getImplementedInterface().getName());
-            shimRelay.sendOpenFlowMessageToCore(coreConnector, arg0, arg0.getVersion(), arg0.getXid(),
-                    datapathId.longValue(), 0);
+            SwitchFrameCapture capture = frameCapture;
+            if (capture == null || !capture.isPassingOnCaptured()) {
+                shimRelay.sendOpenFlowMessageToCore(coreConnector, arg0, arg0.getVersion(), arg0.getXid(),
+                        datapathId.longValue(), 0);
+            }
         }
     }
 
@@ -9,48 +9,28 @@ package org.opendaylight.netide.shim;
 
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
-import com.google.common.util.concurrent.JdkFutureAdapters;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Future;
-import org.opendaylight.netide.netiplib.Message;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.opendaylight.netide.netiplib.FragmentMessage;
+import org.opendaylight.netide.netiplib.MessageHeader;
 import org.opendaylight.netide.netiplib.MessageType;
-import org.opendaylight.netide.netiplib.NetIPUtils;
+import org.opendaylight.netide.netiplib.NetIPConverter;
+import org.opendaylight.netide.netiplib.OpenFlowCodecs;
 import org.opendaylight.openflowjava.protocol.api.connection.ConnectionAdapter;
-import org.opendaylight.openflowjava.protocol.api.extensibility.DeserializerRegistry;
-import org.opendaylight.openflowjava.protocol.api.extensibility.SerializerRegistry;
+import org.opendaylight.openflowjava.protocol.api.util.EncodeConstants;
 import org.opendaylight.openflowjava.protocol.impl.deserialization.DeserializationFactory;
-import org.opendaylight.openflowjava.protocol.impl.deserialization.DeserializerRegistryImpl;
 import org.opendaylight.openflowjava.protocol.impl.serialization.SerializationFactory;
-import org.opendaylight.openflowjava.protocol.impl.serialization.SerializerRegistryImpl;
-import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.BarrierInput;
-import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.BarrierOutput;
-import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.EchoInput;
-import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.EchoInputBuilder;
-import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.EchoOutput;
-import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.EchoReplyInputBuilder;
-import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.EchoRequestMessage;
-import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.ExperimenterInput;
-import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.FlowModInput;
-import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.GetAsyncInput;
-import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.GetAsyncOutput;
-import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.GetConfigInput;
-import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.GetConfigOutput;
-import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.GetFeaturesInput;
-import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.GetFeaturesOutput;
-import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.GetQueueConfigInput;
-import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.GetQueueConfigOutput;
-import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.GroupModInput;
-import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.HelloInput;
-import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.MeterModInput;
-import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.MultipartRequestInput;
-import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.PacketOutInput;
-import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.PortModInput;
-import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.RoleRequestInput;
-import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.RoleRequestOutput;
-import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.SetAsyncInput;
-import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.SetConfigInput;
-import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.TableModInput;
 import org.opendaylight.yangtools.yang.binding.DataObject;
 import org.opendaylight.yangtools.yang.common.RpcError;
 import org.opendaylight.yangtools.yang.common.RpcResult;
@@ -63,161 +43,326 @@ import org.slf4j.LoggerFactory;
  */
 public class ShimRelay {
     private static final Logger LOG = LoggerFactory.getLogger(ShimRelay.class);
-
-    public SerializationFactory createSerializationFactory() {
-        return new SerializationFactory();
+    private static final int OPENFLOW_HEADER_BYTES = 8;
+    private static final short PACKET_OUT_TYPE = 13;
+    private static final short FLOW_MOD_TYPE = 14;
+    private static final short OF13_GROUP_MOD_TYPE = 15;
+    /**
+     * The handlers of the messages sent to switches out of the box, keyed by
+     * the interface they implement.
+     */
+    private static final Map<Class<? extends DataObject>, SwitchMessageHandler> DEFAULT_HANDLERS;
+
+    static {
+        Map<Class<? extends DataObject>, SwitchMessageHandler> defaults = new HashMap<>();
+        for (DefaultSwitchMessageHandler handler : DefaultSwitchMessageHandler.values()) {
+            defaults.put(handler.getType(), handler);
+        }
+        DEFAULT_HANDLERS = Collections.unmodifiableMap(defaults);
     }
 
-    public DeserializationFactory createDeserializationFactory() {
-        return new DeserializationFactory();
+    private final OpenFlowCodecs codecs;
+    private final SwitchReplies switchReplies;
+    /**
+     * Requests relayed to switches whose answer is still awaited.
+     */
+    private final AtomicInteger outstandingRequests = new AtomicInteger();
+    /**
+     * Allocates the buffers messages to the core are serialized into.
+     */
+    private ByteBufAllocator allocator = PooledByteBufAllocator.DEFAULT;
+    /**
+     * Finds the handler of a message with one lookup, instead of comparing
+     * its interface with every known one.
+     */
+    private final Map<Class<? extends DataObject>, SwitchMessageHandler> handlers = new ConcurrentHashMap<>(
+            DEFAULT_HANDLERS);
+    /**
+     * Whether the core accepts FRAGMENT messages, see {@link FragmentMessage}.
+     */
+    private volatile boolean fragmentationEnabled;
+    /**
+     * Whether messages the shim does not need to inspect are written to
+     * switches as received from the core, see
+     * {@link #forwardRawToSwitch(ConnectionAdapter, ByteBuf, short)}.
+     */
+    private volatile boolean rawForwardingEnabled;
+    /**
+     * The last message sent through the adapter of each switch while raw
+     * forwarding is enabled, see
+     * {@link #forwardRawToSwitch(ConnectionAdapter, ByteBuf, short)}.
+     */
+    private final ConcurrentMap<ConnectionAdapter, Future<?>> decodedWrites = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a relay using the default codecs of netiplib, for callers that
+     * are not handed the codecs of the bundle.
+     */
+    public ShimRelay() {
+        this(OpenFlowCodecs.getDefault());
     }
 
-    public void sendOpenFlowMessageToCore(ZeroMQBaseConnector coreConnector, DataObject msg, short ofVersion, long xId,
-            long datapathId, int moduleId) {
-
-        SerializationFactory factory = createSerializationFactory();
-        SerializerRegistry registry = new SerializerRegistryImpl();
-        registry.init();
-        ByteBuf output = UnpooledByteBufAllocator.DEFAULT.buffer();
-        factory.setSerializerTable(registry);
-        factory.messageToBuffer(ofVersion, output, msg);
-        byte[] bytes = new byte[output.readableBytes()];
-        output.readBytes(bytes);
-        Message message = new Message(NetIPUtils.StubHeaderFromPayload(bytes), bytes);
-        message.getHeader().setMessageType(MessageType.OPENFLOW);
-        message.getHeader().setDatapathId(datapathId);
-        message.getHeader().setModuleId(moduleId);
-        message.getHeader().setTransactionId((int) xId);
-        coreConnector.SendData(message.toByteRepresentation());
+    /**
+     * Creates a relay using the given codecs for every message.
+     *
+     * @param codecs
+     *            the shared OpenFlow codecs
+     */
+    public ShimRelay(OpenFlowCodecs codecs) {
+        this(codecs, new SwitchReplies());
     }
 
-    public void sendToSwitch(ConnectionAdapter connectionAdapter, ByteBuf input, short ofVersion,
-            ZeroMQBaseConnector coreConnector, long datapathId, int moduleId) {
-
-        DeserializationFactory factory = createDeserializationFactory();
-        DeserializerRegistry registry = new DeserializerRegistryImpl();
-        registry.init();
-        factory.setRegistry(registry);
-        DataObject msg = factory.deserialize(input, ofVersion);
-        sendDataObjectToSwitch(connectionAdapter, msg, ofVersion, coreConnector, datapathId, moduleId);
+    /**
+     * Creates a relay using the given codecs for every message and awaiting
+     * the answers of switches with the given replies.
+     *
+     * @param codecs
+     *            the shared OpenFlow codecs
+     * @param switchReplies
+     *            the replies, owned by the caller
+     */
+    public ShimRelay(OpenFlowCodecs codecs, SwitchReplies switchReplies) {
+        this.codecs = codecs;
+        this.switchReplies = switchReplies;
     }
 
-    public void sendDataObjectToSwitch(ConnectionAdapter connectionAdapter, DataObject msg, short ofVersion,
-            ZeroMQBaseConnector coreConnector, long datapathId, int moduleId) {
-
-        if (getImplementedInterface(msg).equals(BarrierInput.class.getName())) {
-            Future<RpcResult<BarrierOutput>> reply = connectionAdapter.barrier((BarrierInput) msg);
-            sendResponseToCore(reply, coreConnector, ofVersion, ((BarrierInput) msg).getXid(), datapathId, moduleId);
-
-        } else if (getImplementedInterface(msg).equals(EchoInput.class.getName())) {
-
-            Future<RpcResult<EchoOutput>> reply = connectionAdapter.echo((EchoInput) msg);
-            sendResponseToCore(reply, coreConnector, ofVersion, ((EchoInput) msg).getXid(), datapathId, moduleId);
-
-        } else if (getImplementedInterface(msg).equals(EchoRequestMessage.class.getName())) {
-            EchoInputBuilder builder = new EchoInputBuilder();
-            EchoRequestMessage echoRequestMessage = (EchoRequestMessage) msg;
-            if (echoRequestMessage.getData() != null)
-                builder.setData(echoRequestMessage.getData());
-            builder.setVersion(echoRequestMessage.getVersion());
-            builder.setXid(echoRequestMessage.getXid());
-            Future<RpcResult<EchoOutput>> reply = connectionAdapter.echo(builder.build());
-            sendResponseToCore(reply, coreConnector, ofVersion, echoRequestMessage.getXid(), datapathId, moduleId);
+    /**
+     * Gets the shared serialization factory, its registry is already set.
+     *
+     * @return the serialization factory
+     */
+    public SerializationFactory createSerializationFactory() {
+        return codecs.getSerializationFactory();
+    }
 
-        } else if (getImplementedInterface(msg).equals(EchoOutput.class.getName())) {
+    /**
+     * Gets the shared deserialization factory, its registry is already set.
+     *
+     * @return the deserialization factory
+     */
+    public DeserializationFactory createDeserializationFactory() {
+        return codecs.getDeserializationFactory();
+    }
 
-            EchoReplyInputBuilder builder = new EchoReplyInputBuilder();
-            builder.setVersion(((EchoOutput) msg).getVersion());
-            builder.setXid(((EchoOutput) msg).getXid());
-            builder.setData(((EchoOutput) msg).getData());
-            connectionAdapter.echoReply(builder.build());
+    public boolean isFragmentationEnabled() {
+        return fragmentationEnabled;
+    }
 
-        } else if (getImplementedInterface(msg).equals(ExperimenterInput.class.getName())) {
+    /**
+     * Allows messages too long for one NetIP frame, like large multipart
+     * replies, to be sent to the core as FRAGMENT messages. Without it they
+     * are dropped.
+     *
+     * @param fragmentationEnabled
+     *            whether the core negotiated fragmentation
+     */
+    public void setFragmentationEnabled(boolean fragmentationEnabled) {
+        this.fragmentationEnabled = fragmentationEnabled;
+    }
 
-            connectionAdapter.experimenter((ExperimenterInput) msg);
+    /**
+     * Sets the allocator of the buffers messages to the core are serialized
+     * into, the pooled allocator of Netty by default.
+     *
+     * @param allocator
+     *            the allocator
+     */
+    public void setAllocator(ByteBufAllocator allocator) {
+        this.allocator = allocator;
+    }
 
-        } else if (getImplementedInterface(msg).equals(FlowModInput.class.getName())) {
+    public boolean isRawForwardingEnabled() {
+        return rawForwardingEnabled;
+    }
 
-            connectionAdapter.flowMod((FlowModInput) msg);
+    public void setRawForwardingEnabled(boolean rawForwardingEnabled) {
+        this.rawForwardingEnabled = rawForwardingEnabled;
+    }
 
-        } else if (getImplementedInterface(msg).equals(GetAsyncInput.class.getName())) {
+    public void sendOpenFlowMessageToCore(ICoreConnector coreConnector, DataObject msg, short ofVersion, long xId,
+            long datapathId, int moduleId) {
 
-            Future<RpcResult<GetAsyncOutput>> reply = connectionAdapter.getAsync((GetAsyncInput) msg);
-            sendResponseToCore(reply, coreConnector, ofVersion, ((GetAsyncInput) msg).getXid(), datapathId, moduleId);
+        SerializationFactory factory = createSerializationFactory();
+        ByteBuf output = allocator.buffer();
+        try {
+            factory.messageToBuffer(ofVersion, output, msg);
+            MessageHeader header = new MessageHeader();
+            header.setPayloadLength((short) output.readableBytes());
+            header.setMessageType(MessageType.OPENFLOW);
+            header.setDatapathId(datapathId);
+            header.setModuleId(moduleId);
+            header.setTransactionId((int) xId);
+            if (output.readableBytes() > MessageHeader.MAX_PAYLOAD_BYTES) {
+                if (!fragmentationEnabled) {
+                    LOG.warn("SHIM RELAY: dropping OpenFlow message of {} bytes, the core does not accept fragments",
+                            output.readableBytes());
+                    return;
+                }
+                // the fragments share the datapath id and keep their order
+                for (byte[] fragment : NetIPConverter.toFragmentFrames(header, output,
+                        FragmentMessage.MAX_DATA_BYTES)) {
+                    coreConnector.SendData(fragment);
+                }
+                return;
+            }
+            // the serialized message is copied once, straight behind the header
+            coreConnector.SendData(NetIPConverter.toFrame(header, output));
+        } finally {
+            output.release();
+        }
+    }
 
-        } else if (getImplementedInterface(msg).equals(GetConfigInput.class.getName())) {
+    public void sendToSwitch(ConnectionAdapter connectionAdapter, ByteBuf input, short ofVersion,
+            ICoreConnector coreConnector, long datapathId, int moduleId) {
 
-            Future<RpcResult<GetConfigOutput>> reply = connectionAdapter.getConfig((GetConfigInput) msg);
-            sendResponseToCore(reply, coreConnector, ofVersion, ((GetConfigInput) msg).getXid(), datapathId, moduleId);
+        DeserializationFactory factory = createDeserializationFactory();
+        DataObject msg = factory.deserialize(input, ofVersion);
+        sendDataObjectToSwitch(connectionAdapter, msg, ofVersion, coreConnector, datapathId, moduleId);
+    }
 
-        } else if (getImplementedInterface(msg).equals(GetFeaturesInput.class.getName())) {
+    /**
+     * Writes a FLOW_MOD, PACKET_OUT or, for OpenFlow 1.3, GROUP_MOD message
+     * to the switch channel as received from the core, instead of decoding it
+     * only to have openflowjava encode it again. The switch does not answer
+     * these messages, so nothing has to be correlated; errors it reports carry
+     * the xid of the core and are relayed like any other message.
+     *
+     * Other messages, messages of another version than the one negotiated
+     * with the switch and messages for a switch whose channel is not writable
+     * are left to {@link #sendToSwitch}. openflowjava queues the messages sent
+     * through the connection adapter and writes them later, so a raw write
+     * could overtake them. A message is therefore only written raw once the
+     * last message sent to the switch through the adapter has been written or
+     * answered; until then it takes the decoded path behind it.
+     *
+     * If the channel of a connection cannot be found, e.g. because
+     * openflowjava changed how adapters hold it, raw forwarding is switched
+     * off for good.
+     *
+     * @param connectionAdapter
+     *            the switch connection
+     * @param input
+     *            the message, read up to and including the version byte as
+     *            for {@link #sendToSwitch}; it is not consumed
+     * @param negotiatedVersion
+     *            the OpenFlow version negotiated with the switch
+     * @return true if the message was written, false if it has to be sent with
+     *         {@link #sendToSwitch}
+     */
+    public boolean forwardRawToSwitch(ConnectionAdapter connectionAdapter, ByteBuf input, short negotiatedVersion) {
+        if (!rawForwardingEnabled || input.readerIndex() == 0) {
+            return false;
+        }
+        int start = input.readerIndex() - 1;
+        if (input.writerIndex() - start < OPENFLOW_HEADER_BYTES
+                || input.getUnsignedByte(start) != negotiatedVersion
+                || !isRawForwardable(negotiatedVersion, input.getUnsignedByte(start + 1))) {
+            return false;
+        }
+        int length = input.getUnsignedShort(start + 2);
+        if (length < OPENFLOW_HEADER_BYTES || length > input.writerIndex() - start) {
+            return false;
+        }
+        Future<?> decodedWrite = decodedWrites.get(connectionAdapter);
+        if (decodedWrite != null && !decodedWrite.isDone()) {
+            return false;
+        }
+        Channel channel = SwitchChannels.channelOf(connectionAdapter);
+        if (channel == null) {
+            rawForwardingEnabled = false;
+            LOG.warn("SHIM RELAY: no channel found in {}, raw forwarding disabled",
+                    connectionAdapter.getClass().getName());
+            return false;
+        }
+        if (!channel.isWritable()) {
+            return false;
+        }
+        // the write releases the slice once the bytes are sent
+        channel.writeAndFlush(input.slice(start, length).retain());
+        return true;
+    }
 
-            Future<RpcResult<GetFeaturesOutput>> reply = connectionAdapter.getFeatures((GetFeaturesInput) msg);
-            sendResponseToCore(reply, coreConnector, ofVersion, ((GetFeaturesInput) msg).getXid(), datapathId,
-                    moduleId);
+    private static boolean isRawForwardable(short version, short type) {
+        if (type == FLOW_MOD_TYPE || type == PACKET_OUT_TYPE) {
+            return version == EncodeConstants.OF10_VERSION_ID || version == EncodeConstants.OF13_VERSION_ID;
+        }
+        return type == OF13_GROUP_MOD_TYPE && version == EncodeConstants.OF13_VERSION_ID;
+    }
 
-        } else if (getImplementedInterface(msg).equals(GetQueueConfigInput.class.getName())) {
+    public void sendDataObjectToSwitch(ConnectionAdapter connectionAdapter, DataObject msg, short ofVersion,
+            ICoreConnector coreConnector, long datapathId, int moduleId) {
 
-            Future<RpcResult<GetQueueConfigOutput>> reply = connectionAdapter.getQueueConfig((GetQueueConfigInput) msg);
-            sendResponseToCore(reply, coreConnector, ofVersion, ((GetQueueConfigInput) msg).getXid(), datapathId,
+        SwitchMessageHandler handler = handlers.get(msg.getImplementedInterface());
+        if (handler != null) {
+            Future<?> sent = handler.handle(this, connectionAdapter, msg, ofVersion, coreConnector, datapathId,
                     moduleId);
+            if (rawForwardingEnabled && sent != null) {
+                trackDecodedWrite(connectionAdapter, sent);
+            }
+        } else {
+            LOG.info("SHIM RELAY: Dataobject not recognized " + msg.getImplementedInterface().getName());
+        }
 
-        } else if (getImplementedInterface(msg).equals(GroupModInput.class.getName())) {
-
-            connectionAdapter.groupMod((GroupModInput) msg);
-
-        } else if (getImplementedInterface(msg).equals(HelloInput.class.getName())) {
-
-            connectionAdapter.hello((HelloInput) msg);
-
-        } else if (getImplementedInterface(msg).equals(MeterModInput.class.getName())) {
-
-            connectionAdapter.meterMod((MeterModInput) msg);
-
-        } else if (getImplementedInterface(msg).equals(MultipartRequestInput.class.getName())) {
-
-            connectionAdapter.multipartRequest((MultipartRequestInput) msg);
-
-        } else if (getImplementedInterface(msg).equals(PacketOutInput.class.getName())) {
-
-            connectionAdapter.packetOut((PacketOutInput) msg);
-
-        } else if (getImplementedInterface(msg).equals(PortModInput.class.getName())) {
-
-            connectionAdapter.portMod((PortModInput) msg);
-
-        } else if (getImplementedInterface(msg).equals(SetAsyncInput.class.getName())) {
-
-            connectionAdapter.setAsync((SetAsyncInput) msg);
-
-        } else if (getImplementedInterface(msg).equals(SetConfigInput.class.getName())) {
-
-            connectionAdapter.setConfig((SetConfigInput) msg);
-
-        } else if (getImplementedInterface(msg).equals(TableModInput.class.getName())) {
-            connectionAdapter.tableMod((TableModInput) msg);
+    }
 
-        } else if (getImplementedInterface(msg).equals(RoleRequestInput.class.getName())) {
-            Future<RpcResult<RoleRequestOutput>> reply = connectionAdapter.roleRequest((RoleRequestInput) msg);
-            sendResponseToCore(reply, coreConnector, ofVersion, ((RoleRequestInput) msg).getXid(), datapathId,
-                    moduleId);
-        } else {
-            LOG.info("SHIM RELAY: Dataobject not recognized " + getImplementedInterface(msg));
+    /**
+     * Remembers the last message sent to a switch through its adapter, until
+     * it has been written or answered.
+     */
+    private void trackDecodedWrite(final ConnectionAdapter connectionAdapter, final Future<?> sent) {
+        decodedWrites.put(connectionAdapter, sent);
+        if (sent instanceof ListenableFuture) {
+            ((ListenableFuture<?>) sent).addListener(new Runnable() {
+                @Override
+                public void run() {
+                    decodedWrites.remove(connectionAdapter, sent);
+                }
+            }, MoreExecutors.sameThreadExecutor());
         }
+    }
 
+    /**
+     * Registers the handler sending messages implementing the given interface
+     * to switches, replacing the one registered before, if any.
+     *
+     * @param type
+     *            the implemented interface of the messages
+     * @param handler
+     *            the handler
+     */
+    public void registerHandler(Class<? extends DataObject> type, SwitchMessageHandler handler) {
+        if (handler == null) {
+            throw new IllegalArgumentException("Handler cannot be null");
+        }
+        handlers.put(type, handler);
     }
 
     public String getImplementedInterface(DataObject message) {
         return message.getImplementedInterface().getName();
     }
 
+    /**
+     * Gets the number of requests relayed to switches whose answer is still
+     * awaited.
+     *
+     * @return the outstanding requests
+     */
+    public int getOutstandingRequests() {
+        return outstandingRequests.get();
+    }
+
     public <E extends DataObject> void sendResponseToCore(Future<RpcResult<E>> switchReply,
-            final ZeroMQBaseConnector coreConnector, final short ofVersion, final long xId, final long datapathId,
+            final ICoreConnector coreConnector, final short ofVersion, final long xId, final long datapathId,
             final int moduleId) {
 
-        Futures.addCallback(JdkFutureAdapters.listenInPoolThread(switchReply), new FutureCallback<RpcResult<E>>() {
+        outstandingRequests.incrementAndGet();
+        // the callback runs on the thread completing the reply, usually the
+        // event loop of the switch channel, or on the timer of the replies
+        // once the switch took too long
+        Futures.addCallback(switchReplies.listenable(switchReply), new FutureCallback<RpcResult<E>>() {
             @Override
             public void onSuccess(RpcResult<E> rpcReply) {
+                outstandingRequests.decrementAndGet();
                 if (rpcReply.isSuccessful()) {
                     E result = rpcReply.getResult();
 
@@ -231,7 +376,8 @@ public class ShimRelay {
 
             @Override
             public void onFailure(Throwable t) {
-                LOG.info("SHIM RELAY: failure on communication with switch");
+                outstandingRequests.decrementAndGet();
+                LOG.info("SHIM RELAY: failure on communication with switch: {}", t.getMessage());
             }
         });
     }
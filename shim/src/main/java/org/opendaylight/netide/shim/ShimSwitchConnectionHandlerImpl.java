@@ -9,8 +9,9 @@ package org.opendaylight.netide.shim;
 
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
-import com.google.common.util.concurrent.JdkFutureAdapters;
 import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelPipeline;
 import java.math.BigInteger;
 import java.net.Inet4Address;
 import java.net.Inet6Address;
@@ -22,11 +23,15 @@ import java.util.List;
 import java.util.concurrent.Future;
 import org.javatuples.Pair;
 import org.opendaylight.controller.md.sal.binding.api.NotificationPublishService;
+import org.opendaylight.netide.netiplib.BatchMessage;
+import org.opendaylight.netide.netiplib.FragmentMessage;
 import org.opendaylight.netide.netiplib.HelloMessage;
+import org.opendaylight.netide.netiplib.OpenFlowCodecs;
 import org.opendaylight.netide.netiplib.Protocol;
 import org.opendaylight.netide.netiplib.ProtocolVersions;
 import org.opendaylight.openflowjava.protocol.api.connection.ConnectionAdapter;
 import org.opendaylight.openflowjava.protocol.api.connection.SwitchConnectionHandler;
+import org.opendaylight.openflowjava.protocol.impl.core.PipelineHandlers;
 import org.opendaylight.openflowplugin.openflow.md.core.sal.SwitchFeaturesUtil;
 import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.IpAddress;
 import org.opendaylight.yang.gen.v1.urn.ietf.params.xml.ns.yang.ietf.inet.types.rev130715.Ipv4Address;
@@ -57,19 +62,39 @@ public class ShimSwitchConnectionHandlerImpl implements SwitchConnectionHandler,
     public static final Long DEFAULT_XID = 0x01L;
     private static final Logger LOG = LoggerFactory.getLogger(ShimSwitchConnectionHandlerImpl.class);
 
-    private static ZeroMQBaseConnector coreConnector;
+    private final ICoreConnector coreConnector;
     private ConnectionAdaptersRegistry connectionRegistry;
     private Pair<Protocol, ProtocolVersions> supportedProtocol;
     List<Pair<Protocol, ProtocolVersions>> supportedProtocols;
     private ShimRelay shimRelay;
+    private final OpenFlowCodecs codecs;
+    private final SwitchReplies switchReplies = new SwitchReplies();
     private NotificationPublishService notificationProviderService;
     HashMap<InetSocketAddress, ShimMessageListener> mapListeners;
     HashMap<InetSocketAddress, GetFeaturesOutput> mapFeatures;
     SwitchFeaturesUtil swFeaturesUtil;
+    private boolean rawCaptureEnabled;
+    private boolean packetInNotificationsEnabled = true;
 
-    public ShimSwitchConnectionHandlerImpl(ZeroMQBaseConnector connector,
+    public ShimSwitchConnectionHandlerImpl(ICoreConnector connector,
             NotificationPublishService _notificationProviderService) {
+        this(connector, _notificationProviderService, OpenFlowCodecs.getDefault());
+    }
+
+    /**
+     * Creates the handler relaying with the given codecs.
+     *
+     * @param connector
+     *            the connector to the core
+     * @param _notificationProviderService
+     *            the notification service
+     * @param codecs
+     *            the OpenFlow codecs of the bundle, used by the relay
+     */
+    public ShimSwitchConnectionHandlerImpl(ICoreConnector connector,
+            NotificationPublishService _notificationProviderService, OpenFlowCodecs codecs) {
         coreConnector = connector;
+        this.codecs = codecs;
         supportedProtocol = null;
         supportedProtocols = new ArrayList<>();
         mapListeners = new HashMap<>();
@@ -91,7 +116,43 @@ public class ShimSwitchConnectionHandlerImpl implements SwitchConnectionHandler,
     }
 
     public ShimRelay createShimRelay() {
-        return new ShimRelay();
+        return new ShimRelay(codecs, switchReplies);
+    }
+
+    /**
+     * Stops awaiting the answers of switches. Has to be called once the
+     * switch connections are shut down.
+     */
+    public void close() {
+        switchReplies.close();
+    }
+
+    /**
+     * Lets FLOW_MOD, PACKET_OUT and GROUP_MOD messages from the core reach
+     * switches without being decoded, see
+     * {@link ShimRelay#forwardRawToSwitch(ConnectionAdapter, ByteBuf, short)}.
+     * Has to be called after {@link #init()}.
+     *
+     * @param rawForwardingEnabled
+     *            whether raw forwarding is used
+     */
+    public void setRawForwardingEnabled(boolean rawForwardingEnabled) {
+        shimRelay.setRawForwardingEnabled(rawForwardingEnabled);
+    }
+
+    /**
+     * Lets PACKET_IN messages from switches connecting from now on reach the
+     * core without being decoded, see {@link SwitchFrameCapture}.
+     *
+     * @param rawCaptureEnabled
+     *            whether raw capture is used
+     * @param packetInNotificationsEnabled
+     *            whether captured messages are still decoded to be published
+     *            as MD-SAL notifications
+     */
+    public void setRawCaptureEnabled(boolean rawCaptureEnabled, boolean packetInNotificationsEnabled) {
+        this.rawCaptureEnabled = rawCaptureEnabled;
+        this.packetInNotificationsEnabled = packetInNotificationsEnabled;
     }
 
     public ConnectionAdaptersRegistry createConnectionAdaptersRegistry() {
@@ -116,9 +177,37 @@ public class ShimSwitchConnectionHandlerImpl implements SwitchConnectionHandler,
         connectionAdapter.setMessageListener(listener);
         connectionAdapter.setSystemListener(listener);
         connectionAdapter.setConnectionReadyListener(listener);
+        if (rawCaptureEnabled) {
+            installFrameCapture(connectionAdapter, listener);
+        }
         handshake(connectionAdapter);
     }
 
+    private void installFrameCapture(final ConnectionAdapter connectionAdapter,
+            final ShimMessageListener listener) {
+        final Channel channel = SwitchChannels.channelOf(connectionAdapter);
+        if (channel == null) {
+            return;
+        }
+        final SwitchFrameCapture capture = new SwitchFrameCapture(coreConnector, connectionRegistry,
+                connectionAdapter, packetInNotificationsEnabled);
+        // openflowjava builds the pipeline once this callback returns, on the
+        // event loop of the channel
+        channel.eventLoop().execute(new Runnable() {
+            @Override
+            public void run() {
+                ChannelPipeline pipeline = channel.pipeline();
+                if (pipeline.get(PipelineHandlers.OF_FRAME_DECODER.name()) == null) {
+                    LOG.warn("No OpenFlow frame decoder for {}, PACKET_IN messages are decoded",
+                            connectionAdapter.getRemoteAddress());
+                    return;
+                }
+                listener.setFrameCapture(capture);
+                pipeline.addAfter(PipelineHandlers.OF_FRAME_DECODER.name(), SwitchFrameCapture.NAME, capture);
+            }
+        });
+    }
+
     public void handshake(ConnectionAdapter connectionAdapter) {
         HelloInputBuilder builder = new HelloInputBuilder();
         builder.setVersion((short) getMaxOFSupportedProtocol());
@@ -235,23 +324,44 @@ public class ShimSwitchConnectionHandlerImpl implements SwitchConnectionHandler,
 
     @Override
     public void onOpenFlowCoreMessage(Long datapathId, ByteBuf msg, int moduleId) {
-        ConnectionAdapter conn = connectionRegistry.getConnectionAdapter(datapathId);
-
-        if (conn != null) {
-            short ofVersion = msg.readUnsignedByte();
-            shimRelay.sendToSwitch(conn, msg, ofVersion, coreConnector, datapathId, moduleId);
+        try {
+            ConnectionAdapter conn = connectionRegistry.getConnectionAdapter(datapathId);
+
+            if (conn != null) {
+                short ofVersion = msg.readUnsignedByte();
+                GetFeaturesOutput features = connectionRegistry.getFeaturesOutput(conn);
+                if (features != null && features.getVersion() != null
+                        && shimRelay.forwardRawToSwitch(conn, msg, features.getVersion())) {
+                    return;
+                }
+                shimRelay.sendToSwitch(conn, msg, ofVersion, coreConnector, datapathId, moduleId);
+            }
+        } finally {
+            // the decoded message and a raw write keep no reference to it
+            msg.release();
         }
     }
 
     @Override
     public void onHelloCoreMessage(List<Pair<Protocol, ProtocolVersions>> requestedProtocols, int moduleId) {
+        // the connectors always unpack BATCH frames and reassemble
+        // fragments, so these features are granted whenever the core asks
+        boolean batching = requestedProtocols.contains(BatchMessage.CAPABILITY);
+        boolean fragmentation = requestedProtocols.contains(FragmentMessage.CAPABILITY);
         for (Pair<Protocol, ProtocolVersions> requested : requestedProtocols) {
             if (getSupportedProtocol() != null) {
                 if (requested.getValue0().getValue() == getSupportedProtocol().getValue0().getValue()
                         && requested.getValue1().getValue() == getSupportedProtocol().getValue1().getValue()) {
                     HelloMessage msg = new HelloMessage();
                     msg.getSupportedProtocols().add(getSupportedProtocol());
-                    msg.getHeader().setPayloadLength((short) 2);
+                    if (batching) {
+                        msg.getSupportedProtocols().add(BatchMessage.CAPABILITY);
+                    }
+                    if (fragmentation) {
+                        msg.getSupportedProtocols().add(FragmentMessage.CAPABILITY);
+                        shimRelay.setFragmentationEnabled(true);
+                    }
+                    msg.getHeader().setPayloadLength((short) (2 * msg.getSupportedProtocols().size()));
                     msg.getHeader().setModuleId(moduleId);
                     coreConnector.SendData(msg.toByteRepresentation());
                     for (ConnectionAdapter conn : connectionRegistry.getConnectionAdapters()) {
@@ -266,7 +376,7 @@ public class ShimSwitchConnectionHandlerImpl implements SwitchConnectionHandler,
 
     public void collectGetFeaturesOuput(Future<RpcResult<GetFeaturesOutput>> switchReply,
             final ConnectionAdapter connectionAdapter) {
-        Futures.addCallback(JdkFutureAdapters.listenInPoolThread(switchReply),
+        Futures.addCallback(switchReplies.listenable(switchReply),
                 new FutureCallback<RpcResult<GetFeaturesOutput>>() {
                     @Override
                     public void onSuccess(RpcResult<GetFeaturesOutput> rpcFeatures) {
@@ -298,7 +408,7 @@ public class ShimSwitchConnectionHandlerImpl implements SwitchConnectionHandler,
             final ConnectionAdapter connectionAdapter) {
 
         GetFeaturesOutput featureOutput = getFeaturesFromRegistry(connectionAdapter);
-        shimRelay.sendOpenFlowMessageToCore(ShimSwitchConnectionHandlerImpl.coreConnector, featureOutput,
+        shimRelay.sendOpenFlowMessageToCore(coreConnector, featureOutput,
                 proposedVersion, featureOutput.getXid(), featureOutput.getDatapathId().shortValue(), moduleId);
     }
 
@@ -329,6 +439,20 @@ public class ShimSwitchConnectionHandlerImpl implements SwitchConnectionHandler,
         connectionRegistry.removeConnectionAdapter(connectionAdapter);
     }
 
+    public ICoreConnector getCoreConnector() {
+        return coreConnector;
+    }
+
+    /**
+     * Gets the number of requests relayed to switches whose answer is still
+     * awaited.
+     *
+     * @return the outstanding requests
+     */
+    public int getOutstandingSwitchRequests() {
+        return shimRelay != null ? shimRelay.getOutstandingRequests() : 0;
+    }
+
     public GetFeaturesOutput getFeaturesFromRegistry(ConnectionAdapter conn) {
         return this.connectionRegistry.getFeaturesOutput(conn);
     }
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+import io.netty.channel.Channel;
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.opendaylight.openflowjava.protocol.api.connection.ConnectionAdapter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Finds the Netty channel behind an openflowjava switch connection, so that
+ * already encoded OpenFlow messages can be written to it. openflowjava has no
+ * API for this; the channel is read from the field of the adapter holding it.
+ * That field is not part of the openflowjava API, so callers have to fall
+ * back to the adapter when no channel is found.
+ */
+public abstract class SwitchChannels {
+    private static final Logger LOG = LoggerFactory.getLogger(SwitchChannels.class);
+
+    /**
+     * The channel field of every adapter class seen, NO_FIELD if it has none.
+     */
+    private static final Map<Class<?>, Object> CHANNEL_FIELDS = new ConcurrentHashMap<>();
+    private static final Object NO_FIELD = new Object();
+
+    /**
+     * Gets the channel of a switch connection.
+     *
+     * @param connectionAdapter
+     *            the switch connection
+     * @return the channel, null if the adapter does not expose one
+     */
+    public static Channel channelOf(ConnectionAdapter connectionAdapter) {
+        Object field = CHANNEL_FIELDS.get(connectionAdapter.getClass());
+        if (field == null) {
+            field = findChannelField(connectionAdapter.getClass());
+            CHANNEL_FIELDS.put(connectionAdapter.getClass(), field);
+        }
+        if (field == NO_FIELD) {
+            return null;
+        }
+        try {
+            return (Channel) ((Field) field).get(connectionAdapter);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static Object findChannelField(Class<?> adapterClass) {
+        for (Class<?> type = adapterClass; type != null; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (Channel.class.isAssignableFrom(field.getType())) {
+                    try {
+                        field.setAccessible(true);
+                        return field;
+                    } catch (SecurityException e) {
+                        LOG.warn("SwitchChannels: channel of {} is not accessible", adapterClass.getName());
+                        return NO_FIELD;
+                    }
+                }
+            }
+        }
+        LOG.warn("SwitchChannels: {} has no channel", adapterClass.getName());
+        return NO_FIELD;
+    }
+}
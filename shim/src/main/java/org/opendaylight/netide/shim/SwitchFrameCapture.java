@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import java.math.BigInteger;
+import org.opendaylight.netide.netiplib.MessageHeader;
+import org.opendaylight.netide.netiplib.MessageType;
+import org.opendaylight.netide.netiplib.NetIPConverter;
+import org.opendaylight.openflowjava.protocol.api.connection.ConnectionAdapter;
+import org.opendaylight.openflowjava.protocol.api.util.EncodeConstants;
+
+/**
+ * Sends PACKET_IN messages from a switch to the core as they were received,
+ * instead of letting openflowjava decode them for {@link ShimRelay} to encode
+ * them again. The handler sits in the switch channel right behind the
+ * openflowjava frame decoder, so it sees one complete OpenFlow message per
+ * buffer.
+ *
+ * A captured message is only passed on to be decoded when it is published as
+ * an MD-SAL notification; {@link ShimMessageListener} then asks
+ * {@link #isPassingOnCaptured()} to leave it out of what it sends to the core.
+ * Messages the capture declines, e.g. of switches still in the handshake or of
+ * other OpenFlow versions, are passed on and sent by the listener as usual.
+ */
+public class SwitchFrameCapture extends ChannelInboundHandlerAdapter {
+    /**
+     * The name of the handler in the switch channel pipeline.
+     */
+    public static final String NAME = "netide_frame_capture";
+
+    private static final int OPENFLOW_HEADER_BYTES = 8;
+    private static final short PACKET_IN_TYPE = 10;
+
+    private final ICoreConnector coreConnector;
+    private final ConnectionAdaptersRegistry connectionRegistry;
+    private final ConnectionAdapter switchConnection;
+    private final boolean notificationsEnabled;
+    /**
+     * The datapath id of the switch, once its features are known. Only used on
+     * the event loop of the channel.
+     */
+    private BigInteger datapathId;
+    /**
+     * Whether the message being passed on was sent to the core already.
+     */
+    private boolean passingOnCaptured;
+
+    /**
+     * Creates the capture of one switch connection.
+     *
+     * @param coreConnector
+     *            the core connection
+     * @param connectionRegistry
+     *            the registry holding the datapath id of the switch
+     * @param switchConnection
+     *            the switch connection
+     * @param notificationsEnabled
+     *            whether captured messages are still decoded to be published
+     *            as MD-SAL notifications
+     */
+    public SwitchFrameCapture(ICoreConnector coreConnector, ConnectionAdaptersRegistry connectionRegistry,
+            ConnectionAdapter switchConnection, boolean notificationsEnabled) {
+        this.coreConnector = coreConnector;
+        this.connectionRegistry = connectionRegistry;
+        this.switchConnection = switchConnection;
+        this.notificationsEnabled = notificationsEnabled;
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) throws Exception {
+        boolean captured = msg instanceof ByteBuf && capture((ByteBuf) msg);
+        if (captured && !notificationsEnabled) {
+            ((ByteBuf) msg).release();
+            return;
+        }
+        // openflowjava decodes the message and calls the listener before
+        // fireChannelRead returns
+        passingOnCaptured = captured;
+        try {
+            ctx.fireChannelRead(msg);
+        } finally {
+            passingOnCaptured = false;
+        }
+    }
+
+    /**
+     * Checks whether the message currently decoded behind this handler was
+     * already sent to the core. Only meaningful on the event loop of the
+     * channel, while the listener handles the message.
+     *
+     * @return true if the message must not be sent to the core again
+     */
+    public boolean isPassingOnCaptured() {
+        return passingOnCaptured;
+    }
+
+    /**
+     * Sends an OpenFlow message to the core if it is a PACKET_IN of a switch
+     * whose datapath id is known and fits into one NetIP message. The buffer
+     * is left untouched.
+     *
+     * @param frame
+     *            one complete OpenFlow message
+     * @return true if the message was sent to the core
+     */
+    boolean capture(ByteBuf frame) {
+        int start = frame.readerIndex();
+        if (frame.readableBytes() < OPENFLOW_HEADER_BYTES
+                || frame.getUnsignedByte(start + 1) != PACKET_IN_TYPE
+                || frame.readableBytes() > MessageHeader.MAX_PAYLOAD_BYTES) {
+            return false;
+        }
+        short version = frame.getUnsignedByte(start);
+        if (version != EncodeConstants.OF10_VERSION_ID && version != EncodeConstants.OF13_VERSION_ID) {
+            return false;
+        }
+        if (datapathId == null) {
+            datapathId = connectionRegistry.getDatapathID(switchConnection);
+            if (datapathId == null) {
+                return false;
+            }
+        }
+        MessageHeader header = new MessageHeader();
+        header.setMessageType(MessageType.OPENFLOW);
+        header.setPayloadLength((short) frame.readableBytes());
+        header.setDatapathId(datapathId.longValue());
+        header.setModuleId(0);
+        header.setTransactionId((int) frame.getUnsignedInt(start + 4));
+        coreConnector.SendData(NetIPConverter.toFrame(header, frame));
+        return true;
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+import java.util.concurrent.Future;
+import org.opendaylight.openflowjava.protocol.api.connection.ConnectionAdapter;
+import org.opendaylight.yangtools.yang.binding.DataObject;
+
+/**
+ * Sends one kind of OpenFlow message from the core to a switch. Handlers are
+ * registered with {@link ShimRelay#registerHandler(Class, SwitchMessageHandler)}
+ * for the interface the message implements.
+ */
+public interface SwitchMessageHandler {
+
+    /**
+     * Sends a message to a switch.
+     *
+     * @param relay
+     *            the relay, used to send replies back to the core
+     * @param connectionAdapter
+     *            the switch connection
+     * @param msg
+     *            the message, implementing the interface the handler was
+     *            registered for
+     * @param ofVersion
+     *            the OpenFlow version
+     * @param coreConnector
+     *            the core connection
+     * @param datapathId
+     *            the datapath id of the switch
+     * @param moduleId
+     *            the module that sent the message
+     * @return the future of the message sent through the connection, done
+     *         once it was written or answered; null if nothing was sent
+     */
+    Future<?> handle(ShimRelay relay, ConnectionAdapter connectionAdapter, DataObject msg, short ofVersion,
+            ICoreConnector coreConnector, long datapathId, int moduleId);
+}
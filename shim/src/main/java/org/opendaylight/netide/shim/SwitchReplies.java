@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Turns the answers of switches into listenable futures without parking a
+ * thread per outstanding request. Every answer has a deadline: a switch that
+ * never answers, e.g. because it disconnected, fails the future with a
+ * {@link TimeoutException} instead of keeping it outstanding forever.
+ *
+ * The timer thread is started on first use and stops when no answer is
+ * awaited; {@link #close()} stops it for good.
+ */
+public class SwitchReplies implements AutoCloseable {
+    /**
+     * How long a switch is given to answer by default.
+     */
+    public static final long DEFAULT_TIMEOUT_MILLIS = 30000;
+    /**
+     * How often futures that cannot notify are checked.
+     */
+    static final long POLL_MICROS = 500;
+    private static final long IDLE_SECONDS = 60;
+
+    private final ScheduledThreadPoolExecutor timer;
+    private final long timeoutMillis;
+
+    public SwitchReplies() {
+        this(DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Creates the replies of switches given the stated time to answer.
+     *
+     * @param timeoutMillis
+     *            how long a switch is given to answer
+     */
+    public SwitchReplies(long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+        timer = new ScheduledThreadPoolExecutor(1,
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("shim-switch-replies-%d").build());
+        timer.setKeepAliveTime(IDLE_SECONDS, TimeUnit.SECONDS);
+        timer.allowCoreThreadTimeOut(true);
+        timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Gets a future whose callbacks run once the switch answers or the time to
+     * answer is over. The futures of openflowjava are listenable already and
+     * completed by the channel reading the answer. Any other future is checked
+     * periodically by the timer thread, so an outstanding request costs a
+     * scheduled task, not a waiting thread. A future whose time is over is
+     * cancelled.
+     *
+     * @param future
+     *            the answer of a switch
+     * @return the listenable future
+     */
+    public <V> ListenableFuture<V> listenable(final Future<V> future) {
+        final SettableFuture<V> result = SettableFuture.create();
+        final ScheduledFuture<?> deadline = timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (result.setException(new TimeoutException("No answer from switch within " + timeoutMillis
+                        + " ms"))) {
+                    future.cancel(false);
+                }
+            }
+        }, timeoutMillis, TimeUnit.MILLISECONDS);
+        Runnable completion = new Runnable() {
+            @Override
+            public void run() {
+                deadline.cancel(false);
+            }
+        };
+        result.addListener(completion, MoreExecutors.sameThreadExecutor());
+        if (future instanceof ListenableFuture) {
+            ((ListenableFuture<V>) future).addListener(new Transfer<>(future, result),
+                    MoreExecutors.sameThreadExecutor());
+        } else {
+            new Poll<>(future, result).run();
+        }
+        return result;
+    }
+
+    /**
+     * Stops the timer. Answers still awaited are not completed anymore.
+     */
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+
+    private static class Transfer<V> implements Runnable {
+        final Future<V> future;
+        final SettableFuture<V> result;
+
+        Transfer(Future<V> future, SettableFuture<V> result) {
+            this.future = future;
+            this.result = result;
+        }
+
+        @Override
+        public void run() {
+            try {
+                result.set(Uninterruptibles.getUninterruptibly(future));
+            } catch (ExecutionException e) {
+                result.setException(e.getCause());
+            } catch (CancellationException e) {
+                result.cancel(false);
+            }
+        }
+    }
+
+    private final class Poll<V> extends Transfer<V> {
+        Poll(Future<V> future, SettableFuture<V> result) {
+            super(future, result);
+        }
+
+        @Override
+        public void run() {
+            if (result.isDone()) {
+                return;
+            }
+            if (!future.isDone()) {
+                timer.schedule(this, POLL_MICROS, TimeUnit.MICROSECONDS);
+                return;
+            }
+            super.run();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+/**
+ * Enumeration of the ways the core connector thread waits for work.
+ */
+public enum WaitStrategy {
+    /**
+     * Park in the poller until the core sends something or a frame is
+     * queued. Lowest CPU usage.
+     */
+    BLOCKING("blocking"),
+    /**
+     * Never park, keep polling. Lowest latency, burns one core.
+     */
+    BUSY_SPIN("busy-spin"),
+    /**
+     * Spin for a configurable number of idle iterations, then park.
+     */
+    HYBRID("hybrid");
+
+    private String value;
+
+    /**
+     * Instantiates a new wait strategy.
+     *
+     * @param value the configuration value
+     */
+    WaitStrategy(String value) {
+        this.value = value;
+    }
+
+    /**
+     * Gets the configuration value.
+     *
+     * @return the value
+     */
+    public String getValue() {
+        return this.value;
+    }
+
+    /**
+     * Parse wait strategy.
+     *
+     * @param value the configuration value
+     * @return the wait strategy
+     */
+    public static WaitStrategy parse(final String value) {
+        for (WaitStrategy c : WaitStrategy.values()) {
+            if (c.value.equalsIgnoreCase(value)) {
+                return c;
+            }
+        }
+        throw new IllegalArgumentException("Unexpected value " + value);
+    }
+}
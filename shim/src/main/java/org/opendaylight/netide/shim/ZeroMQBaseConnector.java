@@ -7,54 +7,231 @@
  */
 package org.opendaylight.netide.shim;
 
+import io.netty.buffer.ByteBuf;
 import io.netty.buffer.Unpooled;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.opendaylight.netide.netiplib.FragmentReassembler;
 import org.opendaylight.netide.netiplib.HelloMessage;
 import org.opendaylight.netide.netiplib.Message;
+import org.opendaylight.netide.netiplib.MessageHeader;
+import org.opendaylight.netide.netiplib.MessageHeaderFlyweight;
+import org.opendaylight.netide.netiplib.MessageType;
 import org.opendaylight.netide.netiplib.NetIPConverter;
-import org.opendaylight.netide.netiplib.OpenFlowMessage;
+import org.opendaylight.netide.netiplib.NetIPRouting;
+import org.opendaylight.netide.netiplib.ProtocolVersions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.zeromq.ZMQ;
 import org.zeromq.ZMsg;
 
-public class ZeroMQBaseConnector implements Runnable {
+public class ZeroMQBaseConnector implements ICoreConnector, Runnable {
 
     private static final String STOP_COMMAND = "Control.STOP";
+    private static final String WAKEUP_COMMAND = "Control.WAKEUP";
     private static final String CONTROL_ADDRESS = "inproc://ShimControllerQueue";
 
     private static final Logger LOG = LoggerFactory.getLogger(ZeroMQBaseConnector.class);
     private String address;
     private int port;
+    private String identity = DEFAULT_IDENTITY;
     private ZMQ.Context context;
+    /**
+     * Whether the context was created by {@link #Start()} and has to be
+     * terminated by {@link #Stop()}.
+     */
+    private boolean ownsContext;
+    private CoreTransport transport = CoreTransport.TCP;
+    private String endpoint = CoreConnectionConfiguration.DEFAULT_ENDPOINT;
     private Thread thread;
 
     private ICoreListener coreListener;
+    /**
+     * Reads the messages of BATCH frames, only used by the connector thread.
+     */
+    private final MessageHeaderFlyweight batchEntry = new MessageHeaderFlyweight();
+    /**
+     * Collects FRAGMENT frames, only used by the connector thread.
+     */
+    private final FragmentReassembler reassembler = new FragmentReassembler();
+
+    public static final int DEFAULT_OUTBOUND_CAPACITY = 65536;
+    public static final String DEFAULT_IDENTITY = "shim";
+    /**
+     * Upper bound of frames written to the DEALER socket per loop iteration,
+     * so a long outbound burst cannot starve the receive side.
+     */
+    private static final int OUTBOUND_BATCH = 256;
+    /**
+     * How long a producer sleeps between attempts while blocked by the
+     * {@link OverloadPolicy#BLOCK} policy.
+     */
+    private static final long BLOCK_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    /**
+     * Offset of the OpenFlow message type inside a NetIP frame.
+     */
+    private static final int OF_TYPE_OFFSET = MessageHeader.HEADER_BYTES + 1;
+    private static final byte OF10_STATS_REQUEST = 16;
+    private static final byte OF10_STATS_REPLY = 17;
+    private static final byte OF13_MULTIPART_REQUEST = 18;
+    private static final byte OF13_MULTIPART_REPLY = 19;
+
+    /**
+     * Frames handed over by the producer threads, drained by the receive loop
+     * onto the DEALER socket.
+     */
+    private OutboundRingBuffer outboundQueue = new OutboundRingBuffer(DEFAULT_OUTBOUND_CAPACITY);
+    /**
+     * Set while the receive loop is blocked in the poller. Producers only
+     * signal the control socket when they clear it.
+     */
+    private final AtomicBoolean parked = new AtomicBoolean(false);
+    private final Object wakeupLock = new Object();
+    private ZMQ.Socket controlSocket;
+    private ZMQ.Socket wakeupSocket;
+    private WaitStrategy waitStrategy = WaitStrategy.BLOCKING;
+    private int spinIterations = CoreConnectionConfiguration.DEFAULT_SPIN_ITERATIONS;
+    private int batchMaxBytes = CoreConnectionConfiguration.DEFAULT_BATCH_MAX_BYTES;
+    private long batchLingerNanos = TimeUnit.MICROSECONDS
+            .toNanos(CoreConnectionConfiguration.DEFAULT_BATCH_LINGER_MICROS);
+    /**
+     * Number of frames in the last batch written to the core. Lingering is
+     * only worth it while frames arrive back to back, an isolated frame is
+     * flushed immediately.
+     */
+    private int lastBatchFrames = 0;
+    private int highWaterMark = DEFAULT_OUTBOUND_CAPACITY;
+    private OverloadPolicy overloadPolicy = OverloadPolicy.DROP_NEWEST;
+    private volatile boolean stopping = false;
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong lowPriorityDrops = new AtomicLong();
+    private final AtomicLong blockedSends = new AtomicLong();
+    private int heartbeatIntervalMillis = 0;
+    private int heartbeatMisses = CoreConnectionConfiguration.DEFAULT_HEARTBEAT_MISSES;
+    private volatile CoreHeartbeat heartbeat = new CoreHeartbeat(0, 1, System.nanoTime());
+    /**
+     * Last HELLO sent to the core per module, re-sent after a reconnect.
+     */
+    private final Map<Integer, byte[]> helloFrames = new ConcurrentHashMap<>();
 
     public ZeroMQBaseConnector() {
 
     }
 
+    /**
+     * Applies the core connection settings. Has to be called before
+     * {@link #Start()}.
+     *
+     * @param configuration
+     *            the settings
+     */
+    public void configure(CoreConnectionConfiguration configuration) {
+        setAddress(configuration.getAddress());
+        setPort(configuration.getPort());
+        setTransport(configuration.getTransport());
+        setEndpoint(configuration.getEndpoint());
+        setWaitStrategy(configuration.getWaitStrategy());
+        setSpinIterations(configuration.getSpinIterations());
+        setBatchMaxBytes(configuration.getBatchMaxBytes());
+        setBatchLingerMicros(configuration.getBatchLingerMicros());
+        setHighWaterMark(configuration.getHighWaterMark());
+        setOverloadPolicy(configuration.getOverloadPolicy());
+        setHeartbeatIntervalMillis(configuration.getHeartbeatIntervalMillis());
+        setHeartbeatMisses(configuration.getHeartbeatMisses());
+        if (configuration.getContext() != null) {
+            setContext(configuration.getContext());
+        }
+    }
+
+    /**
+     * Sets the ZeroMQ context to use instead of creating one in
+     * {@link #Start()}. Required for the {@link CoreTransport#INPROC}
+     * transport, where the core has to bind its endpoint in the same context
+     * before the connector is started; {@link #Start()} fails without it.
+     * Usually passed in with
+     * {@link CoreConnectionConfiguration#setContext(ZMQ.Context)}.
+     *
+     * @param cont
+     *            the context, terminated by its owner
+     */
     public void setContext(ZMQ.Context cont) {
         context = cont;
+        ownsContext = false;
     }
 
+    ZMQ.Context getContext() {
+        return context;
+    }
+
+    /**
+     * Gets the inproc address of the control socket. It contains the
+     * identity, so several connectors can share one context.
+     *
+     * @return the control address
+     */
+    String getControlAddress() {
+        return CONTROL_ADDRESS + "." + identity;
+    }
+
+    /**
+     * Gets the ZeroMQ endpoint of the core for the configured transport.
+     *
+     * @return the endpoint
+     */
+    public String getCoreEndpoint() {
+        switch (transport) {
+        case IPC:
+        case INPROC:
+            return transport.getValue() + "://" + endpoint;
+        default:
+            return "tcp://" + getAddress() + ":" + getPort();
+        }
+    }
+
+    @Override
     public void Start() {
-        context = ZMQ.context(1);
+        stopping = false;
+        if (context == null && transport == CoreTransport.INPROC) {
+            // a private context has no core bound to the endpoint
+            throw new IllegalStateException("The inproc transport needs the context of the core");
+        }
+        if (context == null) {
+            context = ZMQ.context(1);
+            ownsContext = true;
+        }
+        // inproc endpoints have to be bound before anybody connects to them
+        controlSocket = context.socket(ZMQ.PULL);
+        controlSocket.bind(getControlAddress());
+        wakeupSocket = context.socket(ZMQ.PUSH);
+        wakeupSocket.setIdentity("shim".getBytes());
+        wakeupSocket.connect(getControlAddress());
         thread = new Thread(this);
-        thread.setName("ZeroMQBasedConnector Receive Loop");
+        thread.setName("ZeroMQBasedConnector Receive Loop " + identity);
         thread.start();
     }
 
+    @Override
     public void Stop() {
         if (thread != null) {
-            ZMQ.Socket stopSocket = context.socket(ZMQ.PUSH);
-            stopSocket.connect(CONTROL_ADDRESS);
-            // stopSocket.send(STOP_COMMAND);
-            send(STOP_COMMAND, stopSocket);
-            stopSocket.close();
+            stopping = true;
+            synchronized (wakeupLock) {
+                send(STOP_COMMAND, wakeupSocket);
+            }
             try {
                 thread.join();
-                context.term();
+                synchronized (wakeupLock) {
+                    wakeupSocket.close();
+                    wakeupSocket = null;
+                }
+                if (ownsContext) {
+                    context.term();
+                    context = null;
+                }
             } catch (InterruptedException e) {
                 LOG.error("", e);
             }
@@ -73,71 +250,599 @@ public class ZeroMQBaseConnector implements Runnable {
         return true;
     }
 
+    @Override
     public void RegisterCoreListener(ICoreListener listener) {
         this.coreListener = listener;
     }
 
+    /**
+     * Queues a frame for the core. The frame is written to the core socket by
+     * the receive loop, so callers never create or touch a ZeroMQ socket on
+     * this path. When the queue is at its high-water mark the configured
+     * {@link OverloadPolicy} decides what happens.
+     *
+     * @param data
+     *            the NetIP frame
+     * @return false if the frame was dropped
+     */
+    @Override
     public boolean SendData(byte[] data) {
-        ZMsg msg = new ZMsg();
-        msg.add(data);
-        ZMQ.Socket sendSocket = context.socket(ZMQ.PUSH);
-        sendSocket.setIdentity("shim".getBytes());
-        sendSocket.connect(CONTROL_ADDRESS);
-        send(msg, sendSocket);
-        sendSocket.close();
+        if (NetIPRouting.isType(data, MessageType.HELLO)) {
+            helloFrames.put(NetIPRouting.moduleId(data), data);
+        }
+        boolean queued;
+        switch (overloadPolicy) {
+        case DROP_OLDEST:
+            queued = offerDroppingOldest(data);
+            break;
+        case DROP_LOW_PRIORITY:
+            if (outboundQueue.size() >= outboundQueue.getCapacity() / 2 && isLowPriority(data)) {
+                lowPriorityDrops.incrementAndGet();
+                return false;
+            }
+            queued = outboundQueue.offer(data);
+            break;
+        case BLOCK:
+            queued = offerBlocking(data);
+            break;
+        default:
+            queued = outboundQueue.offer(data);
+            break;
+        }
+        if (queued) {
+            wakeUp();
+        }
+        return queued;
+    }
+
+    private boolean offerDroppingOldest(byte[] data) {
+        while (!outboundQueue.tryOffer(data)) {
+            if (outboundQueue.poll() != null) {
+                evictions.incrementAndGet();
+            }
+        }
         return true;
     }
 
-    @Override
-    public void run() {
-        ZMQ.Socket socket = context.socket(ZMQ.DEALER);
-        socket.setIdentity("shim".getBytes());
-        socket.connect("tcp://" + getAddress() + ":" + getPort());
-        LOG.info("Trying to connect to core on address tcp://" + getAddress() + ":" + getPort());
+    private boolean offerBlocking(byte[] data) {
+        if (outboundQueue.tryOffer(data)) {
+            return true;
+        }
+        blockedSends.incrementAndGet();
+        while (!stopping) {
+            // make sure a parked loop drains what is already queued
+            wakeUp();
+            LockSupport.parkNanos(BLOCK_PARK_NANOS);
+            if (outboundQueue.tryOffer(data)) {
+                return true;
+            }
+        }
+        return outboundQueue.offer(data);
+    }
+
+    /**
+     * Checks whether a frame carries statistics traffic that may be shed
+     * before anything else, i.e. OpenFlow 1.0 stats or OpenFlow 1.3+
+     * multipart messages.
+     *
+     * @param frame
+     *            the NetIP frame
+     * @return true if the frame is low priority
+     */
+    static boolean isLowPriority(byte[] frame) {
+        if (frame.length <= OF_TYPE_OFFSET || !NetIPRouting.isType(frame, MessageType.OPENFLOW)) {
+            return false;
+        }
+        byte type = frame[OF_TYPE_OFFSET];
+        if (frame[MessageHeader.HEADER_BYTES] == ProtocolVersions.OPENFLOW_1_0.getValue()) {
+            return type == OF10_STATS_REQUEST || type == OF10_STATS_REPLY;
+        }
+        return type == OF13_MULTIPART_REQUEST || type == OF13_MULTIPART_REPLY;
+    }
+
+    /**
+     * Signals the receive loop that frames are waiting. The control socket is
+     * only touched when the loop is parked, a spinning loop picks the frame up
+     * on its next iteration.
+     */
+    private void wakeUp() {
+        if (parked.get() && parked.compareAndSet(true, false)) {
+            synchronized (wakeupLock) {
+                send(WAKEUP_COMMAND, wakeupSocket);
+            }
+        }
+    }
 
-        ZMQ.Socket controlSocket = context.socket(ZMQ.PULL);
-        controlSocket.bind(CONTROL_ADDRESS);
+    private boolean drainOutboundQueue(ZMQ.Socket socket) {
+        if (batchMaxBytes <= 0) {
+            int sent = 0;
+            byte[] data;
+            while (sent < OUTBOUND_BATCH && (data = outboundQueue.poll()) != null) {
+                socket.send(data, 0);
+                sent++;
+            }
+            return sent > 0;
+        }
+        int sent = 0;
+        byte[] data = outboundQueue.poll();
+        while (data != null && sent < OUTBOUND_BATCH) {
+            int frames = sendBatch(socket, data, OUTBOUND_BATCH - sent);
+            sent += frames;
+            lastBatchFrames = frames;
+            data = sent < OUTBOUND_BATCH ? outboundQueue.poll() : null;
+        }
+        return sent > 0;
+    }
+
+    /**
+     * Coalesces queued frames into one multi-frame ZeroMQ message. The batch
+     * is flushed when it would exceed the configured size, when the frame
+     * budget is used up, or when no further frame arrives within the linger
+     * time.
+     *
+     * @param socket
+     *            the DEALER socket
+     * @param first
+     *            the first frame of the batch, already taken from the queue
+     * @param maxFrames
+     *            the maximum number of frames in this batch
+     * @return the number of frames sent
+     */
+    private int sendBatch(ZMQ.Socket socket, byte[] first, int maxFrames) {
+        boolean linger = batchLingerNanos > 0 && lastBatchFrames > 1;
+        long deadline = linger ? System.nanoTime() + batchLingerNanos : 0;
+        byte[] current = first;
+        int batchBytes = current.length;
+        int frames = 1;
+        while (true) {
+            byte[] next = null;
+            if (frames < maxFrames) {
+                next = outboundQueue.poll();
+                while (next == null && linger && System.nanoTime() < deadline) {
+                    next = outboundQueue.poll();
+                }
+            }
+            if (next == null) {
+                socket.send(current, 0);
+                return frames;
+            }
+            if (batchBytes + next.length > batchMaxBytes) {
+                // the next frame opens a new batch
+                socket.send(current, 0);
+                current = next;
+                batchBytes = current.length;
+                frames++;
+                deadline = linger ? System.nanoTime() + batchLingerNanos : 0;
+                continue;
+            }
+            socket.send(current, ZMQ.SNDMORE);
+            current = next;
+            batchBytes += current.length;
+            frames++;
+        }
+    }
+
+    /**
+     * Waits on the poller according to the configured strategy.
+     *
+     * @param poller
+     *            the poller
+     * @param idleIterations
+     *            the number of iterations without any work so far
+     * @param timeout
+     *            the maximum time to park in milliseconds, -1 for no limit
+     */
+    private void await(ZMQ.Poller poller, int idleIterations, long timeout) {
+        boolean park = waitStrategy == WaitStrategy.BLOCKING
+                || (waitStrategy == WaitStrategy.HYBRID && idleIterations >= spinIterations);
+        if (!park) {
+            poller.poll(0);
+            return;
+        }
+        parked.set(true);
+        // re-check after publishing the flag, a producer may have queued a
+        // frame without seeing it
+        if (outboundQueue.isEmpty()) {
+            poller.poll(timeout);
+        } else {
+            poller.poll(0);
+        }
+        parked.set(false);
+    }
+
+    private ZMQ.Socket connect() {
+        ZMQ.Socket socket = context.socket(ZMQ.DEALER);
+        socket.setIdentity(identity.getBytes());
+        socket.setSndHWM(highWaterMark);
+        socket.connect(getCoreEndpoint());
+        LOG.info("Trying to connect to core on address " + getCoreEndpoint());
+        return socket;
+    }
 
+    private ZMQ.Poller createPoller(ZMQ.Socket socket) {
         ZMQ.Poller poller = new ZMQ.Poller(2);
         poller.register(socket, ZMQ.Poller.POLLIN);
         poller.register(controlSocket, ZMQ.Poller.POLLIN);
+        return poller;
+    }
 
+    @Override
+    public void run() {
+        ZMQ.Socket socket = connect();
+        ZMQ.Poller poller = createPoller(socket);
+        CoreHeartbeat liveness = new CoreHeartbeat(heartbeatIntervalMillis, heartbeatMisses, System.nanoTime());
+        heartbeat = liveness;
+
+        int idleIterations = 0;
         while (!Thread.currentThread().isInterrupted()) {
-            poller.poll(10);
+            await(poller, idleIterations, liveness.timeoutMillis(System.nanoTime()));
+            boolean worked = false;
             if (poller.pollin(0)) {
-                ZMsg message = ZMsg.recvMsg(socket);
-                byte[] data = message.getLast().getData();
-                if (coreListener != null) {
-                    Message msg = NetIPConverter.parseConcreteMessage(data);
-                    if (msg instanceof HelloMessage) {
-
-                        coreListener.onHelloCoreMessage(((HelloMessage) msg).getSupportedProtocols(),
-                                ((HelloMessage) msg).getHeader().getModuleId());
-                    } else if (msg instanceof OpenFlowMessage) {
-
-                        byte[] payload = msg.getPayload();
-                        coreListener.onOpenFlowCoreMessage(msg.getHeader().getDatapathId(),
-                                Unpooled.wrappedBuffer(payload), msg.getHeader().getModuleId());
-                    } else {
-                        // LOG.info("Core Unrecognized Message received class
-                        // {}, header: {}", msg.getClass(),
-                        // msg.getHeader().getMessageType());
+                worked = true;
+                liveness.onFrameReceived(System.nanoTime());
+                // the core may coalesce several NetIP frames into one
+                // message, read them one by one straight off the socket
+                do {
+                    byte[] data = socket.recv(0);
+                    if (data != null && data.length > 0) {
+                        onCoreFrame(data, socket, liveness);
                     }
-                }
+                } while (socket.hasReceiveMore());
             }
             if (poller.pollin(1)) {
                 ZMsg message = ZMsg.recvMsg(controlSocket);
                 if (message.getFirst().toString().equals(STOP_COMMAND)) {
                     break;
-                } else {
-                    message.send(socket);
                 }
             }
+            if (drainOutboundQueue(socket)) {
+                worked = true;
+            }
+            long now = System.nanoTime();
+            if (liveness.isExpired(now)) {
+                LOG.warn("No traffic from core for " + heartbeatMisses + " heartbeat intervals, reconnecting");
+                socket.setLinger(0);
+                socket.close();
+                socket = connect();
+                poller = createPoller(socket);
+                liveness.onReconnect(now);
+                for (byte[] hello : helloFrames.values()) {
+                    socket.send(hello, 0);
+                }
+                worked = true;
+            }
+            if (liveness.isHeartbeatDue(now)) {
+                socket.send(liveness.nextHeartbeat(now), 0);
+            }
+            idleIterations = worked ? 0 : Math.min(idleIterations + 1, spinIterations);
+        }
+        while (drainOutboundQueue(socket)) {
+            // flush what was queued before the stop
         }
         socket.close();
         controlSocket.close();
     }
 
+    /**
+     * Dispatches a frame received from the core. Only the routing fields of
+     * the header are read, in place; OpenFlow payloads are handed to the
+     * listener as a slice of the received array, without decoding or copying
+     * them.
+     *
+     * @param data
+     *            the NetIP frame
+     * @param socket
+     *            the DEALER socket, used to answer heartbeats
+     * @param liveness
+     *            the heartbeat bookkeeping of the connection
+     */
+    private void onCoreFrame(byte[] data, ZMQ.Socket socket, CoreHeartbeat liveness) {
+        if (!NetIPRouting.isValid(data)) {
+            LOG.warn("Discarding malformed frame from core");
+            return;
+        }
+        MessageType type = NetIPRouting.messageType(data);
+        if (type == MessageType.HEARTBEAT) {
+            int transactionId = NetIPRouting.transactionId(data);
+            if (!liveness.onHeartbeat(transactionId, System.nanoTime())) {
+                socket.send(CoreHeartbeat.echo(transactionId), 0);
+            }
+            return;
+        }
+        if (type == MessageType.BATCH) {
+            onBatchFrame(data, socket, liveness);
+            return;
+        }
+        if (coreListener == null) {
+            return;
+        }
+        if (type == MessageType.OPENFLOW) {
+            coreListener.onOpenFlowCoreMessage(NetIPRouting.datapathId(data), NetIPRouting.payload(data),
+                    NetIPRouting.moduleId(data));
+        } else if (type == MessageType.FRAGMENT) {
+            Message msg;
+            try {
+                msg = reassembler.add(data);
+            } catch (IllegalArgumentException e) {
+                LOG.warn("Discarding malformed frame from core", e);
+                return;
+            }
+            // only OpenFlow messages grow beyond one frame
+            if (msg != null && msg.getHeader().getMessageType() == MessageType.OPENFLOW) {
+                coreListener.onOpenFlowCoreMessage(msg.getHeader().getDatapathId(),
+                        Unpooled.wrappedBuffer(msg.getPayload()), msg.getHeader().getModuleId());
+            }
+        } else if (type == MessageType.HELLO) {
+            Message msg;
+            try {
+                msg = NetIPConverter.parseConcreteMessage(data);
+            } catch (IllegalArgumentException e) {
+                LOG.warn("Discarding malformed frame from core", e);
+                return;
+            }
+            if (msg instanceof HelloMessage) {
+                coreListener.onHelloCoreMessage(((HelloMessage) msg).getSupportedProtocols(),
+                        msg.getHeader().getModuleId());
+            }
+        } else {
+            // LOG.info("Core Unrecognized Message received, header: {}",
+            // header);
+        }
+    }
+
+    /**
+     * Dispatches the messages carried by a BATCH frame in order. OpenFlow
+     * payloads are handed to the listener as retained slices of the received
+     * array, each released by the listener, the rare other messages are copied out and dispatched like single
+     * frames.
+     *
+     * @param data
+     *            the BATCH frame
+     * @param socket
+     *            the DEALER socket, used to answer heartbeats
+     * @param liveness
+     *            the heartbeat bookkeeping of the connection
+     */
+    private void onBatchFrame(byte[] data, ZMQ.Socket socket, CoreHeartbeat liveness) {
+        ByteBuf batch = Unpooled.wrappedBuffer(data);
+        try {
+            int offset = MessageHeader.HEADER_BYTES;
+            while (offset + MessageHeader.HEADER_BYTES <= data.length) {
+                MessageHeaderFlyweight entry = batchEntry.wrap(batch, offset);
+                int end = entry.payloadOffset() + entry.getPayloadLength();
+                if (end > data.length) {
+                    LOG.warn("Discarding truncated message in BATCH frame from core");
+                    return;
+                }
+                byte type = entry.getType();
+                if (type == MessageType.OPENFLOW.getValue()) {
+                    if (coreListener != null) {
+                        // each slice shares the count of the batch, the listener
+                        // releases its reference only
+                        coreListener.onOpenFlowCoreMessage(entry.getDatapathId(),
+                                batch.slice(entry.payloadOffset(), entry.getPayloadLength()).retain(),
+                                entry.getModuleId());
+                    }
+                } else if (type == MessageType.BATCH.getValue()) {
+                    LOG.warn("Discarding nested BATCH frame from core");
+                } else {
+                    onCoreFrame(Arrays.copyOfRange(data, offset, end), socket, liveness);
+                }
+                offset = end;
+            }
+        } finally {
+            batch.release();
+        }
+    }
+
+    /**
+     * Sets the high-water mark of the core link, i.e. how many frames may be
+     * queued in the shim and in the ZeroMQ socket before the overload policy
+     * applies. Has to be called before {@link #Start()}.
+     *
+     * @param highWaterMark
+     *            the high-water mark, rounded up to the next power of two for
+     *            the outbound queue
+     */
+    public void setHighWaterMark(int highWaterMark) {
+        outboundQueue = new OutboundRingBuffer(highWaterMark);
+        this.highWaterMark = highWaterMark;
+    }
+
+    public int getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    public void setOverloadPolicy(OverloadPolicy overloadPolicy) {
+        this.overloadPolicy = overloadPolicy;
+    }
+
+    public OverloadPolicy getOverloadPolicy() {
+        return overloadPolicy;
+    }
+
+    /**
+     * Gets the number of frames waiting to be written to the core.
+     *
+     * @return the outbound queue depth
+     */
+    @Override
+    public int getOutboundQueueDepth() {
+        return outboundQueue.size();
+    }
+
+    /**
+     * Gets the number of frames lost on the way to the core, whatever policy
+     * dropped them.
+     *
+     * @return the drop count
+     */
+    @Override
+    public long getOutboundDrops() {
+        return outboundQueue.getDrops() + evictions.get() + lowPriorityDrops.get();
+    }
+
+    /**
+     * Gets the number of queued frames evicted by the
+     * {@link OverloadPolicy#DROP_OLDEST} policy.
+     *
+     * @return the eviction count
+     */
+    @Override
+    public long getOutboundEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Gets the number of frames rejected by the
+     * {@link OverloadPolicy#DROP_LOW_PRIORITY} policy.
+     *
+     * @return the low priority drop count
+     */
+    @Override
+    public long getOutboundLowPriorityDrops() {
+        return lowPriorityDrops.get();
+    }
+
+    /**
+     * Gets the number of sends that had to wait under the
+     * {@link OverloadPolicy#BLOCK} policy.
+     *
+     * @return the blocked send count
+     */
+    @Override
+    public long getOutboundBlockedSends() {
+        return blockedSends.get();
+    }
+
+    /**
+     * Checks whether the core answered within the configured number of
+     * heartbeat intervals. False before the first frame arrived. Always true
+     * while heartbeats are disabled, as the liveness of the core is then not
+     * monitored.
+     *
+     * @return true if the core is alive
+     */
+    @Override
+    public boolean isCoreAlive() {
+        return heartbeatIntervalMillis <= 0 || heartbeat.isAlive();
+    }
+
+    @Override
+    public long getCoreRttMicros() {
+        return heartbeat.getRttMicros();
+    }
+
+    @Override
+    public long getReconnects() {
+        return heartbeat.getReconnects();
+    }
+
+    /**
+     * Sets the heartbeat interval. Has to be called before {@link #Start()}.
+     *
+     * @param heartbeatIntervalMillis
+     *            the interval in milliseconds, 0 to disable heartbeats
+     */
+    public void setHeartbeatIntervalMillis(int heartbeatIntervalMillis) {
+        this.heartbeatIntervalMillis = heartbeatIntervalMillis;
+    }
+
+    public int getHeartbeatIntervalMillis() {
+        return heartbeatIntervalMillis;
+    }
+
+    public void setHeartbeatMisses(int heartbeatMisses) {
+        this.heartbeatMisses = heartbeatMisses;
+    }
+
+    public int getHeartbeatMisses() {
+        return heartbeatMisses;
+    }
+
+    public void setWaitStrategy(WaitStrategy waitStrategy) {
+        this.waitStrategy = waitStrategy;
+    }
+
+    public WaitStrategy getWaitStrategy() {
+        return waitStrategy;
+    }
+
+    public void setSpinIterations(int spinIterations) {
+        this.spinIterations = spinIterations;
+    }
+
+    public int getSpinIterations() {
+        return spinIterations;
+    }
+
+    /**
+     * Sets the maximum size of a coalesced multi-frame message. A value of 0
+     * disables batching and every frame is sent as its own message.
+     *
+     * @param batchMaxBytes
+     *            the maximum batch size in bytes
+     */
+    public void setBatchMaxBytes(int batchMaxBytes) {
+        this.batchMaxBytes = batchMaxBytes;
+    }
+
+    public int getBatchMaxBytes() {
+        return batchMaxBytes;
+    }
+
+    /**
+     * Sets how long a batch may wait for further frames while traffic is
+     * bursty.
+     *
+     * @param lingerMicros
+     *            the linger time in microseconds, 0 to never wait
+     */
+    public void setBatchLingerMicros(int lingerMicros) {
+        this.batchLingerNanos = TimeUnit.MICROSECONDS.toNanos(lingerMicros);
+    }
+
+    public int getBatchLingerMicros() {
+        return (int) TimeUnit.NANOSECONDS.toMicros(batchLingerNanos);
+    }
+
+    /**
+     * Sets the ZeroMQ identity the core sees for this connection.
+     *
+     * @param identity
+     *            the identity
+     */
+    public void setIdentity(String identity) {
+        this.identity = identity;
+    }
+
+    public String getIdentity() {
+        return identity;
+    }
+
+    public void setTransport(CoreTransport transport) {
+        this.transport = transport;
+    }
+
+    public CoreTransport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Sets the endpoint name used by the ipc and inproc transports, e.g. a
+     * file system path for ipc.
+     *
+     * @param endpoint
+     *            the endpoint name, without scheme
+     */
+    public void setEndpoint(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
     public void setPort(int port) {
         this.port = port;
     }
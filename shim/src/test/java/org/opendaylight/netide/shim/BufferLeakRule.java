@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+import io.netty.buffer.AbstractByteBufAllocator;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+/**
+ * Fails a test that leaves a buffer of {@link #allocator()} unreleased. Netty
+ * only logs the leaks it detects, so the buffers are tracked here instead.
+ */
+public class BufferLeakRule implements TestRule {
+    private final List<ByteBuf> allocated = new ArrayList<>();
+    private final ByteBufAllocator allocator = new AbstractByteBufAllocator() {
+        @Override
+        protected ByteBuf newHeapBuffer(int initialCapacity, int maxCapacity) {
+            return track(PooledByteBufAllocator.DEFAULT.heapBuffer(initialCapacity, maxCapacity));
+        }
+
+        @Override
+        protected ByteBuf newDirectBuffer(int initialCapacity, int maxCapacity) {
+            return track(PooledByteBufAllocator.DEFAULT.directBuffer(initialCapacity, maxCapacity));
+        }
+
+        @Override
+        public boolean isDirectBufferPooled() {
+            return true;
+        }
+    };
+
+    /**
+     * Gets the allocator whose buffers have to be released by the end of the
+     * test.
+     *
+     * @return the pooled allocator
+     */
+    public ByteBufAllocator allocator() {
+        return allocator;
+    }
+
+    private synchronized ByteBuf track(ByteBuf buffer) {
+        allocated.add(buffer);
+        return buffer;
+    }
+
+    @Override
+    public Statement apply(final Statement base, Description description) {
+        return new Statement() {
+            @Override
+            public void evaluate() throws Throwable {
+                base.evaluate();
+                synchronized (BufferLeakRule.this) {
+                    for (ByteBuf buffer : allocated) {
+                        Assert.assertEquals("Buffer not released: " + buffer, 0, buffer.refCnt());
+                    }
+                    allocated.clear();
+                }
+            }
+        };
+    }
+}
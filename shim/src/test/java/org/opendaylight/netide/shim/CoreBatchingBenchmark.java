@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+import io.netty.buffer.ByteBuf;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.javatuples.Pair;
+import org.opendaylight.netide.netiplib.Message;
+import org.opendaylight.netide.netiplib.MessageHeader;
+import org.opendaylight.netide.netiplib.MessageType;
+import org.opendaylight.netide.netiplib.NetIPConverter;
+import org.opendaylight.netide.netiplib.Protocol;
+import org.opendaylight.netide.netiplib.ProtocolVersions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zeromq.ZMQ;
+import org.zeromq.ZMsg;
+
+/**
+ * Messages per second delivered from the core to the listener, for a burst of
+ * OpenFlow messages sent as one frame each and packed into a BATCH frame.
+ *
+ * Run with: java -cp target/test-classes:&lt;test classpath&gt;
+ * org.openjdk.jmh.Main CoreBatchingBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CoreBatchingBenchmark {
+
+    private static final int CORE_PORT = 5594;
+    private static final int BURST = 64;
+    /**
+     * Size of a typical FlowMod with a match and one action.
+     */
+    private static final int OF_PAYLOAD_BYTES = 96;
+
+    private final AtomicLong received = new AtomicLong();
+    private final List<byte[]> frames = new ArrayList<>();
+    private byte[] batchFrame;
+    private byte[] identity;
+    private long expected;
+    private ZeroMQBaseConnector connector;
+    private ZMQ.Context coreContext;
+    private ZMQ.Socket core;
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < BURST; i++) {
+            MessageHeader header = new MessageHeader();
+            header.setMessageType(MessageType.OPENFLOW);
+            header.setDatapathId(i % 8);
+            header.setTransactionId(i);
+            header.setPayloadLength((short) OF_PAYLOAD_BYTES);
+            byte[] payload = new byte[OF_PAYLOAD_BYTES];
+            payload[0] = 0x04;
+            frames.add(new Message(header, payload).toByteRepresentation());
+        }
+        batchFrame = NetIPConverter.toBatchFrames(frames).get(0);
+
+        coreContext = ZMQ.context(1);
+        core = coreContext.socket(ZMQ.ROUTER);
+        core.bind("tcp://127.0.0.1:" + CORE_PORT);
+
+        connector = new ZeroMQBaseConnector();
+        connector.setAddress("127.0.0.1");
+        connector.setPort(CORE_PORT);
+        connector.RegisterCoreListener(new ICoreListener() {
+            @Override
+            public void onOpenFlowCoreMessage(Long datapathId, ByteBuf msg, int moduleId) {
+                received.incrementAndGet();
+            }
+
+            @Override
+            public void onHelloCoreMessage(List<Pair<Protocol, ProtocolVersions>> requiredVersion, int moduleId) {
+            }
+        });
+        connector.Start();
+        // the DEALER has to announce itself before the ROUTER can address it
+        connector.SendData(new byte[] { 1 });
+        identity = ZMsg.recvMsg(core).getFirst().getData();
+    }
+
+    @TearDown
+    public void tearDown() {
+        connector.Stop();
+        core.close();
+        coreContext.term();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public long singleFrames() {
+        for (byte[] frame : frames) {
+            core.sendMore(identity);
+            core.send(frame, 0);
+        }
+        return awaitBurst();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BURST)
+    public long batchFrame() {
+        core.sendMore(identity);
+        core.send(batchFrame, 0);
+        return awaitBurst();
+    }
+
+    private long awaitBurst() {
+        expected += BURST;
+        long count;
+        do {
+            count = received.get();
+        } while (count < expected);
+        return count;
+    }
+}
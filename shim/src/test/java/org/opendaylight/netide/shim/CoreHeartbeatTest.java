@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.Assert;
+import org.junit.Test;
+import org.opendaylight.netide.netiplib.MessageHeader;
+import org.opendaylight.netide.netiplib.MessageType;
+import org.opendaylight.netide.netiplib.NetIPConverter;
+
+public class CoreHeartbeatTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    public void testDisabled() {
+        CoreHeartbeat heartbeat = new CoreHeartbeat(0, 3, 0);
+        Assert.assertFalse(heartbeat.isEnabled());
+        Assert.assertFalse(heartbeat.isHeartbeatDue(1000 * MS));
+        Assert.assertFalse(heartbeat.isExpired(1000 * MS));
+        Assert.assertEquals(-1, heartbeat.timeoutMillis(0));
+    }
+
+    @Test
+    public void testRoundTripTime() {
+        CoreHeartbeat heartbeat = new CoreHeartbeat(100, 3, 0);
+        Assert.assertTrue(heartbeat.isHeartbeatDue(0));
+        MessageHeader header = NetIPConverter.parseHeader(heartbeat.nextHeartbeat(0));
+        Assert.assertEquals(MessageType.HEARTBEAT, header.getMessageType());
+        Assert.assertFalse(heartbeat.isHeartbeatDue(50 * MS));
+        Assert.assertEquals(-1, heartbeat.getRttMicros());
+
+        Assert.assertTrue(heartbeat.onHeartbeat(header.getTransactionId(), 2 * MS));
+        Assert.assertEquals(2000, heartbeat.getRttMicros());
+        Assert.assertTrue(heartbeat.isAlive());
+        Assert.assertTrue(heartbeat.isHeartbeatDue(100 * MS));
+    }
+
+    @Test
+    public void testCoreInitiatedHeartbeatIsEchoed() {
+        CoreHeartbeat heartbeat = new CoreHeartbeat(100, 3, 0);
+        heartbeat.nextHeartbeat(0);
+        Assert.assertFalse(heartbeat.onHeartbeat(4711, MS));
+        Assert.assertEquals(4711, NetIPConverter.parseHeader(CoreHeartbeat.echo(4711)).getTransactionId());
+    }
+
+    @Test
+    public void testCoreHeartbeatWithOurRecentIdIsEchoed() {
+        CoreHeartbeat heartbeat = new CoreHeartbeat(100, 3, 0);
+        int sent = NetIPConverter.parseHeader(heartbeat.nextHeartbeat(0)).getTransactionId();
+        Assert.assertTrue(heartbeat.onHeartbeat(sent, MS));
+        heartbeat.nextHeartbeat(100 * MS);
+        // both sides count from 1, the core may use the same number
+        int coreTransactionId = sent & ~CoreHeartbeat.OWN_TRANSACTION_ID;
+        Assert.assertEquals(1, coreTransactionId);
+        Assert.assertFalse(heartbeat.onHeartbeat(coreTransactionId, 101 * MS));
+        // a late answer to our first heartbeat is not echoed
+        Assert.assertTrue(heartbeat.onHeartbeat(sent, 102 * MS));
+    }
+
+    @Test
+    public void testExpiryAndBackoff() {
+        CoreHeartbeat heartbeat = new CoreHeartbeat(100, 3, 0);
+        heartbeat.onFrameReceived(0);
+        Assert.assertFalse(heartbeat.isExpired(299 * MS));
+        Assert.assertTrue(heartbeat.isExpired(300 * MS));
+
+        heartbeat.onReconnect(300 * MS);
+        Assert.assertFalse(heartbeat.isAlive());
+        Assert.assertEquals(1, heartbeat.getReconnects());
+        // three intervals plus one interval of backoff
+        Assert.assertFalse(heartbeat.isExpired(699 * MS));
+        Assert.assertTrue(heartbeat.isExpired(700 * MS));
+
+        long now = 700 * MS;
+        for (int i = 0; i < 10; i++) {
+            heartbeat.onReconnect(now);
+            now += (3 + CoreHeartbeat.MAX_BACKOFF_INTERVALS) * 100 * MS;
+            Assert.assertTrue(heartbeat.isExpired(now));
+        }
+
+        heartbeat.onFrameReceived(now);
+        Assert.assertTrue(heartbeat.isAlive());
+        Assert.assertTrue(heartbeat.isExpired(now + 300 * MS));
+    }
+
+    @Test
+    public void testTimeoutUntilNextEvent() {
+        CoreHeartbeat heartbeat = new CoreHeartbeat(100, 3, 0);
+        heartbeat.nextHeartbeat(0);
+        Assert.assertEquals(101, heartbeat.timeoutMillis(0));
+        Assert.assertEquals(0, heartbeat.timeoutMillis(500 * MS));
+    }
+}
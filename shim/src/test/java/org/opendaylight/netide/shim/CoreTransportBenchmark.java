@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+import io.netty.buffer.ByteBuf;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.javatuples.Pair;
+import org.opendaylight.netide.netiplib.Message;
+import org.opendaylight.netide.netiplib.MessageHeader;
+import org.opendaylight.netide.netiplib.MessageType;
+import org.opendaylight.netide.netiplib.Protocol;
+import org.opendaylight.netide.netiplib.ProtocolVersions;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zeromq.ZMQ;
+import org.zeromq.ZMsg;
+
+/**
+ * Round trip latency between the connector and a local stand-in core echoing
+ * every frame, for each {@link CoreTransport}.
+ *
+ * Run with: java -cp target/test-classes:&lt;test classpath&gt;
+ * org.openjdk.jmh.Main CoreTransportBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CoreTransportBenchmark {
+
+    private static final int CORE_PORT = 5596;
+
+    @Param({ "tcp", "ipc", "inproc" })
+    public String transport;
+
+    private final BlockingQueue<ByteBuf> replies = new LinkedBlockingQueue<>();
+    private byte[] frame;
+    private ZMQ.Context context;
+    private ZeroMQBaseConnector connector;
+    private Thread core;
+
+    @Setup
+    public void setUp() {
+        MessageHeader header = new MessageHeader();
+        header.setMessageType(MessageType.OPENFLOW);
+        header.setPayloadLength((short) 64);
+        frame = new Message(header, new byte[64]).toByteRepresentation();
+
+        CoreTransport coreTransport = CoreTransport.parse(transport);
+        context = ZMQ.context(1);
+        CoreConnectionConfiguration configuration = new CoreConnectionConfiguration();
+        configuration.setAddress("127.0.0.1");
+        configuration.setPort(CORE_PORT);
+        configuration.setTransport(coreTransport);
+        configuration.setEndpoint(coreTransport == CoreTransport.IPC ? "/tmp/netide-core-benchmark" : "netide-core");
+        configuration.setWaitStrategy(WaitStrategy.BUSY_SPIN);
+        configuration.setContext(context);
+        connector = new ZeroMQBaseConnector();
+        connector.configure(configuration);
+
+        final ZMQ.Socket router = context.socket(ZMQ.ROUTER);
+        router.setReceiveTimeOut(100);
+        router.bind(connector.getCoreEndpoint());
+        core = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (!Thread.currentThread().isInterrupted()) {
+                    ZMsg message = ZMsg.recvMsg(router);
+                    if (message != null) {
+                        message.send(router);
+                    }
+                }
+                router.close();
+            }
+        });
+        core.start();
+
+        connector.RegisterCoreListener(new ICoreListener() {
+            @Override
+            public void onOpenFlowCoreMessage(Long datapathId, ByteBuf msg, int moduleId) {
+                replies.add(msg);
+            }
+
+            @Override
+            public void onHelloCoreMessage(List<Pair<Protocol, ProtocolVersions>> requiredVersion, int moduleId) {
+            }
+        });
+        connector.Start();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        connector.Stop();
+        core.interrupt();
+        core.join();
+        context.term();
+    }
+
+    @Benchmark
+    public ByteBuf roundTrip() throws InterruptedException {
+        connector.SendData(frame);
+        return replies.take();
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.opendaylight.netide.netiplib.HelloMessage;
+import org.opendaylight.netide.netiplib.Message;
+import org.opendaylight.netide.netiplib.MessageHeader;
+import org.opendaylight.netide.netiplib.MessageType;
+
+public class NettyCoreConnectorTest {
+
+    private static final int CORE_PORT = 5595;
+
+    ServerSocket core;
+    NettyCoreConnector connector;
+    ReleasingCoreListener listener;
+
+    @Before
+    public void setUp() throws IOException {
+        core = new ServerSocket(CORE_PORT);
+        listener = Mockito.spy(new ReleasingCoreListener());
+        CoreConnectionConfiguration configuration = new CoreConnectionConfiguration();
+        configuration.setConnectorType(CoreConnectorType.NETTY);
+        configuration.setAddress("127.0.0.1");
+        configuration.setPort(CORE_PORT);
+        connector = new NettyCoreConnector();
+        connector.configure(configuration);
+        connector.RegisterCoreListener(listener);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        connector.Stop();
+        core.close();
+    }
+
+    @Test
+    public void testSendDataWithoutConnectionIsDropped() {
+        Assert.assertFalse(connector.SendData(openFlowFrame(1L, new byte[] { 4, 0, 0, 8 })));
+        Assert.assertEquals(1, connector.getOutboundDrops());
+        Assert.assertFalse(connector.isCoreAlive());
+    }
+
+    @Test(timeout = 10000)
+    public void testFramesReachCore() throws Exception {
+        connector.Start();
+        try (Socket socket = core.accept()) {
+            awaitConnected();
+            byte[] frame = openFlowFrame(7L, new byte[] { 4, 2, 0, 8, 0, 0, 0, 1 });
+            Assert.assertTrue(connector.SendData(frame));
+            byte[] received = new byte[frame.length];
+            new DataInputStream(socket.getInputStream()).readFully(received);
+            Assert.assertArrayEquals(frame, received);
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testFramesFromCoreAreSplitByLength() throws Exception {
+        connector.Start();
+        try (Socket socket = core.accept()) {
+            byte[] first = openFlowFrame(7L, new byte[] { 4, 2, 0, 8, 0, 0, 0, 1 });
+            byte[] second = openFlowFrame(8L, new byte[] { 4, 2, 0, 8, 0, 0, 0, 2 });
+            byte[] both = new byte[first.length + second.length];
+            System.arraycopy(first, 0, both, 0, first.length);
+            System.arraycopy(second, 0, both, first.length, second.length);
+            OutputStream out = socket.getOutputStream();
+            // one frame and a half, then the rest
+            out.write(both, 0, first.length + 5);
+            out.flush();
+            Thread.sleep(50);
+            out.write(both, first.length + 5, both.length - first.length - 5);
+            out.flush();
+
+            Mockito.verify(listener, Mockito.timeout(5000)).onOpenFlowCoreMessage(Matchers.eq(7L),
+                    Matchers.any(ByteBuf.class), Matchers.eq(3));
+            Mockito.verify(listener, Mockito.timeout(5000)).onOpenFlowCoreMessage(Matchers.eq(8L),
+                    Matchers.any(ByteBuf.class), Matchers.eq(3));
+            List<byte[]> payloads = listener.getPayloads();
+            Assert.assertEquals(8, payloads.get(0).length);
+            Assert.assertEquals(1, payloads.get(0)[7]);
+            Assert.assertEquals(2, payloads.get(1)[7]);
+            listener.assertReleased();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testHelloIsResentAfterReconnect() throws Exception {
+        connector.Start();
+        HelloMessage hello = new HelloMessage();
+        hello.getHeader().setModuleId(5);
+        byte[] frame = hello.toByteRepresentation();
+        try (Socket socket = core.accept()) {
+            awaitConnected();
+            Assert.assertTrue(connector.SendData(frame));
+            byte[] received = new byte[frame.length];
+            new DataInputStream(socket.getInputStream()).readFully(received);
+        }
+        try (Socket socket = core.accept()) {
+            byte[] received = new byte[frame.length];
+            new DataInputStream(socket.getInputStream()).readFully(received);
+            Assert.assertArrayEquals(frame, received);
+        }
+        Assert.assertTrue(connector.getReconnects() >= 1);
+    }
+
+    @Test(timeout = 10000)
+    public void testSharedEventLoopGroupIsKept() throws Exception {
+        EventLoopGroup shared = new NioEventLoopGroup(1);
+        try {
+            connector.setEventLoopGroup(shared);
+            connector.Start();
+            try (Socket socket = core.accept()) {
+                awaitConnected();
+            }
+            connector.Stop();
+            Assert.assertFalse(shared.isShuttingDown());
+        } finally {
+            shared.shutdownGracefully().syncUninterruptibly();
+        }
+    }
+
+    private void awaitConnected() throws InterruptedException {
+        while (!connector.isCoreAlive()) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static byte[] openFlowFrame(long datapathId, byte[] payload) {
+        MessageHeader header = new MessageHeader();
+        header.setMessageType(MessageType.OPENFLOW);
+        header.setDatapathId(datapathId);
+        header.setModuleId(3);
+        header.setPayloadLength((short) payload.length);
+        return new Message(header, payload).toByteRepresentation();
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.javatuples.Pair;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.netide.netiplib.Protocol;
+import org.opendaylight.netide.netiplib.ProtocolVersions;
+
+public class OrderedCoreListenerTest {
+
+    private static final int DATAPATHS = 8;
+    private static final int MESSAGES = 500;
+
+    private final Map<Long, List<Integer>> received = new HashMap<>();
+    private final Map<Long, String> threads = new HashMap<>();
+    private CountDownLatch done;
+    private OrderedCoreListener dispatcher;
+
+    @Before
+    public void setUp() {
+        done = new CountDownLatch(DATAPATHS * MESSAGES);
+        ICoreListener recorder = new ICoreListener() {
+            @Override
+            public void onOpenFlowCoreMessage(Long datapathId, ByteBuf msg, int moduleId) {
+                synchronized (received) {
+                    received.get(datapathId).add(msg.getInt(0));
+                    msg.release();
+                    String thread = Thread.currentThread().getName();
+                    String previous = threads.put(datapathId, thread);
+                    Assert.assertTrue(previous == null || previous.equals(thread));
+                }
+                done.countDown();
+            }
+
+            @Override
+            public void onHelloCoreMessage(List<Pair<Protocol, ProtocolVersions>> requiredVersion, int moduleId) {
+                done.countDown();
+            }
+        };
+        for (long datapathId = 0; datapathId < DATAPATHS; datapathId++) {
+            received.put(datapathId, Collections.synchronizedList(new ArrayList<Integer>()));
+        }
+        dispatcher = new OrderedCoreListener(recorder, 4);
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        dispatcher.shutdown(5, TimeUnit.SECONDS);
+    }
+
+    @Test(timeout = 10000)
+    public void testOrderPerDatapath() throws InterruptedException {
+        for (int i = 0; i < MESSAGES; i++) {
+            for (long datapathId = 0; datapathId < DATAPATHS; datapathId++) {
+                dispatcher.onOpenFlowCoreMessage(datapathId, Unpooled.copyInt(i), 0);
+            }
+        }
+        done.await();
+        for (long datapathId = 0; datapathId < DATAPATHS; datapathId++) {
+            List<Integer> messages = received.get(datapathId);
+            Assert.assertEquals(MESSAGES, messages.size());
+            for (int i = 0; i < MESSAGES; i++) {
+                Assert.assertEquals(i, messages.get(i).intValue());
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testPartitionStatistics() throws InterruptedException {
+        done = new CountDownLatch(1);
+        dispatcher.onHelloCoreMessage(new ArrayList<Pair<Protocol, ProtocolVersions>>(), 1);
+        done.await();
+        dispatcher.shutdown(5, TimeUnit.SECONDS);
+        Assert.assertEquals(4, dispatcher.getPartitions());
+        Assert.assertEquals(1, dispatcher.getProcessed(0));
+        Assert.assertEquals(0, dispatcher.getQueueDepth(0));
+        Assert.assertTrue(dispatcher.getServiceTimeNanos(0) >= 0);
+    }
+
+    @Test(timeout = 10000)
+    public void testRejectedMessageIsReleased() throws InterruptedException {
+        dispatcher.shutdown(5, TimeUnit.SECONDS);
+        ByteBuf msg = Unpooled.copyInt(1);
+        try {
+            dispatcher.onOpenFlowCoreMessage(1L, msg, 0);
+            Assert.fail();
+        } catch (RejectedExecutionException e) {
+            Assert.assertEquals(0, msg.refCnt());
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class OutboundRingBufferTest {
+
+    @Test
+    public void testCapacityIsRoundedToPowerOfTwo() {
+        Assert.assertEquals(1, new OutboundRingBuffer(1).getCapacity());
+        Assert.assertEquals(8, new OutboundRingBuffer(8).getCapacity());
+        Assert.assertEquals(16, new OutboundRingBuffer(9).getCapacity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new OutboundRingBuffer(0);
+    }
+
+    @Test
+    public void testFifoOrder() {
+        OutboundRingBuffer buffer = new OutboundRingBuffer(4);
+        for (byte i = 0; i < 4; i++) {
+            Assert.assertTrue(buffer.offer(new byte[] { i }));
+        }
+        Assert.assertEquals(4, buffer.size());
+        for (byte i = 0; i < 4; i++) {
+            Assert.assertArrayEquals(new byte[] { i }, buffer.poll());
+        }
+        Assert.assertNull(buffer.poll());
+        Assert.assertTrue(buffer.isEmpty());
+    }
+
+    @Test
+    public void testDropsWhenFull() {
+        OutboundRingBuffer buffer = new OutboundRingBuffer(2);
+        Assert.assertTrue(buffer.offer(new byte[] { 1 }));
+        Assert.assertTrue(buffer.offer(new byte[] { 2 }));
+        Assert.assertFalse(buffer.offer(new byte[] { 3 }));
+        Assert.assertEquals(1, buffer.getDrops());
+
+        Assert.assertArrayEquals(new byte[] { 1 }, buffer.poll());
+        Assert.assertTrue(buffer.offer(new byte[] { 4 }));
+        Assert.assertArrayEquals(new byte[] { 2 }, buffer.poll());
+        Assert.assertArrayEquals(new byte[] { 4 }, buffer.poll());
+    }
+
+    @Test(timeout = 10000)
+    public void testMultipleProducers() throws InterruptedException {
+        final int producers = 4;
+        final int framesPerProducer = 10000;
+        final OutboundRingBuffer buffer = new OutboundRingBuffer(1024);
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final byte id = (byte) p;
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < framesPerProducer; i++) {
+                        byte[] frame = new byte[] { id, (byte) (i >> 8), (byte) i };
+                        while (!buffer.offer(frame)) {
+                            Thread.yield();
+                        }
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        start.countDown();
+
+        int[] lastSeen = new int[producers];
+        for (int p = 0; p < producers; p++) {
+            lastSeen[p] = -1;
+        }
+        int received = 0;
+        while (received < producers * framesPerProducer) {
+            byte[] frame = buffer.poll();
+            if (frame == null) {
+                continue;
+            }
+            int sequence = ((frame[1] & 0xFF) << 8) | (frame[2] & 0xFF);
+            // per-producer order has to be preserved
+            Assert.assertEquals((lastSeen[frame[0]] + 1) & 0xFFFF, sequence);
+            lastSeen[frame[0]] = sequence;
+            received++;
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        Assert.assertTrue(buffer.isEmpty());
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+import org.mockito.Mockito;
+import org.opendaylight.netide.netiplib.OpenFlowCodecs;
+import org.opendaylight.openflowjava.protocol.api.connection.ConnectionAdapter;
+import org.opendaylight.openflowjava.protocol.impl.deserialization.DeserializationFactory;
+import org.opendaylight.openflowjava.util.ByteBufUtils;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.GetFeaturesOutputBuilder;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.PacketInMessage;
+import org.opendaylight.yangtools.yang.binding.DataObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PACKET_IN messages a single thread relays from a switch to the core,
+ * comparing the decode and encode round trip through openflowjava with
+ * {@link SwitchFrameCapture}. The core connector only counts the frames.
+ *
+ * Run with: java -cp target/test-classes:&lt;test classpath&gt;
+ * org.openjdk.jmh.Main PacketInCaptureBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class PacketInCaptureBenchmark {
+
+    /**
+     * OpenFlow 1.3 PACKET_IN carrying a 64 byte frame, as sent by a switch.
+     */
+    private final ByteBuf frame;
+    private final CountingCoreConnector coreConnector = new CountingCoreConnector();
+    private final ConnectionAdapter switchConnection = Mockito.mock(ConnectionAdapter.class);
+    private final DeserializationFactory deserializationFactory = OpenFlowCodecs.getDefault()
+            .getDeserializationFactory();
+    private final ShimRelay relay = new ShimRelay();
+    private final SwitchFrameCapture capture;
+
+    public PacketInCaptureBenchmark() {
+        byte[] packetIn = ByteBufUtils.hexStringToBytes("04 0a 00 62 00 00 00 01 ff ff ff ff 00 40 00 00 "
+                + "00 00 00 00 00 00 00 01 00 01 00 04 00 00 00 00 00 00");
+        frame = Unpooled.buffer(packetIn.length + 64);
+        frame.writeBytes(packetIn);
+        frame.writeZero(64);
+        ConnectionAdaptersRegistry registry = new ConnectionAdaptersRegistry();
+        registry.init();
+        registry.registerConnectionAdapter(switchConnection,
+                new GetFeaturesOutputBuilder().setDatapathId(BigInteger.valueOf(42L)).build());
+        capture = new SwitchFrameCapture(coreConnector, registry, switchConnection, false);
+    }
+
+    @Benchmark
+    public long decoded() {
+        ByteBuf input = frame.duplicate();
+        short version = input.readUnsignedByte();
+        DataObject message = deserializationFactory.deserialize(input, version);
+        PacketInMessage packetIn = (PacketInMessage) message;
+        relay.sendOpenFlowMessageToCore(coreConnector, packetIn, packetIn.getVersion(), packetIn.getXid(), 42L, 0);
+        return coreConnector.sent;
+    }
+
+    @Benchmark
+    public long captured() {
+        capture.capture(frame);
+        return coreConnector.sent;
+    }
+
+    private static class CountingCoreConnector implements ICoreConnector {
+        long sent;
+
+        @Override
+        public void Start() {
+        }
+
+        @Override
+        public void Stop() {
+        }
+
+        @Override
+        public boolean SendData(byte[] data) {
+            sent += data.length;
+            return true;
+        }
+
+        @Override
+        public void RegisterCoreListener(ICoreListener listener) {
+        }
+
+        @Override
+        public int getOutboundQueueDepth() {
+            return 0;
+        }
+
+        @Override
+        public long getOutboundDrops() {
+            return 0;
+        }
+
+        @Override
+        public long getOutboundEvictions() {
+            return 0;
+        }
+
+        @Override
+        public long getOutboundLowPriorityDrops() {
+            return 0;
+        }
+
+        @Override
+        public long getOutboundBlockedSends() {
+            return 0;
+        }
+
+        @Override
+        public boolean isCoreAlive() {
+            return true;
+        }
+
+        @Override
+        public long getCoreRttMicros() {
+            return -1;
+        }
+
+        @Override
+        public long getReconnects() {
+            return 0;
+        }
+    }
+}
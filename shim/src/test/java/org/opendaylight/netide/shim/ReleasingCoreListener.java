@@ -0,0 +1,62 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+import io.netty.buffer.ByteBuf;
+import java.util.ArrayList;
+import java.util.List;
+import org.javatuples.Pair;
+import org.junit.Assert;
+import org.opendaylight.netide.netiplib.Protocol;
+import org.opendaylight.netide.netiplib.ProtocolVersions;
+
+/**
+ * Reads and releases every OpenFlow payload like the handler does, so a
+ * connector handing out a buffer it does not own fails the read or
+ * {@link #assertReleased()}. Spy on it to verify the calls.
+ */
+public class ReleasingCoreListener implements ICoreListener {
+    private final List<ByteBuf> received = new ArrayList<>();
+    private final List<byte[]> payloads = new ArrayList<>();
+
+    @Override
+    public void onOpenFlowCoreMessage(Long datapathId, ByteBuf msg, int moduleId) {
+        byte[] payload = new byte[msg.readableBytes()];
+        try {
+            msg.getBytes(msg.readerIndex(), payload);
+        } finally {
+            msg.release();
+        }
+        synchronized (this) {
+            received.add(msg);
+            payloads.add(payload);
+        }
+    }
+
+    @Override
+    public void onHelloCoreMessage(List<Pair<Protocol, ProtocolVersions>> requiredVersion, int moduleId) {
+    }
+
+    /**
+     * Gets the OpenFlow payloads read so far.
+     *
+     * @return the payloads in the order received
+     */
+    public synchronized List<byte[]> getPayloads() {
+        return new ArrayList<>(payloads);
+    }
+
+    /**
+     * Asserts that no buffer handed to this listener is referenced anymore.
+     */
+    public synchronized void assertReleased() {
+        for (ByteBuf buffer : received) {
+            Assert.assertEquals("Buffer not released: " + buffer, 0, buffer.refCnt());
+        }
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.netide.netiplib.HelloMessage;
+import org.opendaylight.netide.netiplib.Message;
+import org.opendaylight.netide.netiplib.MessageHeader;
+import org.opendaylight.netide.netiplib.MessageType;
+
+public class ShardedCoreConnectorTest {
+
+    ShardedCoreConnector connector;
+
+    @Before
+    public void setUp() {
+        CoreConnectionConfiguration configuration = new CoreConnectionConfiguration();
+        configuration.setAddress("127.0.0.1");
+        configuration.setPort(5597);
+        connector = new ShardedCoreConnector(configuration, 4);
+    }
+
+    @Test
+    public void testIdentities() {
+        Assert.assertEquals(4, connector.getShards().size());
+        Assert.assertEquals("shim", connector.getShards().get(0).getIdentity());
+        Assert.assertEquals("shim-3", connector.getShards().get(3).getIdentity());
+    }
+
+    @Test
+    public void testSameDatapathSameShard() {
+        int shard = connector.shardOf(openFlowFrame(42L, 1));
+        for (int xid = 2; xid < 100; xid++) {
+            Assert.assertEquals(shard, connector.shardOf(openFlowFrame(42L, xid)));
+        }
+    }
+
+    @Test
+    public void testDatapathsAreSpread() {
+        boolean[] used = new boolean[4];
+        for (long datapathId = 1; datapathId <= 64; datapathId++) {
+            used[connector.shardOf(openFlowFrame(datapathId, 1))] = true;
+        }
+        for (boolean shard : used) {
+            Assert.assertTrue(shard);
+        }
+    }
+
+    @Test
+    public void testFramesWithoutDatapathUseFirstShard() {
+        Assert.assertEquals(0, connector.shardOf(new HelloMessage().toByteRepresentation()));
+        Assert.assertEquals(0, connector.shardOf(new byte[] { 1, 2, 3 }));
+    }
+
+    @Test
+    public void testSendDataQueuesOnOneShard() {
+        byte[] frame = openFlowFrame(7L, 1);
+        Assert.assertTrue(connector.SendData(frame));
+        Assert.assertEquals(1, connector.getShards().get(connector.shardOf(frame)).getOutboundQueueDepth());
+        Assert.assertEquals(1, connector.getOutboundQueueDepth());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidNumberOfConnections() {
+        new ShardedCoreConnector(new CoreConnectionConfiguration(), 0);
+    }
+
+    private static byte[] openFlowFrame(long datapathId, int xid) {
+        MessageHeader header = new MessageHeader();
+        header.setMessageType(MessageType.OPENFLOW);
+        header.setDatapathId(datapathId);
+        header.setTransactionId(xid);
+        return new Message(header, new byte[0]).toByteRepresentation();
+    }
+}
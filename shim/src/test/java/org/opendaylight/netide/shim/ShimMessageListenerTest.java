@@ -180,6 +180,32 @@ public class ShimMessageListenerTest {
                 packetIn.getXid(), 1L, 0);
     }
 
+    @Test
+    public void testOnCapturedPacketInMessage() {
+        Class clazz = PacketInMessage.class;
+        Mockito.when(packetIn.getImplementedInterface()).thenReturn(clazz);
+        registry.registerConnectionAdapter(switchConnection, features);
+        SwitchFrameCapture capture = Mockito.mock(SwitchFrameCapture.class);
+        Mockito.when(capture.isPassingOnCaptured()).thenReturn(true);
+        messageListener.setFrameCapture(capture);
+        messageListener.onPacketInMessage(packetIn);
+        Mockito.verify(shimRelay, Mockito.never()).sendOpenFlowMessageToCore(connector, packetIn,
+                packetIn.getVersion(), packetIn.getXid(), 1L, 0);
+    }
+
+    @Test
+    public void testOnDeclinedPacketInMessage() {
+        Class clazz = PacketInMessage.class;
+        Mockito.when(packetIn.getImplementedInterface()).thenReturn(clazz);
+        registry.registerConnectionAdapter(switchConnection, features);
+        SwitchFrameCapture capture = Mockito.mock(SwitchFrameCapture.class);
+        Mockito.when(capture.isPassingOnCaptured()).thenReturn(false);
+        messageListener.setFrameCapture(capture);
+        messageListener.onPacketInMessage(packetIn);
+        Mockito.verify(shimRelay).sendOpenFlowMessageToCore(connector, packetIn, packetIn.getVersion(),
+                packetIn.getXid(), 1L, 0);
+    }
+
     @Test
     public void testOnPortStatusMessage() {
         Class clazz = PortStatusMessage.class;
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.opendaylight.openflowjava.protocol.api.connection.ConnectionAdapter;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.BarrierInputBuilder;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.EchoRequestMessageBuilder;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.FlowModInputBuilder;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.MultipartRequestInputBuilder;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.PacketOutInputBuilder;
+import org.opendaylight.yangtools.yang.binding.DataObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of finding the handler of a message sent to a switch, comparing the
+ * former chain of interface name comparisons with the dispatch table of
+ * {@link ShimRelay}. The messages follow the mix seen from the core in
+ * production: mostly FLOW_MOD, then PACKET_OUT, MULTIPART_REQUEST, BARRIER
+ * and ECHO_REQUEST. Every handler is replaced by one that only counts, so the
+ * switch side costs nothing.
+ *
+ * Run with: java -cp target/test-classes:&lt;test classpath&gt;
+ * org.openjdk.jmh.Main ShimRelayDispatchBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ShimRelayDispatchBenchmark {
+    private static final int MIX = 64;
+
+    /**
+     * The interface names in the order the former chain compared them.
+     */
+    private static final String[] CHAIN;
+
+    static {
+        DefaultSwitchMessageHandler[] handlers = DefaultSwitchMessageHandler.values();
+        CHAIN = new String[handlers.length];
+        for (int i = 0; i < handlers.length; i++) {
+            CHAIN[i] = handlers[i].getType().getName();
+        }
+    }
+
+    private final DataObject[] messages;
+    private final ShimRelay relay;
+    private int handled;
+
+    public ShimRelayDispatchBenchmark() {
+        List<DataObject> mix = new ArrayList<>(MIX);
+        for (int i = 0; i < 40; i++) {
+            mix.add(new FlowModInputBuilder().setXid((long) i).build());
+        }
+        for (int i = 0; i < 12; i++) {
+            mix.add(new PacketOutInputBuilder().setXid((long) i).build());
+        }
+        for (int i = 0; i < 6; i++) {
+            mix.add(new MultipartRequestInputBuilder().setXid((long) i).build());
+        }
+        for (int i = 0; i < 4; i++) {
+            mix.add(new BarrierInputBuilder().setXid((long) i).build());
+        }
+        for (int i = 0; i < 2; i++) {
+            mix.add(new EchoRequestMessageBuilder().setXid((long) i).build());
+        }
+        // interleave the kinds like a busy core does
+        messages = new DataObject[MIX];
+        for (int i = 0; i < MIX; i++) {
+            messages[(i * 37) % MIX] = mix.get(i);
+        }
+        relay = new ShimRelay();
+        SwitchMessageHandler counting = new SwitchMessageHandler() {
+            @Override
+            public Future<?> handle(ShimRelay relay, ConnectionAdapter connectionAdapter, DataObject msg,
+                    short ofVersion, ICoreConnector coreConnector, long datapathId, int moduleId) {
+                handled++;
+                return null;
+            }
+        };
+        for (DefaultSwitchMessageHandler handler : DefaultSwitchMessageHandler.values()) {
+            relay.registerHandler(handler.getType(), counting);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MIX)
+    public int dispatchChain() {
+        for (DataObject message : messages) {
+            String implementedInterface = relay.getImplementedInterface(message);
+            for (String name : CHAIN) {
+                if (implementedInterface.equals(name)) {
+                    handled++;
+                    break;
+                }
+            }
+        }
+        return handled;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MIX)
+    public int dispatchTable() {
+        for (DataObject message : messages) {
+            relay.sendDataObjectToSwitch(null, message, (short) 4, null, 1L, 1);
+        }
+        return handled;
+    }
+}
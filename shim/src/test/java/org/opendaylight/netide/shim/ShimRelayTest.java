@@ -8,20 +8,27 @@
 package org.opendaylight.netide.shim;
 
 import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.embedded.EmbeddedChannel;
 import io.netty.buffer.UnpooledByteBufAllocator;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Future;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Matchers;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.opendaylight.netide.netiplib.OpenFlowCodecs;
 import org.opendaylight.openflowjava.protocol.api.connection.ConnectionAdapter;
 import org.opendaylight.openflowjava.protocol.api.util.EncodeConstants;
 import org.opendaylight.openflowjava.protocol.impl.deserialization.DeserializationFactory;
@@ -71,6 +78,9 @@ import org.opendaylight.yangtools.yang.common.RpcResultBuilder;
 @RunWith(MockitoJUnitRunner.class)
 public class ShimRelayTest {
 
+    @Rule
+    public BufferLeakRule leaks = new BufferLeakRule();
+
     @Mock
     ZeroMQBaseConnector coreConnector;
 
@@ -83,8 +93,8 @@ public class ShimRelayTest {
     @Mock
     ConnectionAdapter connectionAdapter;
 
-    @Mock
-    ShimRelay shimRelay;
+    @Spy
+    ShimRelay shimRelay = new ShimRelay();
 
     short ofVersion = EncodeConstants.OF13_VERSION_ID;
 
@@ -108,24 +118,34 @@ public class ShimRelayTest {
         Mockito.when(coreConnector.SendData(Matchers.any(byte[].class))).thenReturn(true);
         Mockito.when(deserializationFactory.deserialize(Matchers.any(ByteBuf.class), Mockito.eq(ofVersion)))
                 .thenReturn(msg);
-        Mockito.when(shimRelay.createDeserializationFactory()).thenReturn(deserializationFactory);
-        Mockito.when(shimRelay.createSerializationFactory()).thenReturn(factory);
+        Mockito.doReturn(deserializationFactory).when(shimRelay).createDeserializationFactory();
+        Mockito.doReturn(factory).when(shimRelay).createSerializationFactory();
+        shimRelay.setAllocator(leaks.allocator());
 
     }
 
     @Test
     public void testSendOpenFlowMessageToCore() {
-        Mockito.doCallRealMethod().when(shimRelay).sendOpenFlowMessageToCore(coreConnector, msg, ofVersion, 1L, 1, 1);
         shimRelay.sendOpenFlowMessageToCore(coreConnector, msg, ofVersion, 1L, 1, 1);
         Mockito.verify(factory).messageToBuffer(Mockito.eq(ofVersion), Matchers.any(ByteBuf.class), Mockito.eq(msg));
         Mockito.verify(coreConnector).SendData(Matchers.any(byte[].class));
     }
 
+    @Test
+    public void testSendOpenFlowMessageToCoreReleasesOnFailure() {
+        Mockito.doThrow(new IllegalArgumentException()).when(factory).messageToBuffer(Mockito.eq(ofVersion),
+                Matchers.any(ByteBuf.class), Mockito.eq(msg));
+        try {
+            shimRelay.sendOpenFlowMessageToCore(coreConnector, msg, ofVersion, 1L, 1, 1);
+            Assert.fail();
+        } catch (IllegalArgumentException e) {
+            Mockito.verify(coreConnector, Mockito.never()).SendData(Matchers.any(byte[].class));
+        }
+    }
+
     @Test
     public void testSendToSwitch() {
         ByteBuf input = UnpooledByteBufAllocator.DEFAULT.buffer();
-        Mockito.doCallRealMethod().when(shimRelay).sendToSwitch(connectionAdapter, input, ofVersion, coreConnector, 1L,
-                1);
         shimRelay.sendToSwitch(connectionAdapter, input, ofVersion, coreConnector, 1L, 1);
         Mockito.verify(shimRelay).sendDataObjectToSwitch(connectionAdapter, msg, ofVersion, coreConnector, 1L, 1);
     }
@@ -138,13 +158,7 @@ public class ShimRelayTest {
 
         BarrierInput message = Mockito.mock(BarrierInput.class);
         Mockito.doReturn(1L).when(message).getXid();
-        String className = BarrierInput.class.getName();
-        Mockito.doReturn(className).when(shimRelay).getImplementedInterface(message);
-        Mockito.doCallRealMethod().when(shimRelay).sendDataObjectToSwitch(connectionAdapter, message, ofVersion,
-                coreConnector, 1L, 1);
-
-        Mockito.doCallRealMethod().when(shimRelay).sendResponseToCore(reply, coreConnector, ofVersion, 1L, 1, 1);
-
+        Mockito.doReturn(BarrierInput.class).when(message).getImplementedInterface();
         shimRelay.sendDataObjectToSwitch(connectionAdapter, message, ofVersion, coreConnector, 1L, 1);
         Mockito.verify(connectionAdapter).barrier(Matchers.any(BarrierInput.class));
         Mockito.verify(shimRelay).sendResponseToCore(reply, coreConnector, ofVersion, 1L, 1, 1);
@@ -162,13 +176,7 @@ public class ShimRelayTest {
 
         EchoInput message = Mockito.mock(EchoInput.class);
         Mockito.doReturn(1L).when(message).getXid();
-        String className = EchoInput.class.getName();
-        Mockito.doReturn(className).when(shimRelay).getImplementedInterface(message);
-        Mockito.doCallRealMethod().when(shimRelay).sendDataObjectToSwitch(connectionAdapter, message, ofVersion,
-                coreConnector, 1L, 1);
-
-        Mockito.doCallRealMethod().when(shimRelay).sendResponseToCore(reply, coreConnector, ofVersion, 1L, 1, 1);
-
+        Mockito.doReturn(EchoInput.class).when(message).getImplementedInterface();
         shimRelay.sendDataObjectToSwitch(connectionAdapter, message, ofVersion, coreConnector, 1L, 1);
         Mockito.verify(connectionAdapter).echo(Matchers.any(EchoInput.class));
         Mockito.verify(shimRelay).sendResponseToCore(reply, coreConnector, ofVersion, 1L, 1, 1);
@@ -181,10 +189,7 @@ public class ShimRelayTest {
     public void testSendEchoOutputToSwitch() {
         EchoOutput message = Mockito.mock(EchoOutput.class);
         Mockito.doReturn(1L).when(message).getXid();
-        String className = EchoOutput.class.getName();
-        Mockito.doReturn(className).when(shimRelay).getImplementedInterface(message);
-        Mockito.doCallRealMethod().when(shimRelay).sendDataObjectToSwitch(connectionAdapter, message, ofVersion,
-                coreConnector, 1L, 1);
+        Mockito.doReturn(EchoOutput.class).when(message).getImplementedInterface();
         shimRelay.sendDataObjectToSwitch(connectionAdapter, message, ofVersion, coreConnector, 1L, 1);
         Mockito.verify(connectionAdapter).echoReply(Matchers.any(EchoReplyInput.class));
     }
@@ -193,10 +198,7 @@ public class ShimRelayTest {
     public void testSendExperimenterInputToSwitch() {
         ExperimenterInput message = Mockito.mock(ExperimenterInput.class);
         Mockito.doReturn(1L).when(message).getXid();
-        String className = ExperimenterInput.class.getName();
-        Mockito.doReturn(className).when(shimRelay).getImplementedInterface(message);
-        Mockito.doCallRealMethod().when(shimRelay).sendDataObjectToSwitch(connectionAdapter, message, ofVersion,
-                coreConnector, 1L, 1);
+        Mockito.doReturn(ExperimenterInput.class).when(message).getImplementedInterface();
         shimRelay.sendDataObjectToSwitch(connectionAdapter, message, ofVersion, coreConnector, 1L, 1);
         Mockito.verify(connectionAdapter).experimenter(Matchers.any(ExperimenterInput.class));
     }
@@ -205,10 +207,7 @@ public class ShimRelayTest {
     public void testSendFlowModInputToSwitch() {
         FlowModInput message = Mockito.mock(FlowModInput.class);
         Mockito.doReturn(1L).when(message).getXid();
-        String className = FlowModInput.class.getName();
-        Mockito.doReturn(className).when(shimRelay).getImplementedInterface(message);
-        Mockito.doCallRealMethod().when(shimRelay).sendDataObjectToSwitch(connectionAdapter, message, ofVersion,
-                coreConnector, 1L, 1);
+        Mockito.doReturn(FlowModInput.class).when(message).getImplementedInterface();
         shimRelay.sendDataObjectToSwitch(connectionAdapter, message, ofVersion, coreConnector, 1L, 1);
         Mockito.verify(connectionAdapter).flowMod(Matchers.any(FlowModInput.class));
     }
@@ -223,13 +222,7 @@ public class ShimRelayTest {
 
         GetAsyncInput message = Mockito.mock(GetAsyncInput.class);
         Mockito.doReturn(1L).when(message).getXid();
-        String className = GetAsyncInput.class.getName();
-        Mockito.doReturn(className).when(shimRelay).getImplementedInterface(message);
-        Mockito.doCallRealMethod().when(shimRelay).sendDataObjectToSwitch(connectionAdapter, message, ofVersion,
-                coreConnector, 1L, 1);
-
-        Mockito.doCallRealMethod().when(shimRelay).sendResponseToCore(reply, coreConnector, ofVersion, 1L, 1, 1);
-
+        Mockito.doReturn(GetAsyncInput.class).when(message).getImplementedInterface();
         shimRelay.sendDataObjectToSwitch(connectionAdapter, message, ofVersion, coreConnector, 1L, 1);
         Mockito.verify(connectionAdapter).getAsync(Matchers.any(GetAsyncInput.class));
         Mockito.verify(shimRelay).sendResponseToCore(reply, coreConnector, ofVersion, 1L, 1, 1);
@@ -247,13 +240,7 @@ public class ShimRelayTest {
 
         GetConfigInput message = Mockito.mock(GetConfigInput.class);
         Mockito.doReturn(1L).when(message).getXid();
-        String className = GetConfigInput.class.getName();
-        Mockito.doReturn(className).when(shimRelay).getImplementedInterface(message);
-        Mockito.doCallRealMethod().when(shimRelay).sendDataObjectToSwitch(connectionAdapter, message, ofVersion,
-                coreConnector, 1L, 1);
-
-        Mockito.doCallRealMethod().when(shimRelay).sendResponseToCore(reply, coreConnector, ofVersion, 1L, 1, 1);
-
+        Mockito.doReturn(GetConfigInput.class).when(message).getImplementedInterface();
         shimRelay.sendDataObjectToSwitch(connectionAdapter, message, ofVersion, coreConnector, 1L, 1);
         Mockito.verify(connectionAdapter).getConfig(Matchers.any(GetConfigInput.class));
         Mockito.verify(shimRelay).sendResponseToCore(reply, coreConnector, ofVersion, 1L, 1, 1);
@@ -271,13 +258,7 @@ public class ShimRelayTest {
 
         GetFeaturesInput message = Mockito.mock(GetFeaturesInput.class);
         Mockito.doReturn(1L).when(message).getXid();
-        String className = GetFeaturesInput.class.getName();
-        Mockito.doReturn(className).when(shimRelay).getImplementedInterface(message);
-        Mockito.doCallRealMethod().when(shimRelay).sendDataObjectToSwitch(connectionAdapter, message, ofVersion,
-                coreConnector, 1L, 1);
-
-        Mockito.doCallRealMethod().when(shimRelay).sendResponseToCore(reply, coreConnector, ofVersion, 1L, 1, 1);
-
+        Mockito.doReturn(GetFeaturesInput.class).when(message).getImplementedInterface();
         shimRelay.sendDataObjectToSwitch(connectionAdapter, message, ofVersion, coreConnector, 1L, 1);
         Mockito.verify(connectionAdapter).getFeatures(Matchers.any(GetFeaturesInput.class));
         Mockito.verify(shimRelay).sendResponseToCore(reply, coreConnector, ofVersion, 1L, 1, 1);
@@ -295,13 +276,7 @@ public class ShimRelayTest {
 
         GetQueueConfigInput message = Mockito.mock(GetQueueConfigInput.class);
         Mockito.doReturn(1L).when(message).getXid();
-        String className = GetQueueConfigInput.class.getName();
-        Mockito.doReturn(className).when(shimRelay).getImplementedInterface(message);
-        Mockito.doCallRealMethod().when(shimRelay).sendDataObjectToSwitch(connectionAdapter, message, ofVersion,
-                coreConnector, 1L, 1);
-
-        Mockito.doCallRealMethod().when(shimRelay).sendResponseToCore(reply, coreConnector, ofVersion, 1L, 1, 1);
-
+        Mockito.doReturn(GetQueueConfigInput.class).when(message).getImplementedInterface();
         shimRelay.sendDataObjectToSwitch(connectionAdapter, message, ofVersion, coreConnector, 1L, 1);
         Mockito.verify(connectionAdapter).getQueueConfig(Matchers.any(GetQueueConfigInput.class));
 
@@ -314,10 +289,7 @@ public class ShimRelayTest {
     public void testSendGroupModInputToSwitch() {
         GroupModInput message = Mockito.mock(GroupModInput.class);
         Mockito.doReturn(1L).when(message).getXid();
-        String className = GroupModInput.class.getName();
-        Mockito.doReturn(className).when(shimRelay).getImplementedInterface(message);
-        Mockito.doCallRealMethod().when(shimRelay).sendDataObjectToSwitch(connectionAdapter, message, ofVersion,
-                coreConnector, 1L, 1);
+        Mockito.doReturn(GroupModInput.class).when(message).getImplementedInterface();
         shimRelay.sendDataObjectToSwitch(connectionAdapter, message, ofVersion, coreConnector, 1L, 1);
         Mockito.verify(connectionAdapter).groupMod(Matchers.any(GroupModInput.class));
     }
@@ -326,10 +298,7 @@ public class ShimRelayTest {
     public void testSendHelloInputToSwitch() {
         HelloInput message = Mockito.mock(HelloInput.class);
         Mockito.doReturn(1L).when(message).getXid();
-        String className = HelloInput.class.getName();
-        Mockito.doReturn(className).when(shimRelay).getImplementedInterface(message);
-        Mockito.doCallRealMethod().when(shimRelay).sendDataObjectToSwitch(connectionAdapter, message, ofVersion,
-                coreConnector, 1L, 1);
+        Mockito.doReturn(HelloInput.class).when(message).getImplementedInterface();
         shimRelay.sendDataObjectToSwitch(connectionAdapter, message, ofVersion, coreConnector, 1L, 1);
         Mockito.verify(connectionAdapter).hello(Matchers.any(HelloInput.class));
     }
@@ -338,10 +307,7 @@ public class ShimRelayTest {
     public void testSendMeterModInputToSwitch() {
         MeterModInput message = Mockito.mock(MeterModInput.class);
         Mockito.doReturn(1L).when(message).getXid();
-        String className = MeterModInput.class.getName();
-        Mockito.doReturn(className).when(shimRelay).getImplementedInterface(message);
-        Mockito.doCallRealMethod().when(shimRelay).sendDataObjectToSwitch(connectionAdapter, message, ofVersion,
-                coreConnector, 1L, 1);
+        Mockito.doReturn(MeterModInput.class).when(message).getImplementedInterface();
         shimRelay.sendDataObjectToSwitch(connectionAdapter, message, ofVersion, coreConnector, 1L, 1);
         Mockito.verify(connectionAdapter).meterMod(Matchers.any(MeterModInput.class));
     }
@@ -350,10 +316,7 @@ public class ShimRelayTest {
     public void testSendPacketOutInputToSwitch() {
         PacketOutInput message = Mockito.mock(PacketOutInput.class);
         Mockito.doReturn(1L).when(message).getXid();
-        String className = PacketOutInput.class.getName();
-        Mockito.doReturn(className).when(shimRelay).getImplementedInterface(message);
-        Mockito.doCallRealMethod().when(shimRelay).sendDataObjectToSwitch(connectionAdapter, message, ofVersion,
-                coreConnector, 1L, 1);
+        Mockito.doReturn(PacketOutInput.class).when(message).getImplementedInterface();
         shimRelay.sendDataObjectToSwitch(connectionAdapter, message, ofVersion, coreConnector, 1L, 1);
         Mockito.verify(connectionAdapter).packetOut(Matchers.any(PacketOutInput.class));
     }
@@ -362,10 +325,7 @@ public class ShimRelayTest {
     public void testSendPortModInputToSwitch() {
         PortModInput message = Mockito.mock(PortModInput.class);
         Mockito.doReturn(1L).when(message).getXid();
-        String className = PortModInput.class.getName();
-        Mockito.doReturn(className).when(shimRelay).getImplementedInterface(message);
-        Mockito.doCallRealMethod().when(shimRelay).sendDataObjectToSwitch(connectionAdapter, message, ofVersion,
-                coreConnector, 1L, 1);
+        Mockito.doReturn(PortModInput.class).when(message).getImplementedInterface();
         shimRelay.sendDataObjectToSwitch(connectionAdapter, message, ofVersion, coreConnector, 1L, 1);
         Mockito.verify(connectionAdapter).portMod(Matchers.any(PortModInput.class));
     }
@@ -374,10 +334,7 @@ public class ShimRelayTest {
     public void testSendSetAsyncInputToSwitch() {
         SetAsyncInput message = Mockito.mock(SetAsyncInput.class);
         Mockito.doReturn(1L).when(message).getXid();
-        String className = SetAsyncInput.class.getName();
-        Mockito.doReturn(className).when(shimRelay).getImplementedInterface(message);
-        Mockito.doCallRealMethod().when(shimRelay).sendDataObjectToSwitch(connectionAdapter, message, ofVersion,
-                coreConnector, 1L, 1);
+        Mockito.doReturn(SetAsyncInput.class).when(message).getImplementedInterface();
         shimRelay.sendDataObjectToSwitch(connectionAdapter, message, ofVersion, coreConnector, 1L, 1);
         Mockito.verify(connectionAdapter).setAsync(Matchers.any(SetAsyncInput.class));
     }
@@ -386,10 +343,7 @@ public class ShimRelayTest {
     public void testSendSetConfigInputToSwitch() {
         SetConfigInput message = Mockito.mock(SetConfigInput.class);
         Mockito.doReturn(1L).when(message).getXid();
-        String className = SetConfigInput.class.getName();
-        Mockito.doReturn(className).when(shimRelay).getImplementedInterface(message);
-        Mockito.doCallRealMethod().when(shimRelay).sendDataObjectToSwitch(connectionAdapter, message, ofVersion,
-                coreConnector, 1L, 1);
+        Mockito.doReturn(SetConfigInput.class).when(message).getImplementedInterface();
         shimRelay.sendDataObjectToSwitch(connectionAdapter, message, ofVersion, coreConnector, 1L, 1);
         Mockito.verify(connectionAdapter).setConfig(Matchers.any(SetConfigInput.class));
     }
@@ -398,33 +352,116 @@ public class ShimRelayTest {
     public void testSendTableModInputToSwitch() {
         TableModInput message = Mockito.mock(TableModInput.class);
         Mockito.doReturn(1L).when(message).getXid();
-        String className = TableModInput.class.getName();
-        Mockito.doReturn(className).when(shimRelay).getImplementedInterface(message);
-        Mockito.doCallRealMethod().when(shimRelay).sendDataObjectToSwitch(connectionAdapter, message, ofVersion,
-                coreConnector, 1L, 1);
+        Mockito.doReturn(TableModInput.class).when(message).getImplementedInterface();
         shimRelay.sendDataObjectToSwitch(connectionAdapter, message, ofVersion, coreConnector, 1L, 1);
         Mockito.verify(connectionAdapter).tableMod(Matchers.any(TableModInput.class));
     }
 
+    @Test
+    public void testRegisteredHandlerReplacesDefault() {
+        ShimRelay relay = new ShimRelay();
+        SwitchMessageHandler handler = Mockito.mock(SwitchMessageHandler.class);
+        relay.registerHandler(TableModInput.class, handler);
+        TableModInput message = new TableModInputBuilder().build();
+        relay.sendDataObjectToSwitch(connectionAdapter, message, ofVersion, coreConnector, 1L, 1);
+        Mockito.verify(handler).handle(relay, connectionAdapter, message, ofVersion, coreConnector, 1L, 1);
+        Mockito.verify(connectionAdapter, Mockito.never()).tableMod(Matchers.any(TableModInput.class));
+    }
+
+    @Test
+    public void testForwardRawToSwitch() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ChannelAdapter adapter = Mockito.mock(ChannelAdapter.class);
+        adapter.channel = channel;
+        ShimRelay relay = new ShimRelay();
+        relay.setRawForwardingEnabled(true);
+        byte[] flowMod = new byte[] { 0x04, 0x0e, 0x00, 0x08, 0x00, 0x00, 0x00, 0x07 };
+        ByteBuf input = Unpooled.wrappedBuffer(flowMod);
+        input.readUnsignedByte();
+        Assert.assertTrue(relay.forwardRawToSwitch(adapter, input, ofVersion));
+        Assert.assertEquals(1, input.readerIndex());
+        ByteBuf written = (ByteBuf) channel.readOutbound();
+        Assert.assertEquals(Unpooled.wrappedBuffer(flowMod), written);
+        written.release();
+        Mockito.verifyZeroInteractions(adapter);
+    }
+
+    @Test
+    public void testForwardRawToSwitchLeavesOtherMessages() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ChannelAdapter adapter = Mockito.mock(ChannelAdapter.class);
+        adapter.channel = channel;
+        ShimRelay relay = new ShimRelay();
+        byte[] flowMod = new byte[] { 0x04, 0x0e, 0x00, 0x08, 0x00, 0x00, 0x00, 0x07 };
+        byte[] barrier = new byte[] { 0x04, 0x14, 0x00, 0x08, 0x00, 0x00, 0x00, 0x07 };
+        Assert.assertFalse(relay.forwardRawToSwitch(adapter, afterVersion(flowMod), ofVersion));
+        relay.setRawForwardingEnabled(true);
+        Assert.assertFalse(relay.forwardRawToSwitch(adapter, afterVersion(barrier), ofVersion));
+        Assert.assertFalse(relay.forwardRawToSwitch(adapter, afterVersion(flowMod), EncodeConstants.OF10_VERSION_ID));
+        Assert.assertNull(channel.readOutbound());
+    }
+
+    @Test
+    public void testForwardRawToSwitchWaitsForDecodedWrites() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        ChannelAdapter adapter = Mockito.mock(ChannelAdapter.class);
+        adapter.channel = channel;
+        SettableFuture<RpcResult<Void>> decodedWrite = SettableFuture.create();
+        Mockito.when(adapter.flowMod(Matchers.any(FlowModInput.class))).thenReturn(decodedWrite);
+        ShimRelay relay = new ShimRelay();
+        relay.setRawForwardingEnabled(true);
+        FlowModInput message = Mockito.mock(FlowModInput.class);
+        Mockito.doReturn(FlowModInput.class).when(message).getImplementedInterface();
+        relay.sendDataObjectToSwitch(adapter, message, ofVersion, coreConnector, 1L, 1);
+        byte[] flowMod = new byte[] { 0x04, 0x0e, 0x00, 0x08, 0x00, 0x00, 0x00, 0x07 };
+        Assert.assertFalse(relay.forwardRawToSwitch(adapter, afterVersion(flowMod), ofVersion));
+        Assert.assertNull(channel.readOutbound());
+        decodedWrite.set(RpcResultBuilder.<Void> success().build());
+        Assert.assertTrue(relay.forwardRawToSwitch(adapter, afterVersion(flowMod), ofVersion));
+        ((ByteBuf) channel.readOutbound()).release();
+    }
+
+    @Test
+    public void testForwardRawToSwitchDisabledWithoutChannel() {
+        ShimRelay relay = new ShimRelay();
+        relay.setRawForwardingEnabled(true);
+        byte[] flowMod = new byte[] { 0x04, 0x0e, 0x00, 0x08, 0x00, 0x00, 0x00, 0x07 };
+        Assert.assertFalse(relay.forwardRawToSwitch(connectionAdapter, afterVersion(flowMod), ofVersion));
+        Assert.assertFalse(relay.isRawForwardingEnabled());
+    }
+
     @Test
     public void testGetImplementedInterface() {
         TableModInputBuilder builder = new TableModInputBuilder();
         TableModInput message = builder.build();
-        Mockito.doCallRealMethod().when(shimRelay).getImplementedInterface(message);
         Assert.assertEquals(TableModInput.class.getName(), shimRelay.getImplementedInterface(message));
     }
 
     @Test
     public void testCreateSerializationFactory() {
-        Mockito.doCallRealMethod().when(shimRelay).createSerializationFactory();
-        Assert.assertEquals(new SerializationFactory().getClass(), shimRelay.createSerializationFactory().getClass());
+        ShimRelay relay = new ShimRelay();
+        Assert.assertEquals(new SerializationFactory().getClass(), relay.createSerializationFactory().getClass());
+        Assert.assertSame(OpenFlowCodecs.getDefault().getSerializationFactory(), relay.createSerializationFactory());
     }
 
     @Test
     public void testCreateDeserializationFactory() {
-        Mockito.doCallRealMethod().when(shimRelay).createDeserializationFactory();
-        Assert.assertEquals(new DeserializationFactory().getClass(),
-                shimRelay.createDeserializationFactory().getClass());
+        ShimRelay relay = new ShimRelay();
+        Assert.assertEquals(new DeserializationFactory().getClass(), relay.createDeserializationFactory().getClass());
+        Assert.assertSame(relay.createDeserializationFactory(), relay.createDeserializationFactory());
+    }
+
+    private static ByteBuf afterVersion(byte[] message) {
+        ByteBuf input = Unpooled.wrappedBuffer(message);
+        input.readUnsignedByte();
+        return input;
     }
 
+    /**
+     * A switch connection keeping its channel in a field, like the one of
+     * openflowjava.
+     */
+    abstract static class ChannelAdapter implements ConnectionAdapter {
+        Channel channel;
+    }
 }
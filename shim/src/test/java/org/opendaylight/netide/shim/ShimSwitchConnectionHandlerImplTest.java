@@ -12,6 +12,7 @@ import static org.hamcrest.CoreMatchers.is;
 
 import com.google.common.util.concurrent.Futures;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import java.math.BigInteger;
 import java.net.Inet4Address;
 import java.net.Inet6Address;
@@ -31,7 +32,10 @@ import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.opendaylight.controller.md.sal.binding.api.NotificationPublishService;
+import org.opendaylight.netide.netiplib.BatchMessage;
+import org.opendaylight.netide.netiplib.FragmentMessage;
 import org.opendaylight.netide.netiplib.HelloMessage;
+import org.opendaylight.netide.netiplib.OpenFlowCodecs;
 import org.opendaylight.netide.netiplib.Protocol;
 import org.opendaylight.netide.netiplib.ProtocolVersions;
 import org.opendaylight.openflowjava.protocol.api.connection.ConnectionAdapter;
@@ -111,6 +115,23 @@ public class ShimSwitchConnectionHandlerImplTest {
         Assert.assertEquals(true, connectionHandler.accept(address));
     }
 
+    @Test
+    public void testHandlersKeepTheirCoreConnectors() {
+        ICoreConnector other = Mockito.mock(ICoreConnector.class);
+        new ShimSwitchConnectionHandlerImpl(other, notificationProviderService);
+        Assert.assertSame(coreConnector, connectionHandler.getCoreConnector());
+    }
+
+    @Test
+    public void testRelayUsesInjectedCodecs() {
+        OpenFlowCodecs codecs = new OpenFlowCodecs();
+        ShimSwitchConnectionHandlerImpl handler = new ShimSwitchConnectionHandlerImpl(coreConnector,
+                notificationProviderService, codecs);
+        Assert.assertSame(codecs.getSerializationFactory(),
+                handler.createShimRelay().createSerializationFactory());
+        handler.close();
+    }
+
     @Test
     public void testOnSwitchConnected() {
         Mockito.doNothing().when(connectionHandler).handshake(connectionAdapter);
@@ -183,6 +204,19 @@ public class ShimSwitchConnectionHandlerImplTest {
                 1L, 0);
     }
 
+    @Test
+    public void testOnOpenFlowCoreMessageReleasesBuffer() {
+        ByteBuf payload = PooledByteBufAllocator.DEFAULT.buffer();
+        payload.writeBytes(new byte[] { 0x04, 0x14, 0x00, 0x08, 0x00, 0x00, 0x00, 0x01 });
+        Mockito.doReturn(connectionAdapter).when(registry).getConnectionAdapter(1L);
+        connectionHandler.onOpenFlowCoreMessage(1L, payload, 0);
+        Assert.assertEquals(0, payload.refCnt());
+
+        ByteBuf unknownSwitch = PooledByteBufAllocator.DEFAULT.buffer();
+        connectionHandler.onOpenFlowCoreMessage(2L, unknownSwitch, 0);
+        Assert.assertEquals(0, unknownSwitch.refCnt());
+    }
+
     @Test
     public void testOnHelloCoreMessage() {
         Mockito.doNothing().when(connectionHandler).sendGetFeaturesOuputToCore((short) EncodeConstants.OF13_VERSION_ID,
@@ -206,6 +240,45 @@ public class ShimSwitchConnectionHandlerImplTest {
                 connectionAdapter);
     }
 
+    @Test
+    public void testOnHelloCoreMessageGrantsBatching() {
+        Mockito.doNothing().when(connectionHandler).sendGetFeaturesOuputToCore((short) EncodeConstants.OF13_VERSION_ID,
+                0, connectionAdapter);
+        Pair<Protocol, ProtocolVersions> supportedProtocol = new Pair<Protocol, ProtocolVersions>(Protocol.OPENFLOW,
+                ProtocolVersions.OPENFLOW_1_3);
+        Mockito.stub(connectionHandler.getSupportedProtocol()).toReturn(supportedProtocol);
+        Mockito.stub(registry.getConnectionAdapters()).toReturn(new HashSet<ConnectionAdapter>());
+        List<Pair<Protocol, ProtocolVersions>> requestedProtocols = new ArrayList<>();
+        requestedProtocols.add(supportedProtocol);
+        requestedProtocols.add(BatchMessage.CAPABILITY);
+        HelloMessage msg = new HelloMessage();
+        msg.getSupportedProtocols().add(supportedProtocol);
+        msg.getSupportedProtocols().add(BatchMessage.CAPABILITY);
+        msg.getHeader().setPayloadLength((short) 4);
+        msg.getHeader().setModuleId(0);
+        connectionHandler.onHelloCoreMessage(requestedProtocols, 0);
+        Mockito.verify(coreConnector).SendData(msg.toByteRepresentation());
+    }
+
+    @Test
+    public void testOnHelloCoreMessageGrantsFragmentation() {
+        Pair<Protocol, ProtocolVersions> supportedProtocol = new Pair<Protocol, ProtocolVersions>(Protocol.OPENFLOW,
+                ProtocolVersions.OPENFLOW_1_3);
+        Mockito.stub(connectionHandler.getSupportedProtocol()).toReturn(supportedProtocol);
+        Mockito.stub(registry.getConnectionAdapters()).toReturn(new HashSet<ConnectionAdapter>());
+        List<Pair<Protocol, ProtocolVersions>> requestedProtocols = new ArrayList<>();
+        requestedProtocols.add(supportedProtocol);
+        requestedProtocols.add(FragmentMessage.CAPABILITY);
+        HelloMessage msg = new HelloMessage();
+        msg.getSupportedProtocols().add(supportedProtocol);
+        msg.getSupportedProtocols().add(FragmentMessage.CAPABILITY);
+        msg.getHeader().setPayloadLength((short) 4);
+        msg.getHeader().setModuleId(0);
+        connectionHandler.onHelloCoreMessage(requestedProtocols, 0);
+        Mockito.verify(coreConnector).SendData(msg.toByteRepresentation());
+        Mockito.verify(shimRelay).setFragmentationEnabled(true);
+    }
+
     @Test
     public void testCollectGetFeaturesOutput() {
         Mockito.doReturn(nodeUpdated).when(connectionHandler).nodeAdded(connectionAdapter);
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.ReferenceCountUtil;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Matchers;
+import org.mockito.Mockito;
+import org.opendaylight.netide.netiplib.Message;
+import org.opendaylight.netide.netiplib.MessageHeader;
+import org.opendaylight.netide.netiplib.MessageType;
+import org.opendaylight.netide.netiplib.NetIPConverter;
+import org.opendaylight.openflowjava.protocol.api.connection.ConnectionAdapter;
+
+public class SwitchFrameCaptureTest {
+    /**
+     * OpenFlow 1.3 PACKET_IN without match and data, xid 7.
+     */
+    static final byte[] PACKET_IN = new byte[] { 0x04, 0x0a, 0x00, 0x22, 0x00, 0x00, 0x00, 0x07, 0x00, 0x00, 0x00,
+            0x01, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x01, 0x00, 0x01, 0x00, 0x04, 0x00,
+            0x00, 0x00, 0x00, 0x00, 0x00 };
+    static final byte[] ECHO_REQUEST = new byte[] { 0x04, 0x02, 0x00, 0x08, 0x00, 0x00, 0x00, 0x09 };
+
+    ICoreConnector coreConnector;
+    ConnectionAdaptersRegistry registry;
+    ConnectionAdapter switchConnection;
+
+    @Before
+    public void setUp() {
+        coreConnector = Mockito.mock(ICoreConnector.class);
+        registry = Mockito.mock(ConnectionAdaptersRegistry.class);
+        switchConnection = Mockito.mock(ConnectionAdapter.class);
+        Mockito.when(registry.getDatapathID(switchConnection)).thenReturn(BigInteger.valueOf(42L));
+    }
+
+    @Test
+    public void testPacketInIsSentToCore() {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new SwitchFrameCapture(coreConnector, registry, switchConnection, false));
+        ByteBuf frame = Unpooled.wrappedBuffer(PACKET_IN);
+        channel.writeInbound(frame);
+        Assert.assertNull(channel.readInbound());
+        Assert.assertEquals(0, frame.refCnt());
+        ArgumentCaptor<byte[]> sent = ArgumentCaptor.forClass(byte[].class);
+        Mockito.verify(coreConnector).SendData(sent.capture());
+        Message message = NetIPConverter.parseConcreteMessage(sent.getValue());
+        Assert.assertEquals(MessageType.OPENFLOW, message.getHeader().getMessageType());
+        Assert.assertEquals(42L, message.getHeader().getDatapathId());
+        Assert.assertEquals(7, message.getHeader().getTransactionId());
+        Assert.assertArrayEquals(PACKET_IN, message.getPayload());
+    }
+
+    @Test
+    public void testPacketInIsPassedOnForNotifications() {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new SwitchFrameCapture(coreConnector, registry, switchConnection, true));
+        channel.writeInbound(Unpooled.wrappedBuffer(PACKET_IN));
+        Mockito.verify(coreConnector).SendData(Matchers.any(byte[].class));
+        Assert.assertEquals(Unpooled.wrappedBuffer(PACKET_IN), channel.readInbound());
+    }
+
+    @Test
+    public void testCaptureIsMarkedWhilePassedOn() {
+        final SwitchFrameCapture capture = new SwitchFrameCapture(coreConnector, registry, switchConnection, true);
+        final List<Boolean> marks = new ArrayList<>();
+        EmbeddedChannel channel = new EmbeddedChannel(capture, new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                marks.add(capture.isPassingOnCaptured());
+                ReferenceCountUtil.release(msg);
+            }
+        });
+        channel.writeInbound(Unpooled.wrappedBuffer(PACKET_IN));
+        channel.writeInbound(Unpooled.wrappedBuffer(ECHO_REQUEST));
+        Assert.assertEquals(Arrays.asList(true, false), marks);
+        Assert.assertFalse(capture.isPassingOnCaptured());
+    }
+
+    @Test
+    public void testDatapathIdIsLookedUpOnce() {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new SwitchFrameCapture(coreConnector, registry, switchConnection, false));
+        channel.writeInbound(Unpooled.wrappedBuffer(PACKET_IN));
+        channel.writeInbound(Unpooled.wrappedBuffer(PACKET_IN));
+        Mockito.verify(coreConnector, Mockito.times(2)).SendData(Matchers.any(byte[].class));
+        Mockito.verify(registry).getDatapathID(switchConnection);
+    }
+
+    @Test
+    public void testOversizedFrameIsPassedOn() {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new SwitchFrameCapture(coreConnector, registry, switchConnection, false));
+        ByteBuf frame = Unpooled.buffer();
+        frame.writeBytes(PACKET_IN);
+        frame.writeZero(MessageHeader.MAX_PAYLOAD_BYTES);
+        channel.writeInbound(frame);
+        Assert.assertSame(frame, channel.readInbound());
+        Mockito.verify(coreConnector, Mockito.never()).SendData(Matchers.any(byte[].class));
+    }
+
+    @Test
+    public void testOtherMessagesArePassedOn() {
+        EmbeddedChannel channel = new EmbeddedChannel(
+                new SwitchFrameCapture(coreConnector, registry, switchConnection, false));
+        channel.writeInbound(Unpooled.wrappedBuffer(ECHO_REQUEST));
+        Mockito.when(registry.getDatapathID(switchConnection)).thenReturn(null);
+        channel.writeInbound(Unpooled.wrappedBuffer(PACKET_IN));
+        Assert.assertEquals(Unpooled.wrappedBuffer(ECHO_REQUEST), channel.readInbound());
+        Assert.assertEquals(Unpooled.wrappedBuffer(PACKET_IN), channel.readInbound());
+        Mockito.verify(coreConnector, Mockito.never()).SendData(Matchers.any(byte[].class));
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.netide.netiplib.OpenFlowCodecs;
+import org.opendaylight.yang.gen.v1.urn.opendaylight.openflow.protocol.rev130731.BarrierOutput;
+import org.opendaylight.yangtools.yang.common.RpcResult;
+import org.opendaylight.yangtools.yang.common.RpcResultBuilder;
+
+public class SwitchRepliesTest {
+
+    SwitchReplies replies;
+
+    @Before
+    public void setUp() {
+        replies = new SwitchReplies();
+    }
+
+    @After
+    public void tearDown() {
+        replies.close();
+    }
+
+    @Test
+    public void testListenableFutureCompletes() throws Exception {
+        SettableFuture<String> reply = SettableFuture.create();
+        ListenableFuture<String> listenable = replies.listenable(reply);
+        Assert.assertFalse(listenable.isDone());
+        reply.set("reply");
+        Assert.assertEquals("reply", listenable.get(0, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testPlainFutureCompletes() throws Exception {
+        FutureTask<String> reply = new FutureTask<>(new Callable<String>() {
+            @Override
+            public String call() {
+                return "reply";
+            }
+        });
+        ListenableFuture<String> listenable = replies.listenable(reply);
+        Assert.assertFalse(listenable.isDone());
+        reply.run();
+        Assert.assertEquals("reply", listenable.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testPlainFutureFails() throws Exception {
+        FutureTask<String> reply = new FutureTask<>(new Callable<String>() {
+            @Override
+            public String call() {
+                throw new IllegalStateException("switch gone");
+            }
+        });
+        reply.run();
+        try {
+            replies.listenable(reply).get(1, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testUnansweredFutureTimesOut() throws Exception {
+        SwitchReplies shortReplies = new SwitchReplies(10);
+        try {
+            SettableFuture<String> reply = SettableFuture.create();
+            shortReplies.listenable(reply).get(1, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof TimeoutException);
+        } finally {
+            shortReplies.close();
+        }
+    }
+
+    @Test
+    public void testOutstandingRequests() {
+        ShimRelay relay = new ShimRelay(OpenFlowCodecs.getDefault(), replies);
+        SettableFuture<RpcResult<BarrierOutput>> reply = SettableFuture.create();
+        relay.sendResponseToCore(reply, null, (short) 4, 1L, 1L, 0);
+        Assert.assertEquals(1, relay.getOutstandingRequests());
+        Assert.assertEquals(0, new ShimRelay().getOutstandingRequests());
+        reply.set(RpcResultBuilder.<BarrierOutput> failed().build());
+        Assert.assertEquals(0, relay.getOutstandingRequests());
+    }
+
+    @Test
+    public void testTimedOutRequestIsNotOutstanding() throws Exception {
+        SwitchReplies shortReplies = new SwitchReplies(10);
+        try {
+            ShimRelay relay = new ShimRelay(OpenFlowCodecs.getDefault(), shortReplies);
+            SettableFuture<RpcResult<BarrierOutput>> reply = SettableFuture.create();
+            relay.sendResponseToCore(reply, null, (short) 4, 1L, 1L, 0);
+            for (int i = 0; i < 100 && relay.getOutstandingRequests() > 0; i++) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(0, relay.getOutstandingRequests());
+            Assert.assertTrue(reply.isCancelled());
+        } finally {
+            shortReplies.close();
+        }
+    }
+}
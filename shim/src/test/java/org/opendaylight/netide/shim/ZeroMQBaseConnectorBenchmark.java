@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2015 NetIDE Consortium and others.  All rights reserved.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.opendaylight.netide.shim;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.zeromq.ZMQ;
+
+/**
+ * Throughput of the shim-to-core send path. Compares the persistent send path
+ * of {@link ZeroMQBaseConnector#SendData(byte[])} with the former behaviour of
+ * creating, connecting and closing a PUSH socket for every frame.
+ *
+ * Run with: java -cp target/test-classes:&lt;test classpath&gt;
+ * org.openjdk.jmh.Main ZeroMQBaseConnectorBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@Threads(4)
+public class ZeroMQBaseConnectorBenchmark {
+
+    private static final int CORE_PORT = 5599;
+
+    private final byte[] frame = new byte[128];
+    private ZeroMQBaseConnector connector;
+    private ZMQ.Context coreContext;
+    private Thread core;
+
+    @Setup
+    public void setUp() {
+        coreContext = ZMQ.context(1);
+        final ZMQ.Socket router = coreContext.socket(ZMQ.ROUTER);
+        router.setReceiveTimeOut(100);
+        router.bind("tcp://127.0.0.1:" + CORE_PORT);
+        core = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (!Thread.currentThread().isInterrupted()) {
+                    router.recv(0);
+                }
+                router.close();
+            }
+        });
+        core.start();
+
+        connector = new ZeroMQBaseConnector();
+        connector.setAddress("127.0.0.1");
+        connector.setPort(CORE_PORT);
+        connector.Start();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        connector.Stop();
+        core.interrupt();
+        core.join();
+        coreContext.term();
+    }
+
+    @Benchmark
+    public boolean persistentSendPath() {
+        return connector.SendData(frame);
+    }
+
+    @Benchmark
+    public boolean perMessageSocket() {
+        ZMQ.Socket sendSocket = connector.getContext().socket(ZMQ.PUSH);
+        sendSocket.setIdentity("shim".getBytes());
+        sendSocket.connect(connector.getControlAddress());
+        boolean sent = sendSocket.send(frame, 0);
+        sendSocket.close();
+        return sent;
+    }
+}
@@ -7,15 +7,27 @@
  */
 package org.opendaylight.netide.shim;
 
+import io.netty.buffer.ByteBuf;
+import java.util.List;
+import org.javatuples.Pair;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.InOrder;
 import org.mockito.Matchers;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.opendaylight.netide.netiplib.BatchMessage;
+import org.opendaylight.netide.netiplib.HelloMessage;
+import org.opendaylight.netide.netiplib.Message;
+import org.opendaylight.netide.netiplib.MessageHeader;
+import org.opendaylight.netide.netiplib.MessageType;
+import org.opendaylight.netide.netiplib.Protocol;
+import org.opendaylight.netide.netiplib.ProtocolVersions;
+import org.zeromq.ZFrame;
 import org.zeromq.ZMQ;
 import org.zeromq.ZMsg;
 
@@ -28,6 +40,7 @@ import org.zeromq.ZMsg;
 public class ZeroMQBaseConnectorTest {
 
     private static final String CONTROL_ADDRESS = "inproc://ShimControllerQueue";
+    private static final int CORE_PORT = 5598;
 
     @Mock
     ZMsg msg;
@@ -55,4 +68,343 @@ public class ZeroMQBaseConnectorTest {
         Assert.assertTrue(connector.SendData(data));
     }
 
+    @Test(timeout = 10000)
+    public void testWaitStrategiesDeliverToCore() {
+        for (WaitStrategy strategy : WaitStrategy.values()) {
+            ZMQ.Context coreContext = ZMQ.context(1);
+            ZMQ.Socket core = coreContext.socket(ZMQ.ROUTER);
+            core.bind("tcp://127.0.0.1:" + CORE_PORT);
+
+            ZeroMQBaseConnector strategyConnector = new ZeroMQBaseConnector();
+            strategyConnector.setAddress("127.0.0.1");
+            strategyConnector.setPort(CORE_PORT);
+            strategyConnector.setWaitStrategy(strategy);
+            strategyConnector.setSpinIterations(10);
+            strategyConnector.Start();
+
+            byte[] data = new byte[] { 1, 2, 3 };
+            strategyConnector.SendData(data);
+            ZMsg received = ZMsg.recvMsg(core);
+            Assert.assertArrayEquals(strategy.name(), data, received.getLast().getData());
+
+            strategyConnector.Stop();
+            core.close();
+            coreContext.term();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testBatchedFramesKeepOrder() {
+        ZMQ.Context coreContext = ZMQ.context(1);
+        ZMQ.Socket core = coreContext.socket(ZMQ.ROUTER);
+        core.bind("tcp://127.0.0.1:" + CORE_PORT);
+
+        ZeroMQBaseConnector batchingConnector = new ZeroMQBaseConnector();
+        batchingConnector.setAddress("127.0.0.1");
+        batchingConnector.setPort(CORE_PORT);
+        batchingConnector.setBatchMaxBytes(64);
+        batchingConnector.setBatchLingerMicros(200);
+        batchingConnector.Start();
+
+        int frames = 100;
+        for (int i = 0; i < frames; i++) {
+            batchingConnector.SendData(new byte[] { (byte) i, 0, 0, 0, 0, 0, 0, 0 });
+        }
+        int expected = 0;
+        while (expected < frames) {
+            ZMsg received = ZMsg.recvMsg(core);
+            // the first frame is the identity added by the ROUTER
+            received.pop();
+            Assert.assertTrue(received.contentSize() <= 64);
+            for (ZFrame frame : received) {
+                Assert.assertEquals((byte) expected, frame.getData()[0]);
+                expected++;
+            }
+        }
+
+        batchingConnector.Stop();
+        core.close();
+        coreContext.term();
+    }
+
+    @Test(timeout = 10000)
+    public void testMultiFrameMessageFromCore() throws InterruptedException {
+        ZMQ.Context coreContext = ZMQ.context(1);
+        ZMQ.Socket core = coreContext.socket(ZMQ.ROUTER);
+        core.bind("tcp://127.0.0.1:" + CORE_PORT);
+
+        ICoreListener listener = Mockito.mock(ICoreListener.class);
+        ZeroMQBaseConnector receivingConnector = new ZeroMQBaseConnector();
+        receivingConnector.setAddress("127.0.0.1");
+        receivingConnector.setPort(CORE_PORT);
+        receivingConnector.RegisterCoreListener(listener);
+        receivingConnector.Start();
+
+        // the DEALER has to announce itself before the ROUTER can address it
+        receivingConnector.SendData(new byte[] { 1 });
+        ZMsg announce = ZMsg.recvMsg(core);
+        byte[] identity = announce.getFirst().getData();
+
+        HelloMessage first = new HelloMessage();
+        first.getHeader().setModuleId(1);
+        HelloMessage second = new HelloMessage();
+        second.getHeader().setModuleId(2);
+        ZMsg batch = new ZMsg();
+        batch.add(identity);
+        batch.add(first.toByteRepresentation());
+        batch.add(second.toByteRepresentation());
+        batch.send(core);
+
+        Mockito.verify(listener, Mockito.timeout(5000)).onHelloCoreMessage(
+                Matchers.<List<Pair<Protocol, ProtocolVersions>>> any(), Matchers.eq(1));
+        Mockito.verify(listener, Mockito.timeout(5000)).onHelloCoreMessage(
+                Matchers.<List<Pair<Protocol, ProtocolVersions>>> any(), Matchers.eq(2));
+
+        receivingConnector.Stop();
+        core.close();
+        coreContext.term();
+    }
+
+    @Test(timeout = 10000)
+    public void testBatchFrameFromCore() throws InterruptedException {
+        ZMQ.Context coreContext = ZMQ.context(1);
+        ZMQ.Socket core = coreContext.socket(ZMQ.ROUTER);
+        core.bind("tcp://127.0.0.1:" + CORE_PORT);
+
+        ReleasingCoreListener listener = Mockito.spy(new ReleasingCoreListener());
+        ZeroMQBaseConnector receivingConnector = new ZeroMQBaseConnector();
+        receivingConnector.setAddress("127.0.0.1");
+        receivingConnector.setPort(CORE_PORT);
+        receivingConnector.RegisterCoreListener(listener);
+        receivingConnector.Start();
+
+        receivingConnector.SendData(new byte[] { 1 });
+        ZMsg announce = ZMsg.recvMsg(core);
+        byte[] identity = announce.getFirst().getData();
+
+        BatchMessage batch = new BatchMessage();
+        for (long datapathId = 1; datapathId <= 3; datapathId++) {
+            MessageHeader header = new MessageHeader();
+            header.setMessageType(MessageType.OPENFLOW);
+            header.setDatapathId(datapathId);
+            header.setModuleId(7);
+            batch.getMessages().add(new Message(header, new byte[] { 0x04, 0x02, 0x00, 0x08, 0, 0, 0,
+                (byte) datapathId }));
+        }
+        HelloMessage hello = new HelloMessage();
+        hello.getHeader().setModuleId(3);
+        batch.getMessages().add(hello);
+        core.sendMore(identity);
+        core.send(batch.toByteRepresentation(), 0);
+        // once this frame is dispatched the batch before it is done with
+        HelloMessage after = new HelloMessage();
+        after.getHeader().setModuleId(4);
+        core.sendMore(identity);
+        core.send(after.toByteRepresentation(), 0);
+
+        // the last message of the batch arrives after all others
+        Mockito.verify(listener, Mockito.timeout(5000)).onHelloCoreMessage(
+                Matchers.<List<Pair<Protocol, ProtocolVersions>>> any(), Matchers.eq(3));
+        Mockito.verify(listener, Mockito.timeout(5000)).onHelloCoreMessage(
+                Matchers.<List<Pair<Protocol, ProtocolVersions>>> any(), Matchers.eq(4));
+        InOrder inOrder = Mockito.inOrder(listener);
+        for (long datapathId = 1; datapathId <= 3; datapathId++) {
+            inOrder.verify(listener).onOpenFlowCoreMessage(Matchers.eq(datapathId), Matchers.any(ByteBuf.class),
+                    Matchers.eq(7));
+        }
+        List<byte[]> payloads = listener.getPayloads();
+        Assert.assertEquals(3, payloads.size());
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(i + 1, payloads.get(i)[7]);
+        }
+        listener.assertReleased();
+
+        receivingConnector.Stop();
+        core.close();
+        coreContext.term();
+    }
+
+    @Test
+    public void testCoreAliveWithoutHeartbeats() {
+        Assert.assertTrue(new ZeroMQBaseConnector().isCoreAlive());
+    }
+
+    @Test(timeout = 10000)
+    public void testHeartbeatsAreAnswered() throws InterruptedException {
+        ZMQ.Context coreContext = ZMQ.context(1);
+        ZMQ.Socket core = coreContext.socket(ZMQ.ROUTER);
+        core.bind("tcp://127.0.0.1:" + CORE_PORT);
+
+        ZeroMQBaseConnector heartbeatConnector = new ZeroMQBaseConnector();
+        heartbeatConnector.setAddress("127.0.0.1");
+        heartbeatConnector.setPort(CORE_PORT);
+        heartbeatConnector.setHeartbeatIntervalMillis(50);
+        heartbeatConnector.Start();
+
+        // echo the heartbeat back like a core would
+        ZMsg heartbeat = ZMsg.recvMsg(core);
+        Assert.assertEquals(MessageType.HEARTBEAT.getValue(), heartbeat.getLast().getData()[1]);
+        heartbeat.send(core);
+        while (heartbeatConnector.getCoreRttMicros() < 0) {
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(heartbeatConnector.isCoreAlive());
+
+        heartbeatConnector.Stop();
+        core.close();
+        coreContext.term();
+    }
+
+    @Test(timeout = 10000)
+    public void testReconnectAfterMissedHeartbeats() throws InterruptedException {
+        ZMQ.Context coreContext = ZMQ.context(1);
+        ZMQ.Socket core = coreContext.socket(ZMQ.ROUTER);
+        core.bind("tcp://127.0.0.1:" + CORE_PORT);
+
+        ZeroMQBaseConnector heartbeatConnector = new ZeroMQBaseConnector();
+        heartbeatConnector.setAddress("127.0.0.1");
+        heartbeatConnector.setPort(CORE_PORT);
+        heartbeatConnector.setHeartbeatIntervalMillis(20);
+        heartbeatConnector.setHeartbeatMisses(2);
+        heartbeatConnector.Start();
+
+        HelloMessage hello = new HelloMessage();
+        hello.getHeader().setModuleId(3);
+        heartbeatConnector.SendData(hello.toByteRepresentation());
+        while (heartbeatConnector.getReconnects() == 0) {
+            Thread.sleep(10);
+        }
+        Assert.assertFalse(heartbeatConnector.isCoreAlive());
+        // the HELLO is sent once more on the new connection
+        int hellos = 0;
+        while (hellos < 2) {
+            ZMsg received = ZMsg.recvMsg(core);
+            if (received.getLast().getData()[1] == MessageType.HELLO.getValue()) {
+                hellos++;
+            }
+        }
+
+        heartbeatConnector.Stop();
+        core.close();
+        coreContext.term();
+    }
+
+    @Test
+    public void testCoreEndpoint() {
+        ZeroMQBaseConnector endpointConnector = new ZeroMQBaseConnector();
+        endpointConnector.setAddress("10.0.0.1");
+        endpointConnector.setPort(5555);
+        Assert.assertEquals("tcp://10.0.0.1:5555", endpointConnector.getCoreEndpoint());
+        endpointConnector.setTransport(CoreTransport.IPC);
+        endpointConnector.setEndpoint("/tmp/netide-core");
+        Assert.assertEquals("ipc:///tmp/netide-core", endpointConnector.getCoreEndpoint());
+        endpointConnector.setTransport(CoreTransport.INPROC);
+        endpointConnector.setEndpoint("netide-core");
+        Assert.assertEquals("inproc://netide-core", endpointConnector.getCoreEndpoint());
+    }
+
+    @Test(timeout = 10000)
+    public void testInprocTransportWithSharedContext() {
+        ZMQ.Context sharedContext = ZMQ.context(1);
+        ZMQ.Socket core = sharedContext.socket(ZMQ.ROUTER);
+        core.bind("inproc://netide-core");
+
+        CoreConnectionConfiguration configuration = new CoreConnectionConfiguration();
+        configuration.setTransport(CoreTransport.INPROC);
+        configuration.setEndpoint("netide-core");
+        configuration.setContext(sharedContext);
+        ZeroMQBaseConnector inprocConnector = new ZeroMQBaseConnector();
+        inprocConnector.configure(configuration);
+        inprocConnector.Start();
+
+        byte[] data = new byte[] { 1, 2, 3 };
+        inprocConnector.SendData(data);
+        ZMsg received = ZMsg.recvMsg(core);
+        Assert.assertArrayEquals(data, received.getLast().getData());
+
+        inprocConnector.Stop();
+        core.close();
+        sharedContext.term();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testInprocTransportWithoutSharedContext() {
+        ZeroMQBaseConnector inprocConnector = new ZeroMQBaseConnector();
+        inprocConnector.setTransport(CoreTransport.INPROC);
+        inprocConnector.Start();
+    }
+
+    @Test
+    public void testParseCoreTransport() {
+        Assert.assertEquals(CoreTransport.TCP, CoreTransport.parse("tcp"));
+        Assert.assertEquals(CoreTransport.IPC, CoreTransport.parse("IPC"));
+        Assert.assertEquals(CoreTransport.INPROC, CoreTransport.parse("inproc"));
+    }
+
+    @Test
+    public void testDropOldestEvictsQueuedFrames() {
+        ZeroMQBaseConnector idleConnector = new ZeroMQBaseConnector();
+        idleConnector.setHighWaterMark(2);
+        idleConnector.setOverloadPolicy(OverloadPolicy.DROP_OLDEST);
+        for (byte i = 0; i < 5; i++) {
+            Assert.assertTrue(idleConnector.SendData(new byte[] { i }));
+        }
+        Assert.assertEquals(2, idleConnector.getOutboundQueueDepth());
+        Assert.assertEquals(3, idleConnector.getOutboundEvictions());
+        Assert.assertEquals(3, idleConnector.getOutboundDrops());
+    }
+
+    @Test
+    public void testDropLowPriorityShedsStatisticsFirst() {
+        ZeroMQBaseConnector idleConnector = new ZeroMQBaseConnector();
+        idleConnector.setHighWaterMark(4);
+        idleConnector.setOverloadPolicy(OverloadPolicy.DROP_LOW_PRIORITY);
+        byte[] packetIn = openFlowFrame((byte) 0x04, (byte) 10);
+        byte[] multipartReply = openFlowFrame((byte) 0x04, (byte) 19);
+
+        Assert.assertTrue(idleConnector.SendData(multipartReply));
+        Assert.assertTrue(idleConnector.SendData(packetIn));
+        Assert.assertFalse(idleConnector.SendData(multipartReply));
+        Assert.assertTrue(idleConnector.SendData(packetIn));
+        Assert.assertTrue(idleConnector.SendData(packetIn));
+        Assert.assertFalse(idleConnector.SendData(packetIn));
+        Assert.assertEquals(1, idleConnector.getOutboundLowPriorityDrops());
+        Assert.assertEquals(2, idleConnector.getOutboundDrops());
+    }
+
+    @Test
+    public void testIsLowPriority() {
+        Assert.assertTrue(ZeroMQBaseConnector.isLowPriority(openFlowFrame((byte) 0x01, (byte) 17)));
+        Assert.assertFalse(ZeroMQBaseConnector.isLowPriority(openFlowFrame((byte) 0x01, (byte) 10)));
+        Assert.assertTrue(ZeroMQBaseConnector.isLowPriority(openFlowFrame((byte) 0x04, (byte) 18)));
+        Assert.assertFalse(ZeroMQBaseConnector.isLowPriority(openFlowFrame((byte) 0x04, (byte) 16)));
+        Assert.assertFalse(ZeroMQBaseConnector.isLowPriority(new HelloMessage().toByteRepresentation()));
+    }
+
+    @Test
+    public void testParseOverloadPolicy() {
+        Assert.assertEquals(OverloadPolicy.DROP_OLDEST, OverloadPolicy.parse("drop-oldest"));
+        Assert.assertEquals(OverloadPolicy.BLOCK, OverloadPolicy.parse("Block"));
+    }
+
+    private static byte[] openFlowFrame(byte version, byte type) {
+        byte[] frame = new byte[MessageHeader.HEADER_BYTES + 8];
+        frame[1] = MessageType.OPENFLOW.getValue();
+        frame[MessageHeader.HEADER_BYTES] = version;
+        frame[MessageHeader.HEADER_BYTES + 1] = type;
+        return frame;
+    }
+
+    @Test
+    public void testParseWaitStrategy() {
+        Assert.assertEquals(WaitStrategy.BLOCKING, WaitStrategy.parse("blocking"));
+        Assert.assertEquals(WaitStrategy.BUSY_SPIN, WaitStrategy.parse("busy-spin"));
+        Assert.assertEquals(WaitStrategy.HYBRID, WaitStrategy.parse("HYBRID"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testParseUnknownWaitStrategy() {
+        WaitStrategy.parse("sleepy");
+    }
+
 }